@@ -0,0 +1,331 @@
+package br.com.progiv.cannongame;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+//procura o ângulo do canhão que acerta um alvo, simulando a trajetória da bala para vários ângulos candidatos
+//a simulação repete as regras de GameWorld.step (passo discreto): bala, barreira e alvos se movem e quicam
+//nas bordas, e a bala para no primeiro alvo ou na barreira
+//os candidatos são divididos entre as threads do pool (ou avaliados em série sem pool) e a busca respeita
+//um orçamento de tempo; com earlyExit, para no primeiro ângulo que acerta
+public class AimSolver {
+    public static final int DEFAULT_CANDIDATES = 256;
+    public static final long DEFAULT_BUDGET_NS = 2000000; //2 ms por busca
+    static final int CANDIDATES_PER_TASK = 16; //abaixo disso a tarefa não se divide mais
+    static final int MAX_FLIGHT_STEPS = 2000; //limite de passos simulados por disparo
+
+    private final ForkJoinPool pool; //null: avalia em série na thread que chama solve
+    private final int candidates; //sempre potência de 2
+    private final int candidateBits;
+    private long budgetNanos = DEFAULT_BUDGET_NS;
+    private boolean earlyExit;
+
+    //cópia do estado do mundo usada pelas threads da busca (o mundo não é lido durante a avaliação)
+    private int screenWidth;
+    private int screenHeight;
+    private double speed; //velocidade da bala, em pixels por segundo
+    private int radius;
+    private double interval;
+    private boolean fixedPoint; //GameWorld.isFixedPointPhysics: simula com a mesma conta inteira
+    private long fixedInterval;
+    private int targetCount;
+    private float[] targetX = new float[(int)GameWorld.TARGET_PIECES];
+    private float[] targetWidth = new float[(int)GameWorld.TARGET_PIECES];
+    private float[] targetHeight = new float[(int)GameWorld.TARGET_PIECES];
+    private int blockerCount;
+    private float[] blockerX = new float[1];
+    private float[] blockerWidth = new float[1];
+    private float[] blockerHeight = new float[1];
+    //topo de cada alvo e barreira em cada passo do voo, calculado uma vez por busca ([passo * quantidade + n])
+    private int flightSteps;
+    private float[] targetTops = new float[0];
+    private float[] blockerTops = new float[0];
+
+    //busca em andamento
+    private Search serialSearch; //sem pool, a mesma tarefa é reaproveitada (a busca não aloca)
+    private long deadline;
+    private volatile boolean stop; //prazo esgotado ou, com earlyExit, acerto encontrado
+
+    //resultado da última busca
+    private double angle;
+    private double score;
+    private int hitTarget;
+    private int hitSteps;
+    private int evaluated;
+    private boolean timedOut;
+
+    public AimSolver(ForkJoinPool pool, int candidates){
+        this.pool = pool;
+        //arredonda para cima até uma potência de 2: só assim a ordem de bits invertidos visita todos os ângulos
+        this.candidates = candidates <= 1 ? 1 : Integer.highestOneBit(candidates - 1) << 1;
+        candidateBits = Integer.numberOfTrailingZeros(this.candidates);
+    }
+
+    //tempo máximo de cada busca, em nanossegundos
+    public void setBudgetNanos(long budgetNanos){
+        this.budgetNanos = budgetNanos;
+    }
+    public long getBudgetNanos(){
+        return budgetNanos;
+    }
+    //para no primeiro ângulo que acerta um alvo, em vez de procurar o acerto mais rápido
+    public void setEarlyExit(boolean earlyExit){
+        this.earlyExit = earlyExit;
+    }
+    public boolean isEarlyExit(){
+        return earlyExit;
+    }
+
+    //procura o melhor ângulo para o estado atual do mundo, supondo passos de interval segundos
+    //retorna true se algum ângulo acerta um alvo antes da barreira
+    public boolean solve(GameWorld world, double interval){
+        capture(world, interval);
+        deadline = System.nanoTime() + budgetNanos;
+        stop = false;
+        Search search;
+        if(pool != null){
+            search = new Search(0, candidates);
+            pool.invoke(search);
+        }else{
+            if(serialSearch == null)
+                serialSearch = new Search(0, candidates);
+            search = serialSearch;
+            search.reset();
+            search.compute();
+        }
+        angle = candidateAngle(search.bestCandidate);
+        score = search.bestScore;
+        hitTarget = search.bestTarget;
+        hitSteps = search.bestSteps;
+        evaluated = search.evaluated;
+        timedOut = evaluated < candidates && !(earlyExit && hitTarget >= 0);
+        return hitTarget >= 0;
+    }
+
+    //ângulo do cano (como em Cannon.align) da melhor busca
+    public double getAngle(){
+        return angle;
+    }
+    //pontuação do melhor ângulo: acima de 1 acerta um alvo (maior é mais rápido), 0 sai da tela, -1 bate na barreira
+    public double getScore(){
+        return score;
+    }
+    //alvo que o melhor ângulo acerta (índice em GameWorld.getTargets no momento da busca) ou -1
+    public int getHitTarget(){
+        return hitTarget;
+    }
+    //passos até o acerto
+    public int getHitSteps(){
+        return hitSteps;
+    }
+    //ângulos por busca (o pedido no construtor arredondado para potência de 2)
+    public int getCandidates(){
+        return candidates;
+    }
+    //ângulos avaliados na última busca
+    public int getEvaluated(){
+        return evaluated;
+    }
+    //a última busca parou pelo prazo antes de avaliar todos os ângulos
+    public boolean isTimedOut(){
+        return timedOut;
+    }
+
+    //os candidatos cobrem (0, pi) e são visitados em ordem de bits invertidos:
+    //qualquer prefixo da busca (ex.: cortado pelo prazo) já cobre todo o intervalo
+    double candidateAngle(int index){
+        int slot = candidateBits == 0 ? 0 : Integer.reverse(index) >>> (32 - candidateBits);
+        return Math.PI * (slot + 0.5) / candidates;
+    }
+
+    private void capture(GameWorld world, double interval){
+        this.interval = interval;
+        fixedPoint = world.isFixedPointPhysics();
+        fixedInterval = FixedPoint.interval(interval);
+        screenWidth = world.getScreenWidth();
+        screenHeight = world.getScreenHeight();
+        speed = world.getConfig().getCannonballSpeedPercent() * screenWidth;
+        radius = (int)(screenHeight * GameWorld.CANNONBALL_RADIUS_PERCENT);
+        EntityStore targets = world.getTargets();
+        targetCount = targets.size();
+        if(targetX.length < targetCount){
+            targetX = new float[targetCount];
+            targetWidth = new float[targetCount];
+            targetHeight = new float[targetCount];
+        }
+        for(int n = 0; n < targetCount; n++){
+            targetX[n] = targets.getX(n);
+            targetWidth[n] = targets.getWidth(n);
+            targetHeight[n] = targets.getHeight(n);
+        }
+        EntityStore blockers = world.getBlockers();
+        blockerCount = blockers.size();
+        if(blockerX.length < blockerCount){
+            blockerX = new float[blockerCount];
+            blockerWidth = new float[blockerCount];
+            blockerHeight = new float[blockerCount];
+        }
+        for(int n = 0; n < blockerCount; n++){
+            blockerX[n] = blockers.getX(n);
+            blockerWidth[n] = blockers.getWidth(n);
+            blockerHeight[n] = blockers.getHeight(n);
+        }
+        //a bala percorre no máximo a largura mais a altura da tela antes de sair
+        //(com folga para o arredondamento do deslocamento de cada passo para pixels inteiros)
+        flightSteps = (int)Math.min(MAX_FLIGHT_STEPS, Math.ceil((screenWidth + screenHeight) / (0.9 * speed * interval)) + 2);
+        targetTops = predictTops(targets, targetTops);
+        blockerTops = predictTops(blockers, blockerTops);
+    }
+
+    //posições futuras com o mesmo arredondamento e quique de EntityStore.update (ou updateFixed)
+    private float[] predictTops(EntityStore store, float[] tops){
+        int count = store.size();
+        if(tops.length < flightSteps * count)
+            tops = new float[flightSteps * count];
+        float dt = (float)interval;
+        long bottomLimit = FixedPoint.position(screenHeight);
+        for(int n = 0; n < count; n++){
+            if(fixedPoint){
+                long top = store.getFixedY(n);
+                int velocityY = store.getFixedVelocityY(n);
+                long height = store.getFixedHeight(n);
+                for(int step = 0; step < flightSteps; step++){
+                    top += FixedPoint.displacement(velocityY, fixedInterval);
+                    if(top < 0 && velocityY < 0 || top + height > bottomLimit && velocityY > 0)
+                        velocityY = -velocityY;
+                    tops[step * count + n] = FixedPoint.toFloat(top);
+                }
+            }else{
+                float top = store.getY(n);
+                float velocityY = store.getVelocityY(n);
+                float height = store.getHeight(n);
+                for(int step = 0; step < flightSteps; step++){
+                    top += velocityY * dt;
+                    if(top < 0 && velocityY < 0 || top + height > screenHeight && velocityY > 0)
+                        velocityY = -velocityY;
+                    tops[step * count + n] = top;
+                }
+            }
+        }
+        return tops;
+    }
+
+    //avalia os candidatos [from, to) dividindo ao meio; cada tarefa guarda o seu melhor e junta no fim
+    private final class Search extends RecursiveAction {
+        private final int from;
+        private final int to;
+        int bestCandidate;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        int bestTarget = -1;
+        int bestSteps;
+        int evaluated;
+        //resultado de evaluate
+        private int contactTarget;
+        private int contactSteps;
+
+        Search(int from, int to){
+            this.from = from;
+            this.to = to;
+        }
+
+        void reset(){
+            bestCandidate = 0;
+            bestScore = Double.NEGATIVE_INFINITY;
+            bestTarget = -1;
+            bestSteps = 0;
+            evaluated = 0;
+        }
+
+        @Override
+        protected void compute() {
+            if(to - from > CANDIDATES_PER_TASK && pool != null){
+                int middle = (from + to) >>> 1;
+                Search left = new Search(from, middle);
+                Search right = new Search(middle, to);
+                invokeAll(left, right);
+                take(left);
+                take(right);
+                return;
+            }
+            for(int index = from; index < to && !stop; index++){
+                if(System.nanoTime() > deadline){
+                    stop = true;
+                    break;
+                }
+                double candidateScore = evaluate(candidateAngle(index));
+                ++evaluated;
+                if(candidateScore > bestScore){
+                    bestScore = candidateScore;
+                    bestCandidate = index;
+                    bestTarget = contactTarget;
+                    bestSteps = contactSteps;
+                }
+                if(earlyExit && contactTarget >= 0)
+                    stop = true;
+            }
+        }
+
+        //junta o resultado de uma subtarefa (empate: menor índice, para o resultado não depender da divisão)
+        private void take(Search other){
+            evaluated += other.evaluated;
+            if(other.bestScore > bestScore || other.bestScore == bestScore && other.bestCandidate < bestCandidate){
+                bestScore = other.bestScore;
+                bestCandidate = other.bestCandidate;
+                bestTarget = other.bestTarget;
+                bestSteps = other.bestSteps;
+            }
+        }
+
+        //simula a bala disparada com o ângulo, passo a passo, como GameWorld.updatePositions e testForCollision
+        private double evaluate(double candidate){
+            contactTarget = -1;
+            contactSteps = 0;
+            int velocityX = (int)(speed * Math.sin(candidate));
+            float velocityY = (int)(speed * -Math.cos(candidate));
+            int left = -radius;
+            int top = screenHeight / 2 - radius;
+            int size = 2 * radius;
+            //física em ponto fixo: como CannonBall.resetFixed e update
+            int fixedVelocityX = FixedPoint.velocity(speed * Math.sin(candidate));
+            int fixedVelocityY = FixedPoint.velocity(speed * -Math.cos(candidate));
+            long fixedLeft = FixedPoint.position(left);
+            long fixedTop = FixedPoint.position(top);
+            for(int steps = 1; steps <= flightSteps; steps++){
+                //bala: vertical com quique, depois horizontal
+                if(fixedPoint){
+                    fixedTop += FixedPoint.displacement(fixedVelocityY, fixedInterval);
+                    top = FixedPoint.toPixels(fixedTop);
+                    if(top < 0 && fixedVelocityY < 0 || top + size > screenHeight && fixedVelocityY > 0)
+                        fixedVelocityY = -fixedVelocityY;
+                    fixedLeft += FixedPoint.displacement(fixedVelocityX, fixedInterval);
+                    left = FixedPoint.toPixels(fixedLeft);
+                }else{
+                    top += (int)(velocityY * interval);
+                    if(top < 0 && velocityY < 0 || top + size > screenHeight && velocityY > 0)
+                        velocityY = -velocityY;
+                    left += (int)(velocityX * interval);
+                }
+                if(top < 0 || left < 0 || top + size > screenHeight || left + size > screenWidth)
+                    return 0; //saiu da tela sem acertar nada
+                //alvos e barreiras na posição deste passo
+                int target = -1;
+                for(int n = 0; n < targetCount && target < 0; n++){
+                    float y = targetTops[(steps - 1) * targetCount + n];
+                    if(left < targetX[n] + targetWidth[n] && targetX[n] < left + size && top < y + targetHeight[n] && y < top + size)
+                        target = n;
+                }
+                if(target >= 0){
+                    contactTarget = target;
+                    contactSteps = steps;
+                    return 1 + 1.0 / steps;
+                }
+                for(int n = 0; n < blockerCount; n++){
+                    float y = blockerTops[(steps - 1) * blockerCount + n];
+                    if(left < blockerX[n] + blockerWidth[n] && blockerX[n] < left + size && top < y + blockerHeight[n] && y < top + size)
+                        return -1; //bate na barreira: perde tempo e a bala volta
+                }
+            }
+            return 0;
+        }
+    }
+}
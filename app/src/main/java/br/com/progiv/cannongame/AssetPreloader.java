@@ -0,0 +1,147 @@
+package br.com.progiv.cannongame;
+
+import android.content.Context;
+import android.media.AudioAttributes;
+import android.media.SoundPool;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+//carrega os sons em paralelo desde o MainActivity.onCreate, enquanto o layout ainda está sendo criado
+//avisa quando todos terminaram (OnLoadCompleteListener) e guarda o instante de início, para medir o tempo até o primeiro quadro
+public class AssetPreloader implements SoundPool.OnLoadCompleteListener {
+    private static final String TAG = "AssetPreloader";
+    public static final int SOUND_COUNT = 3;
+    private static final int NOT_LOADED = 0; //SoundPool.load nunca retorna 0 para um som válido
+
+    private final SoundPool soundPool;
+    private final int[] sampleIds = new int[SOUND_COUNT]; //id do SoundPool de cada som do jogo
+    private final boolean[] loaded = new boolean[SOUND_COUNT];
+    private final int[] completedSampleIds = new int[SOUND_COUNT]; //concluídos antes de load retornar o id
+    private int completedCount;
+    private final CountDownLatch ready = new CountDownLatch(SOUND_COUNT);
+    private volatile boolean allLoaded;
+    private final ExecutorService executor;
+    private final long startTimeNanos; //base de SystemClock.elapsedRealtimeNanos
+    private volatile long readyTimeNanos;
+
+    //começa a carregar os sons; context pode ser a Activity, só o contexto da aplicação é guardado
+    public AssetPreloader(Context context){
+        startTimeNanos = SystemClock.elapsedRealtimeNanos();
+        final Context appContext = context.getApplicationContext();
+
+        //configurar atributos de áudio para o jogo
+        AudioAttributes.Builder attrBuilder = new AudioAttributes.Builder();
+        attrBuilder.setUsage(AudioAttributes.USAGE_GAME);
+        SoundPool.Builder builder = new SoundPool.Builder();
+        builder.setMaxStreams(AudioDispatcher.DEFAULT_VOICES);
+        builder.setAudioAttributes(attrBuilder.build());
+        soundPool = builder.build();
+        soundPool.setOnLoadCompleteListener(this);
+
+        //cada load abre e entrega um arquivo ao SoundPool; feitos em paralelo, fora da thread da interface
+        executor = Executors.newFixedThreadPool(Math.min(SOUND_COUNT, Runtime.getRuntime().availableProcessors()));
+        load(appContext, GameWorld.TARGET_SOUND_ID, R.raw.target_hit);
+        load(appContext, GameWorld.CANNON_SOUND_ID, R.raw.cannon_fire);
+        load(appContext, GameWorld.BLOCKER_SOUND_ID, R.raw.blocker_hit);
+        executor.shutdown();
+    }
+
+    private void load(final Context context, final int soundId, final int resourceId){
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                int sampleId = soundPool.load(context, resourceId, 1);
+                onSampleId(soundId, sampleId);
+            }
+        });
+    }
+
+    //o id chega pelo retorno de load; a conclusão, pelo listener: a ordem entre os dois não é garantida
+    private synchronized void onSampleId(int soundId, int sampleId){
+        sampleIds[soundId] = sampleId;
+        for(int i = 0; i < completedCount; i++)
+            if(completedSampleIds[i] == sampleId)
+                markLoaded(soundId);
+    }
+
+    @Override
+    public synchronized void onLoadComplete(SoundPool pool, int sampleId, int status) {
+        if(status != 0){
+            Log.e(TAG, "Failed to load sound sample " + sampleId + ", status " + status);
+            countDown(); //o jogo não espera por um som que não vai carregar
+            return;
+        }
+        for(int soundId = 0; soundId < SOUND_COUNT; soundId++){
+            if(sampleIds[soundId] == sampleId){
+                markLoaded(soundId);
+                return;
+            }
+        }
+        completedSampleIds[completedCount++] = sampleId;
+    }
+
+    private void markLoaded(int soundId){
+        if(loaded[soundId])
+            return;
+        loaded[soundId] = true;
+        countDown();
+    }
+
+    //um som a menos para esperar, carregado ou não; o último libera o jogo
+    private void countDown(){
+        ready.countDown();
+        if(ready.getCount() == 0 && !allLoaded){
+            readyTimeNanos = SystemClock.elapsedRealtimeNanos();
+            allLoaded = true;
+            Log.i(TAG, "Sounds loaded in " + (readyTimeNanos - startTimeNanos) / 1000000 + " ms");
+        }
+    }
+
+    //espera no máximo timeoutMs pelos sons; retorna true se todos estão prontos
+    public boolean awaitReady(long timeoutMs){
+        try{
+            return ready.await(timeoutMs, TimeUnit.MILLISECONDS);
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public boolean isReady(){
+        return allLoaded;
+    }
+
+    //id do SoundPool do som do jogo, ou 0 se ainda não carregou (o som é ignorado)
+    public int getSampleId(int soundId){
+        if(allLoaded) //depois disso loaded não muda mais; um som que falhou continua ignorado
+            return loaded[soundId] ? sampleIds[soundId] : NOT_LOADED;
+        synchronized (this){
+            return loaded[soundId] ? sampleIds[soundId] : NOT_LOADED;
+        }
+    }
+
+    public SoundPool getSoundPool(){
+        return soundPool;
+    }
+
+    //instante em que o carregamento começou (SystemClock.elapsedRealtimeNanos)
+    public long getStartTime(){
+        return startTimeNanos;
+    }
+
+    //tempo até todos os sons carregarem, em nanossegundos, ou -1 se ainda não terminou
+    public long getLoadTime(){
+        return allLoaded ? readyTimeNanos - startTimeNanos : -1;
+    }
+
+    //libera o SoundPool
+    public void release(){
+        executor.shutdownNow();
+        soundPool.release();
+    }
+}
@@ -0,0 +1,212 @@
+package br.com.progiv.cannongame;
+
+import java.util.concurrent.locks.LockSupport;
+
+//toca os efeitos sonoros em uma thread própria, para o SoundPool nunca atrasar um quadro
+//o laço do jogo só enfileira o som (fila circular de um produtor e um consumidor, sem locks nem alocação);
+//a thread de áudio escolhe a voz, roubando a de menor prioridade quando todas estão ocupadas
+public class AudioDispatcher implements Runnable {
+    public static final int DEFAULT_VOICES = 4; //sons simultâneos
+    public static final int DEFAULT_QUEUE_CAPACITY = 64;
+    private static final int NO_STREAM = 0; //SoundPool.play retorna 0 quando falha
+
+    //quem toca de fato (SoundPool no app)
+    public interface Player {
+        //retorna o id do stream, ou 0 se não tocou
+        int play(int soundId, int priority);
+        void stop(int streamId);
+    }
+
+    private final Player player;
+
+    //configuração de cada som, indexada pelo id do som
+    private final int[] soundPriority;
+    private final long[] soundDurationNs; //por quanto tempo o som ocupa a voz
+
+    //vozes
+    private final int[] voiceStream;
+    private final int[] voicePriority;
+    private final long[] voiceEndTime; //instante em que a voz fica livre (base de System.nanoTime)
+
+    //fila: id do som e instante em que foi enfileirado
+    private final int[] queuedSound;
+    private final long[] queuedTime;
+    private final int mask;
+    private volatile long head; //escrito só pela thread de áudio
+    private volatile long tail; //escrito só pelo produtor
+    private long cachedHead;
+
+    //eliminação de repetições: um mesmo som só entra uma vez por quadro
+    private final long[] lastQueuedFrame;
+    private long frame = 1;
+
+    private volatile Thread thread;
+    private volatile boolean running;
+
+    //métricas (cada contador tem uma única thread escrevendo)
+    private final TimingHistogram latency = new TimingHistogram(); //da fila ao SoundPool.play
+    private volatile long played;
+    private volatile long stolen; //vozes interrompidas por um som de prioridade maior ou igual
+    private volatile long rejected; //sons descartados por falta de voz
+    private volatile long deduplicated; //repetições no mesmo quadro
+    private volatile long dropped; //fila cheia
+
+    //soundCount: ids de som válidos vão de 0 a soundCount - 1
+    public AudioDispatcher(Player player, int soundCount, int voices, int queueCapacity){
+        this.player = player;
+        soundPriority = new int[soundCount];
+        soundDurationNs = new long[soundCount];
+        lastQueuedFrame = new long[soundCount];
+        voiceStream = new int[Math.max(1, voices)];
+        voicePriority = new int[voiceStream.length];
+        voiceEndTime = new long[voiceStream.length];
+        int size = Integer.highestOneBit(Math.max(2, queueCapacity - 1)) << 1;
+        queuedSound = new int[size];
+        queuedTime = new long[size];
+        mask = size - 1;
+    }
+
+    //prioridade (maior rouba a voz de menor) e duração de um som; chamar antes de start
+    public void setSound(int soundId, int priority, long durationNs){
+        soundPriority[soundId] = priority;
+        soundDurationNs[soundId] = durationNs;
+    }
+
+    public int getVoiceCount(){
+        return voiceStream.length;
+    }
+
+    //inicia a thread de áudio
+    public void start(){
+        running = true;
+        Thread audioThread = new Thread(this, "AudioDispatcher");
+        thread = audioThread;
+        audioThread.start();
+    }
+
+    //para a thread de áudio e espera ela terminar
+    public void shutdown(){
+        running = false;
+        Thread audioThread = thread;
+        thread = null;
+        if(audioThread == null)
+            return;
+        LockSupport.unpark(audioThread);
+        boolean interrupted = false;
+        while(audioThread.isAlive()){
+            try{
+                audioThread.join();
+            }catch (InterruptedException e){
+                interrupted = true;
+            }
+        }
+        if(interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    //produtor: começa um novo quadro (libera os sons repetidos do quadro anterior)
+    public void beginFrame(){
+        ++frame;
+    }
+
+    //produtor: enfileira um som sem bloquear; retorna false se foi descartado (repetido ou fila cheia)
+    public boolean post(int soundId){
+        if(lastQueuedFrame[soundId] == frame){
+            deduplicated = deduplicated + 1;
+            return false;
+        }
+        long t = tail;
+        if(t - cachedHead >= queuedSound.length){
+            cachedHead = head;
+            if(t - cachedHead >= queuedSound.length){
+                dropped = dropped + 1;
+                return false;
+            }
+        }
+        lastQueuedFrame[soundId] = frame;
+        int slot = (int)t & mask;
+        queuedSound[slot] = soundId;
+        queuedTime[slot] = System.nanoTime();
+        tail = t + 1;
+        Thread audioThread = thread;
+        if(audioThread != null)
+            LockSupport.unpark(audioThread);
+        return true;
+    }
+
+    @Override
+    public void run() {
+        while(running){
+            if(drain() == 0)
+                LockSupport.park(this);
+        }
+    }
+
+    //consumidor: toca os sons enfileirados; retorna quantos foram retirados da fila
+    //chamado pela thread de áudio (ou diretamente, quando start não é usado)
+    public int drain(){
+        long h = head;
+        long t = tail;
+        for(long i = h; i < t; i++){
+            int slot = (int)i & mask;
+            play(queuedSound[slot], queuedTime[slot]);
+        }
+        head = t;
+        return (int)(t - h);
+    }
+
+    private void play(int soundId, long queuedAt){
+        long now = System.nanoTime();
+        int priority = soundPriority[soundId];
+        int voice = findVoice(priority, now);
+        if(voice < 0){
+            rejected = rejected + 1;
+            return;
+        }
+        if(voiceStream[voice] != NO_STREAM && voiceEndTime[voice] > now){
+            player.stop(voiceStream[voice]);
+            stolen = stolen + 1;
+        }
+        int stream = player.play(soundId, priority);
+        voiceStream[voice] = stream;
+        voicePriority[voice] = priority;
+        voiceEndTime[voice] = stream != NO_STREAM ? now + soundDurationNs[soundId] : now;
+        latency.record(System.nanoTime() - queuedAt);
+        played = played + 1;
+    }
+
+    //uma voz livre; senão a de menor prioridade (a que termina antes, no empate) que não seja maior que priority; -1 se nenhuma
+    private int findVoice(int priority, long now){
+        int candidate = -1;
+        for(int v = 0; v < voiceStream.length; v++){
+            if(voiceStream[v] == NO_STREAM || voiceEndTime[v] <= now)
+                return v;
+            if(voicePriority[v] > priority)
+                continue;
+            if(candidate < 0 || voicePriority[v] < voicePriority[candidate]
+                    || (voicePriority[v] == voicePriority[candidate] && voiceEndTime[v] < voiceEndTime[candidate]))
+                candidate = v;
+        }
+        return candidate;
+    }
+
+    //latência da fila até o SoundPool.play (leitura aproximada fora da thread de áudio)
+    public TimingHistogram getLatency(){
+        return latency;
+    }
+    public long getPlayed(){
+        return played;
+    }
+    public long getStolen(){
+        return stolen;
+    }
+    public long getRejected(){
+        return rejected;
+    }
+    public long getDeduplicated(){
+        return deduplicated;
+    }
+    public long getDropped(){
+        return dropped;
+    }
+}
@@ -0,0 +1,68 @@
+package br.com.progiv.cannongame;
+
+//jogador automático: quando o canhão pode disparar, usa o AimSolver para achar um ângulo que acerta um alvo
+//e dispara como um toque na tela (GameWorld.applyInput); se nenhum ângulo acerta, espera o próximo passo
+//serve para o modo demonstração do CannonView e para testes longos sem tela
+public class Autoplayer {
+    //distância do ponto tocado: longe do canhão, o arredondamento para pixels quase não muda o ângulo
+    static final int AIM_DISTANCE = 100000;
+
+    private final AimSolver solver;
+    private long solves;
+    private long shots;
+    private long timeouts; //buscas cortadas pelo prazo
+    private long totalSolveNanos;
+    private long maxSolveNanos;
+
+    public Autoplayer(AimSolver solver){
+        this.solver = solver;
+    }
+
+    //chamado antes de cada GameWorld.step(interval), na thread que simula; retorna true se disparou
+    public boolean update(GameWorld world, double interval){
+        if(world.isGameOver() || world.getTargets().isEmpty())
+            return false;
+        //fora do modo rajada só há uma bala na tela por vez
+        if(!world.isRapidFire() && !world.getProjectiles().isEmpty())
+            return false;
+        long start = System.nanoTime();
+        boolean hit = solver.solve(world, interval);
+        long elapsed = System.nanoTime() - start;
+        ++solves;
+        totalSolveNanos += elapsed;
+        maxSolveNanos = Math.max(maxSolveNanos, elapsed);
+        if(solver.isTimedOut())
+            ++timeouts;
+        if(!hit)
+            return false;
+        double angle = solver.getAngle();
+        int x = (int)Math.round(AIM_DISTANCE * Math.sin(angle));
+        int y = world.getScreenHeight() / 2 - (int)Math.round(AIM_DISTANCE * Math.cos(angle));
+        int shotsFired = world.getShotsFired();
+        world.applyInput(InputQueue.PRESS, x, y);
+        world.applyInput(InputQueue.RELEASE, x, y);
+        if(world.getShotsFired() == shotsFired)
+            return false;
+        ++shots;
+        return true;
+    }
+
+    public AimSolver getSolver(){
+        return solver;
+    }
+    public long getSolves(){
+        return solves;
+    }
+    public long getShots(){
+        return shots;
+    }
+    public long getTimeouts(){
+        return timeouts;
+    }
+    public long getMaxSolveNanos(){
+        return maxSolveNanos;
+    }
+    public double getMeanSolveNanos(){
+        return solves == 0 ? 0 : (double)totalSolveNanos / solves;
+    }
+}
@@ -0,0 +1,43 @@
+package br.com.progiv.cannongame;
+
+//limites retangulares de um elemento do jogo (equivalente Java puro de android.graphics.Rect)
+public class Bounds {
+    public int left;
+    public int top;
+    public int right;
+    public int bottom;
+
+    //construtor
+    public Bounds(int left, int top, int right, int bottom){
+        set(left, top, right, bottom);
+    }
+
+    //redefine os limites
+    public void set(int left, int top, int right, int bottom){
+        this.left = left;
+        this.top = top;
+        this.right = right;
+        this.bottom = bottom;
+    }
+
+    //desloca os limites por dx e dy
+    public void offset(int dx, int dy){
+        left += dx;
+        right += dx;
+        top += dy;
+        bottom += dy;
+    }
+
+    public int width(){
+        return right - left;
+    }
+
+    public int height(){
+        return bottom - top;
+    }
+
+    //testa se os dois retângulos se sobrepõem (mesma regra de Rect.intersects)
+    public static boolean intersects(Bounds a, Bounds b){
+        return a.left < b.right && b.left < a.right && a.top < b.bottom && b.top < a.bottom;
+    }
+}
@@ -1,75 +1,82 @@
 package br.com.progiv.cannongame;
 
-import android.graphics.Canvas;
-import android.graphics.Color;
-import android.graphics.Paint;
-import android.graphics.Point;
-
 //Canhao
 public class Cannon {
+    public static final int COLOR = 0xFF000000; //cor do canhão e da bala (preto)
+
     private int baseRadius; //raio da base do canhão
     private int barrelLegth; //comprimento do cano
-    private Point barrelEnd = new Point(); //ponto estremo do cano do canhão
+    private int barrelWidth; //largura do cano
+    private int barrelEndX; //ponto estremo do cano do canhão (x)
+    private int barrelEndY; //ponto estremo do cano do canhão (y)
     private double barrelAngle; //ângulo do cano do canhão
-    private CannonBall cannonBall; //a bala do canhão
-    private Paint paint = new Paint(); //objeto desenhar o canho
-    private CannonView view;//view
+    private ProjectilePool projectiles; //as balas do canhão
+    private GameWorld world;//mundo do jogo
 
     //construtor
-    public Cannon(CannonView view, int baseRadius, int barrelLegth, int barrelWidth){
-        this.view = view;
+    public Cannon(GameWorld world, ProjectilePool projectiles, int baseRadius, int barrelLegth, int barrelWidth){
+        this.world = world;
+        this.projectiles = projectiles;
         this.baseRadius = baseRadius;
         this.barrelLegth = barrelLegth;
-        paint.setStrokeWidth(barrelWidth); //configura a largura do cano
-        paint.setColor(Color.BLACK);
+        this.barrelWidth = barrelWidth;
         align(Math.PI / 2);//cano do canhõa voltado diretamete para a direita
     }
 
     //métod align - alinhar o cano do canhão com o ângulo
     public void align(double barrelAngle){
         this.barrelAngle = barrelAngle;
-        barrelEnd.x = (int)(barrelLegth * Math.sin(barrelAngle));
-        barrelEnd.y = (int)(-barrelLegth * Math.cos(barrelAngle)) + view.getScreenHeight() / 2;
+        barrelEndX = (int)(barrelLegth * Math.sin(barrelAngle));
+        barrelEndY = (int)(-barrelLegth * Math.cos(barrelAngle)) + world.getScreenHeight() / 2;
     }
 
-    //criar e disparar a bala na direção apontada pelo canhão
-    public void fireCannonBall(){
-        //calcular o componente X de velocidade da bala
-        int velocityX = (int)(CannonView.CANNONBALL_SPEED_PERCENT * view.getScreenWidth() * Math.sin(barrelAngle));
-        //Calcular o componente Y de velocidade da bala
-        int velocityY = (int)(CannonView.CANNONBALL_SPEED_PERCENT * view.getScreenWidth() * -Math.cos(barrelAngle));
+    //disparar uma bala na direção apontada pelo canhão; retorna false se não houver bala livre
+    public boolean fireCannonBall(){
+        //obtem uma bala livre do conjunto
+        CannonBall cannonBall = projectiles.acquire();
+        if(cannonBall == null)
+            return false;
+        double speed = world.getConfig().getCannonballSpeedPercent() * world.getScreenWidth();
         //calcular o raio da bala
-        int radius = (int)(view.getScreenHeight() * CannonView.CANNONBALL_RADIUS_PERCENT);
-        //constroi a bala e a posiciona no canhão
-        cannonBall = new CannonBall(
-                view,
-                Color.BLACK,
-                CannonView.CANNON_SOUND_ID,
-                -radius,
-                view.getScreenHeight() / 2 -radius,
-                radius,
-                velocityX,
-                velocityY
-        );
+        int radius = (int)(world.getScreenHeight() * GameWorld.CANNONBALL_RADIUS_PERCENT);
+        if(world.isFixedPointPhysics()){
+            //velocidade em 16.16, sem truncar para pixels inteiros por segundo
+            cannonBall.resetFixed(FixedPoint.position(-radius), FixedPoint.position(world.getScreenHeight() / 2 - radius),
+                    radius, FixedPoint.velocity(speed * Math.sin(barrelAngle)),
+                    FixedPoint.velocity(speed * -Math.cos(barrelAngle)));
+        }else{
+            //calcular o componente X de velocidade da bala
+            int velocityX = (int)(speed * Math.sin(barrelAngle));
+            //Calcular o componente Y de velocidade da bala
+            int velocityY = (int)(speed * -Math.cos(barrelAngle));
+            //posiciona a bala no canhão
+            cannonBall.reset(-radius, world.getScreenHeight() / 2 - radius, radius, velocityX, velocityY);
+        }
         //reproduz o som de disparo
         cannonBall.playSound();
+        world.emitMuzzleFlash(barrelEndX, barrelEndY, barrelAngle);
+        return true;
     }
 
-    //desenhar o canhão no objeto Canvas:
-    public void draw(Canvas canvas){
-        //desenhar o cano do canhão
-        canvas.drawLine(0, view.getScreenHeight() /2, barrelEnd.x, barrelEnd.y, paint);
-        //desenhar a base do canhão
-        canvas.drawCircle(0, (int)view.getScreenHeight() / 2, (int)baseRadius, paint);
+    //retorna as balas disparadas pelo canhão
+    public ProjectilePool getProjectiles(){
+        return projectiles;
     }
 
-    //retorna a bala disparada pelo canhão
-    public CannonBall getCannonBall(){
-        return cannonBall;
+    public int getBaseRadius(){
+        return baseRadius;
+    }
+    public int getBarrelWidth(){
+        return barrelWidth;
+    }
+    public int getBarrelEndX(){
+        return barrelEndX;
+    }
+    public int getBarrelEndY(){
+        return barrelEndY;
     }
-    //remover a bala do jogo
-    public void removeCannonBall(){
-        cannonBall = null;
+    public double getBarrelAngle(){
+        return barrelAngle;
     }
 
 }
@@ -1,18 +1,48 @@
 package br.com.progiv.cannongame;
 
-import android.graphics.Canvas;
-import android.graphics.Rect;
-
 public class CannonBall extends GameElement {
     private float velocityX;
+    private long fixedLeft; //posição horizontal em 32.32 (física em ponto fixo)
+    private int fixedVelocityX;
     private boolean onScreen;
 
     public CannonBall(
-            CannonView view, int color, int soundId, int x, int y,
+            GameWorld world, int color, int soundId, int x, int y,
             int radius, int velocityX, float velocityY
     ){
-        super(view, color, soundId, x, y, 2 * radius, 2*radius, velocityY);
+        super(world, color, soundId, x, y, 2 * radius, 2*radius, velocityY);
         this.velocityX = velocityX;
+        fixedLeft = FixedPoint.position(x);
+        fixedVelocityX = FixedPoint.velocity(velocityX);
+        onScreen = true;
+    }
+
+    //reposiciona a bala para um novo disparo (reaproveitamento pelo ProjectilePool)
+    public void reset(int x, int y, int radius, int velocityX, float velocityY){
+        shape.set(x, y, x + 2 * radius, y + 2 * radius);
+        previousLeft = x;
+        previousTop = y;
+        this.velocityX = velocityX;
+        this.velocityY = velocityY;
+        fixedLeft = FixedPoint.position(x);
+        fixedTop = FixedPoint.position(y);
+        fixedVelocityX = FixedPoint.velocity(velocityX);
+        fixedVelocityY = FixedPoint.velocity(velocityY);
+        onScreen = true;
+    }
+    //o mesmo em ponto fixo (posição em 32.32, velocidade em 16.16), sem truncar a velocidade para pixels inteiros
+    public void resetFixed(long fixedX, long fixedY, int radius, int fixedVelocityX, int fixedVelocityY){
+        int x = FixedPoint.toPixels(fixedX);
+        int y = FixedPoint.toPixels(fixedY);
+        shape.set(x, y, x + 2 * radius, y + 2 * radius);
+        previousLeft = x;
+        previousTop = y;
+        fixedLeft = fixedX;
+        fixedTop = fixedY;
+        this.fixedVelocityX = fixedVelocityX;
+        this.fixedVelocityY = fixedVelocityY;
+        velocityX = FixedPoint.velocityToFloat(fixedVelocityX);
+        velocityY = FixedPoint.velocityToFloat(fixedVelocityY);
         onScreen = true;
     }
 
@@ -20,17 +50,21 @@ public class CannonBall extends GameElement {
     public int getRadius(){
         return (shape.right - shape.left) / 2;
     }
-    //testar se a bala colide com o GameElement
-    public boolean collidesWith(GameElement element){
-        return (Rect.intersects(shape, element.shape) && velocityX > 0);
+    //retorna o índice da entidade com que a bala colide, ou -1 (só colide indo para a direita)
+    public int findCollision(EntityStore entities){
+        return velocityX > 0 ? entities.findIntersecting(shape) : -1;
     }
     //retornar se a bala está na tela
     public boolean isOnScreen(){
         return onScreen;
     }
+    public float getVelocityX(){
+        return velocityX;
+    }
     //inverter a velocidade horizontal da bala
     public void reverseVelocityX(){
         velocityX *= -1;
+        fixedVelocityX = -fixedVelocityX;
     }
 
     //método update para atualizar a velocida vertical da bala e verificar se há colisões:
@@ -38,18 +72,18 @@ public class CannonBall extends GameElement {
     public void update(double interval) {
         super.update(interval);//atualiza a posição vertical da bala;
         //atualizar a posição horizontal
-        shape.offset((int)(velocityX * interval), 0);
+        if(world.isFixedPointPhysics()){
+            fixedLeft += FixedPoint.displacement(fixedVelocityX, FixedPoint.interval(interval));
+            shape.offset(FixedPoint.toPixels(fixedLeft) - shape.left, 0);
+        }else{
+            shape.offset((int)(velocityX * interval), 0);
+        }
         //se a bala sair da tela:
         if(shape.top < 0 ||
            shape.left < 0 ||
-                shape.bottom > view.getScreenHeight() ||
-                shape.right > view.getScreenWidth()){
+                shape.bottom > world.getScreenHeight() ||
+                shape.right > world.getScreenWidth()){
             onScreen = false; //configura para remover a bala de canhão da tela
         }
     }
-    //desenha a bala de canhão na tela
-    @Override
-    public void draw(Canvas canvas) {
-        canvas.drawCircle(shape.left + getRadius(), shape.top + getRadius(), getRadius(), paint);
-    }
 }
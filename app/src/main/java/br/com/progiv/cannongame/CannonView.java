@@ -2,16 +2,21 @@ package br.com.progiv.cannongame;
 
 import android.app.Activity;
 import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
-import android.graphics.Point;
-import android.media.AudioAttributes;
+import android.graphics.Rect;
 import android.media.SoundPool;
 import android.os.Build;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
 import android.util.AttributeSet;
 import android.util.Log;
-import android.util.SparseIntArray;
+import android.view.Choreographer;
+import android.view.Display;
 import android.view.MotionEvent;
 import android.view.SurfaceHolder;
 import android.view.SurfaceView;
@@ -20,74 +25,113 @@ import android.view.View;
 import androidx.annotation.NonNull;
 import androidx.fragment.app.DialogFragment;
 
-import java.util.ArrayList;
-import java.util.Random;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.LockSupport;
 
 public class CannonView extends SurfaceView
     implements SurfaceHolder.Callback{
 
     private static final String TAG = "CannonView"; //para registrar erros
 
-    //constantes para interação do jogo
-    public static final int MISS_PENALTY = 2; //segundos subtraídos em caso de erro
-    public static final int HIT_REWARD = 3; //segundos adicionados em caso de acerto
-
-    //constantes para o canhõa
-    public static final double CANNON_BASE_RADIUS_PERCENT = 3.0 / 40;
-    public static final double CANNON_BARREL_WIDTH_PERCENT = 3.0 / 40;
-    public static final double CANNON_BARREL_LENGTH_PERCENT = 1.0 / 10;
-
-    //constantes para a bala:
-    public static final double CANNONBALL_RADIUS_PERCENT = 3.0 / 80;
-    public static final double CANNONBALL_SPEED_PERCENT = 3.0 / 2;
-
-    //constantes para os alvos
-    public static final double TARGET_WIDTH_PERCENT = 1.0 / 40;
-    public static final double TARGET_LENGTH_PERCENT = 3.0 / 20;
-    public static final double TARGET_FIRST_X_PERCENT = 3.0 / 5;
-    public static final double TARGET_SPACING_PERCENT = 1.0 / 60;
-    public static final double TARGET_PIECES = 9;
-    public static final double TARGET_MIN_SPEED_PERCENT = 3.0 / 4;
-    public static final double TARGET_MAX_SPEED_PERCENT = 6.0 / 4;
-
-    //constantes para a barreira
-    public static final double BLOCKER_WIDTH_PERCENT = 1.0 / 40;
-    public static final double BLOCKER_LENGTH_PERCENT = 1.0 / 4;
-    public static final double BLOCKER_X_PERCENT = 1.0 / 2;
-    public static final double BLOCKER_SPEED_PERCENT = 1.0;
-
     //o tamanho do texto é 1/18 da largura da tela
     public static final double TEXT_SIZE_PERCENT = 1.0 / 18;
+    //lado de cada partícula, em relação à altura da tela
+    public static final double PARTICLE_SIZE_PERCENT = 1.0 / 160;
+
+    //constantes para o loop de simulação com passo fixo
+    public static final long SIMULATION_STEP_NS = 1000000000L / 60; //duração de um passo (60 passos por segundo)
+    public static final int MAX_CATCH_UP_STEPS = 5; //máximo de passos executados para recuperar o atraso de um quadro
+
+    //posição do HUD, em pixels
+    private static final int HUD_X = 50;
+    private static final int HUD_Y = 100;
+
+    //aquecimento da escolha automática do backend de desenho
+    private static final int WARMUP_FRAMES = 30; //quadros medidos por backend
+    private static final int WARMUP_DISCARDED_FRAMES = 5; //quadros iniciais ignorados por backend
+    private static final long SOUND_WAIT_MS = 2000; //espera máxima pelos sons antes de começar a simulação
+    private static final long SOUND_WAIT_SLICE_MS = 50; //a espera é dividida para notar setRunning(false) logo
+    private static final long AUTOPLAY_BUDGET_NS = 2000000; //prazo da busca do modo demonstração (2 ms por passo)
 
     private CannonThread cannonThread; //controla o loop do jogo - threads
     private Activity activity; // para exibir a caixa de diálogo GameOver na Thread da tela
     private boolean dialogDisplayed = false;
+    private boolean fixedTimestep = true; //simulação com passo fixo e interpolação no desenho
+    private boolean vsyncPacing = true; //quadros guiados pelo vsync (Choreographer)
+    private int targetFrameRate = FrameScheduler.NATIVE_FRAME_RATE; //quadros por segundo no modo vsync
+    private boolean layerCaching = true; //fundo e canhão pré-desenhados em um Bitmap
+    private boolean dirtyRedraw; //redesenha só a região alterada pelos elementos móveis
+    private boolean pipelined; //simulação e desenho em threads separadas, trocando instantâneos do mundo
+    private int renderBackendPreference = RenderBackend.AUTO; //backend pedido (AUTO, SOFTWARE ou HARDWARE)
+    private volatile int selectedRenderBackend = RenderBackend.AUTO; //resultado do aquecimento, reaproveitado nos próximos jogos
+    private volatile boolean recreatingSurface; //superfície recriada só para trocar de backend: continua o mesmo jogo
+
+    //estado e regras do jogo
+    private GameWorld world;
+    private LevelPack levelPack; //níveis carregados de arquivo (null: tabuleiro padrão)
+    private int level;
 
-    //objetos do jogo
-    private Cannon cannon;
-    private Blocker blocker;
-    private ArrayList<Target> targets;
+    //efeitos de partículas; a capacidade pedida vale a partir do próximo jogo (0 desativa)
+    private volatile int particleCapacity = GameWorld.PARTICLE_CAPACITY;
+
+    //gravação das partidas (semente + toques + passos) para repetição sem tela
+    private final SessionRecorder recorder = new SessionRecorder();
+    private volatile boolean recording;
+
+    //modo demonstração: o Autoplayer mira e dispara sozinho
+    private volatile Autoplayer autoplayer;
+    //toques publicados pela thread da interface e consumidos pela thread do jogo
+    private final InputQueue inputQueue = new InputQueue(InputQueue.DEFAULT_CAPACITY);
+    //o que é desenhado: copiado do mundo a cada quadro, ou recebido da thread da simulação no modo pipeline
+    private final WorldSnapshot frameSnapshot = new WorldSnapshot(GameWorld.PROJECTILE_POOL_CAPACITY);
+    private final SnapshotBuffer snapshots = new SnapshotBuffer(GameWorld.PROJECTILE_POOL_CAPACITY);
 
     //variáveis de dimensão
     private int screenWidth;
     private int screenHeight;
 
-    //variáveis para loop do jogo e controle de estatísticas:
-    private boolean gameOver;
-    private double timeLeft; //tempo restante, em segundos
-    private int shotsFired; //tiros disparados pelo usuários
-    private double totalElapsedTime; //segundos decorridos
-
-    //constantes e variáveis para gerenciar sons
-    public static final int TARGET_SOUND_ID = 0;
-    public static final int CANNON_SOUND_ID = 1;
-    public static final int BLOCKER_SOUND_ID = 2;
+    //variáveis para gerenciar sons
+    private AssetPreloader assetPreloader; //SoundPool e sons, carregados desde o MainActivity.onCreate
     private SoundPool soundPool; //reproduz os efeitos sonoros
-    private SparseIntArray soundMap; //mapeia os identificadores para soundPool
+    private AudioDispatcher audioDispatcher; //toca os sons fora da thread do jogo
+    private volatile long timeToFirstFrame = -1; //do MainActivity.onCreate ao primeiro quadro na tela, em ns
 
     //variáveis paint utilizadas ao desenhar cada item na tela
     private Paint textPaint; //objeto Paint usado para desenhar texto
+    private HudRenderer hudRenderer; //desenha o tempo restante, os tiros e o tempo decorrido
     private Paint backgroundPaint; //objeto Paint usado para limpar a área de desenho
+    private Paint cannonPaint; //objeto Paint usado para desenhar o canhão
+    private final CanvasDrawTarget drawTarget = new CanvasDrawTarget(); //bala, barreira, alvos e partículas
+    //desenho em lote (uma chamada por cor e tamanho) ou um elemento por chamada, para comparação
+    private final WorldRenderer batchedRenderer = new WorldRenderer(new DrawBatcher());
+    private final WorldRenderer unbatchedRenderer = new WorldRenderer(new DrawBatcher(DrawBatcher.DEFAULT_GROUPS, 1));
+    private volatile WorldRenderer worldRenderer = batchedRenderer;
+    private LayerCache layerCache; //camada estática com o fundo e o canhão
+
+    //medição dos tempos de cada fase do quadro
+    private final FrameProfiler profiler = new FrameProfiler(SIMULATION_STEP_NS);
+    private ProfilerOverlay profilerOverlay; //tabela de tempos desenhada sobre o jogo
+    private volatile boolean profilerOverlayVisible;
+
+    //qualidade adaptativa: baixa a qualidade quando os quadros estouram o orçamento e volta quando sobra tempo
+    private final QualityGovernor qualityGovernor = new QualityGovernor(SIMULATION_STEP_NS, QualityGovernor.DEFAULT_WINDOW_FRAMES);
+    private int appliedQualityLevel = -1; //nível já aplicado pela thread do jogo (-1: nenhum)
+    private volatile int maxCatchUpSteps = MAX_CATCH_UP_STEPS; //limite de passos por quadro no nível atual
+    private volatile float surfaceScale = 1f; //resolução da superfície em relação ao tamanho da view
+
+    //regiões usadas no redesenho parcial
+    private final DirtyRegion dirtyRegion = new DirtyRegion(); //o que mudou desde o quadro anterior
+    private final Rect dirtyRect = new Rect(); //área a redesenhar
+    private float hudWidth; //largura do texto do HUD no último quadro em que ele mudou
+    private volatile boolean fullRedraw = true; //o próximo quadro precisa redesenhar a tela toda
 
     //Construtor:
     public CannonView(Context context, AttributeSet attrs){
@@ -97,26 +141,60 @@ public class CannonView extends SurfaceView
         //registrar o receptor de SurfaceHolder
         getHolder().addCallback(this);
 
-        //configurar atributos de áudio para o jogo
-        AudioAttributes.Builder attrBuilder = new AudioAttributes.Builder();
-        attrBuilder.setUsage(AudioAttributes.USAGE_GAME);
+        //os sons já estão sendo carregados pelo MainActivity; sem ele (ex.: editor de layout), carrega aqui
+        assetPreloader = context instanceof MainActivity ?
+                ((MainActivity)context).getAssetPreloader() : new AssetPreloader(context);
+        soundPool = assetPreloader.getSoundPool();
+
+        //sons tocados pela thread de áudio; o acerto no alvo tem prioridade sobre a barreira e o disparo
+        //um som que ainda não carregou é ignorado (sampleId 0)
+        audioDispatcher = new AudioDispatcher(new AudioDispatcher.Player() {
+            @Override
+            public int play(int soundId, int priority) {
+                int sampleId = assetPreloader.getSampleId(soundId);
+                return sampleId != 0 ? soundPool.play(sampleId, 1, 1, priority, 0, 1f) : 0;
+            }
+
+            @Override
+            public void stop(int streamId) {
+                soundPool.stop(streamId);
+            }
+        }, AssetPreloader.SOUND_COUNT, AudioDispatcher.DEFAULT_VOICES, AudioDispatcher.DEFAULT_QUEUE_CAPACITY);
+        audioDispatcher.setSound(GameWorld.TARGET_SOUND_ID, 3, 700000000L);
+        audioDispatcher.setSound(GameWorld.BLOCKER_SOUND_ID, 2, 290000000L);
+        audioDispatcher.setSound(GameWorld.CANNON_SOUND_ID, 1, 470000000L);
+        audioDispatcher.start();
 
-        //inicilizar o SoundPool para reproduzir os três efeitos do app
-        SoundPool.Builder builder = new SoundPool.Builder();
-        builder.setMaxStreams(1);
-        builder.setAudioAttributes(attrBuilder.build());
-        soundPool = builder.build();
+        //cria o mundo do jogo com as cores dos alvos
+        world = new GameWorld(
+                getResources().getColor(R.color.dark, getContext().getTheme()),
+                getResources().getColor(R.color.light, getContext().getTheme())
+        );
+        world.setListener(new GameWorld.Listener() {
+            @Override
+            public void playSound(int soundId) {
+                CannonView.this.playSound(soundId);
+            }
 
-        //cria objeto Map de sons e carrega os sons previamente
-        soundMap = new SparseIntArray(3); //criando um array de som
-        soundMap.put(TARGET_SOUND_ID, soundPool.load(context, R.raw.target_hit, 1));
-        soundMap.put(CANNON_SOUND_ID, soundPool.load(context, R.raw.cannon_fire, 1));
-        soundMap.put(BLOCKER_SOUND_ID, soundPool.load(context, R.raw.blocker_hit, 1));
+            @Override
+            public void onGameOver(boolean won) {
+                cannonThread.setRunning(false); //termina a thread
+                showGameOverDialog(won ? R.string.win : R.string.lose); //mostrar a caixa de diálogo
+            }
+        });
 
         //texto
         textPaint = new Paint();
+        hudRenderer = new HudRenderer(getResources());
         backgroundPaint = new Paint();
         backgroundPaint.setColor(Color.WHITE);
+        cannonPaint = new Paint();
+        cannonPaint.setColor(Cannon.COLOR);
+        layerCache = new LayerCache(backgroundPaint, cannonPaint);
+        profilerOverlay = new ProfilerOverlay(profiler);
+        profilerOverlay.setQualityGovernor(qualityGovernor);
+        world.setProfiler(profiler);
+        world.setInputQueue(inputQueue);
     }
 
     //obtém a largura de tela do jogo
@@ -127,121 +205,249 @@ public class CannonView extends SurfaceView
     public int getScreenHeight(){
         return  screenHeight;
     }
-    //reproduz um som com o soundId
+    //ativa ou desativa os quadros guiados pelo vsync (vale a partir da próxima thread do jogo)
+    public void setVsyncPacing(boolean vsyncPacing){
+        this.vsyncPacing = vsyncPacing;
+    }
+    //taxa de quadros no modo vsync: 60, 30 ou FrameScheduler.NATIVE_FRAME_RATE (taxa da tela)
+    public void setTargetFrameRate(int targetFrameRate){
+        this.targetFrameRate = targetFrameRate;
+    }
+    //vsyncs perdidos pela thread do jogo atual
+    public long getMissedVsyncs(){
+        return cannonThread != null ? cannonThread.getMissedVsyncs() : 0;
+    }
+    //ativa ou desativa a camada estática pré-desenhada (fundo e canhão)
+    public void setLayerCaching(boolean layerCaching){
+        this.layerCaching = layerCaching;
+        fullRedraw = true;
+    }
+    //ativa ou desativa o redesenho só da região alterada
+    public void setDirtyRedraw(boolean dirtyRedraw){
+        this.dirtyRedraw = dirtyRedraw;
+        fullRedraw = true;
+    }
+    //ativa ou desativa o desenho em lote das balas, barreiras e alvos (desativado: uma chamada por elemento)
+    public void setBatchedDrawing(boolean batchedDrawing){
+        worldRenderer = batchedDrawing ? batchedRenderer : unbatchedRenderer;
+    }
+    //força um backend de desenho (RenderBackend.SOFTWARE ou HARDWARE) ou volta à escolha automática (AUTO)
+    //vale a partir da próxima superfície: uma superfície ligada à GPU não volta a aceitar o canvas por software
+    public void setRenderBackend(int renderBackend){
+        renderBackendPreference = renderBackend;
+    }
+    //backend em uso, ou AUTO se ainda não foi escolhido
+    public int getRenderBackend(){
+        CannonThread thread = cannonThread;
+        RenderBackend backend = thread != null ? thread.backend : null;
+        return backend != null ? backend.getType() : RenderBackend.AUTO;
+    }
+    //mostra ou esconde a tabela de tempos por fase
+    public void setProfilerOverlayVisible(boolean visible){
+        profilerOverlayVisible = visible;
+        fullRedraw = true;
+    }
+    public boolean isProfilerOverlayVisible(){
+        return profilerOverlayVisible;
+    }
+    public FrameProfiler getProfiler(){
+        return profiler;
+    }
+    //máximo de partículas vivas dos efeitos (0 desativa os efeitos); vale a partir do próximo jogo
+    public void setParticleCapacity(int particleCapacity){
+        this.particleCapacity = particleCapacity;
+    }
+    //ativa ou desativa a qualidade adaptativa; desativada, volta à qualidade máxima
+    public void setAdaptiveQuality(boolean adaptiveQuality){
+        qualityGovernor.setEnabled(adaptiveQuality);
+    }
+    //nível de qualidade atual (QualityGovernor.FULL a HALF_RESOLUTION)
+    public int getQualityLevel(){
+        return qualityGovernor.getLevel();
+    }
+    public QualityGovernor getQualityGovernor(){
+        return qualityGovernor;
+    }
+    //escreve os tempos por fase no logcat
+    public void dumpFrameStats(){
+        StringBuilder report = new StringBuilder();
+        try{
+            profiler.writeReport(report);
+        }catch (IOException e){
+            //StringBuilder não lança IOException
+        }
+        report.append(String.format(Locale.US,
+                "audio: played %d, stolen %d, rejected %d, deduplicated %d, dropped %d, latency p50 %.3f p99 %.3f max %.3f ms%n",
+                audioDispatcher.getPlayed(), audioDispatcher.getStolen(), audioDispatcher.getRejected(),
+                audioDispatcher.getDeduplicated(), audioDispatcher.getDropped(),
+                audioDispatcher.getLatency().getPercentile(50) / 1e6, audioDispatcher.getLatency().getPercentile(99) / 1e6,
+                audioDispatcher.getLatency().getMax() / 1e6));
+        Autoplayer player = autoplayer;
+        if(player != null)
+            report.append(String.format(Locale.US, "autoplay: %d solves, %d shots, %d timeouts, mean %.3f max %.3f ms%n",
+                    player.getSolves(), player.getShots(), player.getTimeouts(),
+                    player.getMeanSolveNanos() / 1e6, player.getMaxSolveNanos() / 1e6));
+        ParticleSystem particles = world.getParticles();
+        if(particles != null)
+            report.append(String.format(Locale.US,
+                    "particles: %d live of %d, %d emitted, %d overwritten, %d colors, %d color overflows%n",
+                    particles.getLiveCount(), particles.getCapacity(), particles.getEmitted(), particles.getOverwritten(),
+                    particles.getColorCount(), particles.getColorOverflows()));
+        report.append(String.format(Locale.US, "quality: %s, %d downgrades, %d upgrades, last p90 %.3f ms%n",
+                QualityGovernor.getLevelName(qualityGovernor.getLevel()), qualityGovernor.getDowngrades(),
+                qualityGovernor.getUpgrades(), qualityGovernor.getLastPercentile() / 1e6));
+        for(String line : report.toString().split("\n"))
+            Log.i(TAG, line);
+    }
+    //escreve os tempos por fase em um arquivo
+    public void dumpFrameStats(File file) throws IOException {
+        Writer writer = new FileWriter(file);
+        try{
+            profiler.writeReport(writer);
+        }finally {
+            writer.close();
+        }
+    }
+    //ativa ou desativa o modo demonstração; a busca do ângulo usa as threads do pool comum, com prazo por passo
+    public void setAutoplay(boolean autoplay){
+        if(!autoplay){
+            autoplayer = null;
+        }else if(autoplayer == null){
+            AimSolver solver = new AimSolver(ForkJoinPool.commonPool(), AimSolver.DEFAULT_CANDIDATES);
+            solver.setBudgetNanos(AUTOPLAY_BUDGET_NS);
+            autoplayer = new Autoplayer(solver);
+        }
+    }
+    public boolean isAutoplay(){
+        return autoplayer != null;
+    }
+    //ativa ou desativa a gravação das partidas; vale a partir do próximo jogo
+    public void setRecording(boolean recording){
+        this.recording = recording;
+    }
+    public boolean isRecording(){
+        return recording;
+    }
+    //gravação da última partida terminada (null se não houver), para SessionReplayer
+    public byte[] getLastRecording(){
+        if(recorder.isRecording() || recorder.length() == 0)
+            return null;
+        return recorder.toByteArray();
+    }
+    //salva a gravação da última partida terminada; false se não houver
+    public boolean saveLastRecording(File file) throws IOException {
+        byte[] data = getLastRecording();
+        if(data == null)
+            return false;
+        OutputStream output = new FileOutputStream(file);
+        try{
+            output.write(data);
+        }finally {
+            output.close();
+        }
+        return true;
+    }
+    //ativa ou desativa o pipeline: uma thread simula o passo N+1 enquanto outra desenha o passo N
+    //vale a partir do próximo jogo (próxima thread)
+    public void setPipelined(boolean pipelined){
+        this.pipelined = pipelined;
+    }
+    public boolean isPipelined(){
+        return pipelined;
+    }
+    //ativa ou desativa a simulação com passo fixo
+    public void setFixedTimestep(boolean fixedTimestep){
+        this.fixedTimestep = fixedTimestep;
+    }
+    public boolean isFixedTimestep(){
+        return fixedTimestep;
+    }
+    //ativa ou desativa o modo rajada (várias balas na tela)
+    public void setRapidFire(boolean rapidFire){
+        world.setRapidFire(rapidFire);
+    }
+    //ativa ou desativa a física em ponto fixo; vale a partir do próximo jogo
+    public void setFixedPointPhysics(boolean fixedPointPhysics){
+        world.setFixedPointPhysics(fixedPointPhysics);
+    }
+    //obtém o mundo do jogo
+    public GameWorld getWorld(){
+        return world;
+    }
+    //tempo do MainActivity.onCreate até o primeiro quadro na tela, em nanossegundos (-1 antes do primeiro quadro)
+    public long getTimeToFirstFrame(){
+        return timeToFirstFrame;
+    }
+    //chamado depois de cada quadro enviado à tela; só o primeiro é registrado
+    private void onFramePosted(){
+        if(timeToFirstFrame >= 0)
+            return;
+        timeToFirstFrame = SystemClock.elapsedRealtimeNanos() - assetPreloader.getStartTime();
+        String message = "Time to first frame: " + timeToFirstFrame / 1000000 + " ms from onCreate";
+        if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.N)
+            message += ", " + (SystemClock.elapsedRealtime() - Process.getStartElapsedRealtime()) + " ms from process start";
+        Log.i(TAG, message + (assetPreloader.isReady() ? "" : " (sounds still loading)"));
+    }
+    //reproduz um som com o soundId; só enfileira: quem chama o SoundPool é a thread de áudio
     public void playSound(int soundId){
-        soundPool.play(soundMap.get(soundId), 1, 1, 1, 0, 1f);
+        audioDispatcher.post(soundId);
+    }
+    //joga o nível level do pacote (null volta ao tabuleiro padrão); vale a partir do próximo jogo
+    public void setLevel(LevelPack levelPack, int level){
+        this.levelPack = levelPack;
+        this.level = level;
+    }
+    //mapeia um pacote de níveis dos assets (o arquivo precisa estar sem compressão no APK)
+    public LevelPack openLevelPack(String assetName) throws IOException {
+        AssetFileDescriptor descriptor = getContext().getAssets().openFd(assetName);
+        try{
+            FileInputStream input = descriptor.createInputStream();
+            return LevelPack.map(input.getChannel(), descriptor.getStartOffset(), descriptor.getLength());
+        }finally {
+            descriptor.close();
+        }
+    }
+    //um passo da simulação; no modo demonstração, o Autoplayer joga antes do passo
+    private void stepWorld(double interval){
+        Autoplayer player = autoplayer;
+        if(player != null)
+            player.update(world, interval);
+        world.step(interval);
     }
     //novo jogo:
     public void newGame(){
-        //contruir canhão
-        cannon = new Cannon(this,
-                    (int)(CANNON_BASE_RADIUS_PERCENT * screenHeight),
-                    (int)(CANNON_BARREL_LENGTH_PERCENT * screenWidth),
-                    (int)(CANNON_BARREL_WIDTH_PERCENT * screenHeight)
-                );
-        Random random = new Random();// para determinar velocidades aleatórias
-        //iniciar alvos
-        targets = new ArrayList<>();
-        //inicializar targetX para o primeiro alvo a esquerda
-        int targetX = (int)(TARGET_FIRST_X_PERCENT * screenWidth);
-        //calcular a coordenada Y dos alvos
-        int targetY = (int)((0.5 - TARGET_LENGTH_PERCENT / 2) * screenHeight);
-
-        //adiconar TARGET_PIECES alvos à lista de alvos
-        for(int n = 0; n < TARGET_PIECES; n++){
-            //determinar a velocidade aleatória entre os valores min e max para o alvo 'n'
-            double velocity = screenHeight * (random.nextDouble() *
-                        (TARGET_MAX_SPEED_PERCENT - TARGET_MIN_SPEED_PERCENT) +
-                        TARGET_MIN_SPEED_PERCENT
-                    );
-            //alternar as cores dos alvos entre ESCURA e CLARA
-            int color = (n % 2 == 0) ?
-                    getResources().getColor(R.color.dark, getContext().getTheme()) :
-                    getResources().getColor(R.color.light, getContext().getTheme());
-            //inverter a velocidade inicial para o próximo alvo
-            velocity *= -1;
-            //cria e adiciona um novo alvo à lista de alvos
-            targets.add(
-              new Target(this, color, HIT_REWARD, targetX, targetY,
-                        (int)(TARGET_WIDTH_PERCENT * screenWidth),
-                        (int)(TARGET_LENGTH_PERCENT * screenWidth),
-                        (int)velocity
-                      )
-            );
-            //aumentar a coordenada X para posicionar o próximo alvo mais a direita
-            targetX += (TARGET_WIDTH_PERCENT + TARGET_SPACING_PERCENT) * screenWidth;
-        }
-        //criar uma barreira
-        blocker = new Blocker(
-                this, Color.BLACK, MISS_PENALTY,
-                (int)(BLOCKER_X_PERCENT * screenWidth),
-                (int)((0.5 - BLOCKER_LENGTH_PERCENT / 2) * screenHeight),
-                (int)(BLOCKER_WIDTH_PERCENT * screenWidth),
-                (int)(BLOCKER_LENGTH_PERCENT * screenHeight),
-                (float)(BLOCKER_SPEED_PERCENT * screenHeight)
-        );
-
-        //criar a contagem regressiva em 20 segundos;
-        timeLeft = 20;
-        //configurar o número inicial de tiros dispardos
-        shotsFired = 0;
-        //configurar o tempo decorrido como zero
-        totalElapsedTime = 0.0;
+        boolean restart = world.isGameOver();
+        world.setRecorder(recording ? recorder : null);
+        //troca o sistema de partículas só se a capacidade mudou
+        ParticleSystem particles = world.getParticles();
+        int capacity = particleCapacity;
+        if(capacity <= 0){
+            world.setParticles(null);
+        }else if(particles == null || particles.getCapacity() != capacity){
+            particles = new ParticleSystem(capacity);
+            particles.setEmissionScale(qualityGovernor.getEffectsScale());
+            world.setParticles(particles);
+        }
+        if(levelPack != null)
+            world.newGame(levelPack, level);
+        else
+            world.newGame(System.nanoTime());// semente para determinar velocidades aleatórias (e repetir a partida)
+        //configura a largura do cano
+        cannonPaint.setStrokeWidth(world.getCannon().getBarrelWidth());
+        layerCache.invalidate();
+        fullRedraw = true;
         //inicia um novo jogo depois que o último terminou
-        if(gameOver){
-            gameOver = false;
+        if(restart){
             cannonThread = new CannonThread(getHolder()); //cria nova thread
             cannonThread.start(); //inicia a thread de loop do jogo
         }
         hideSystemBars();
     }
-    //chamado repetidadmente por CannonThread para atualizar os elementos do jogo
-    private void updatePositions(double elapsedTimeMS){
-        double interval = elapsedTimeMS / 1000.0; //converte em segundos
-        //atualizar a posição da bala, se estiver na tela
-        if(cannon.getCannonBall() != null)
-            cannon.getCannonBall().update(interval);
-        //atualizar a posição da barreira
-        blocker.update(interval);
-        //atualizar a posição dos alvos
-        for(GameElement target : targets)
-            target.update(interval);
-        //subtrair o tempo restante
-        timeLeft -= interval;
-
-        //se o cronometro foi zerado
-        if(timeLeft <= 0){
-            timeLeft = 0.0;
-            gameOver = true;// o jogo terminou
-            cannonThread.setRunning(false); //termina a thread
-            showGameOverDialog(R.string.lose); //mostrar a caixa de diálogo
-        }
-
-        //se todas as peças foram atingidas
-        if(targets.isEmpty()){
-            cannonThread.setRunning(false);
-            showGameOverDialog(R.string.win);
-            gameOver = true;
-        }
-    }
 
     //alinhar o cano e disparar uma bala, caso não haja uma na tela:
+    //o toque só é aplicado pela thread do jogo, no próximo passo da simulação
     public  void alignAndFireCannonBall(MotionEvent event){
-        //obtem o local do toque nessa view
-        Point touchPoint = new Point((int)event.getX(), (int)event.getY());
-
-        //calcular a distância do toque a partir do centro
-        double centerMinusY = (screenHeight / 2 - touchPoint.y);
-        double angle = 0; //inicializa o ângulo com 0
-        //calcular o ângulo do cano em relação à hohrizontal
-        angle = Math.atan2(touchPoint.x, centerMinusY);
-        //apontar o cano para o ponto onde a tela foi tocada
-        cannon.align(angle);
-        //disparar a bala se ainda não houver uma na tela
-        if(cannon.getCannonBall() == null || !cannon.getCannonBall().isOnScreen()){
-            cannon.fireCannonBall();
-            ++shotsFired;
-        }
+        inputQueue.offer(InputQueue.MOVE, (int)event.getX(), (int)event.getY());
     }
 
     //exibir um componente AlertDialog quando o jogo terminar:
@@ -263,49 +469,72 @@ public class CannonView extends SurfaceView
 
     //desnha o jogo no objeto Canvas:
     public void drawGameElement(Canvas canvas){
-        //limpar o pano de fundo
-        canvas.drawRect(0, 0, canvas.getWidth(), canvas.getHeight(), backgroundPaint);
-        //exibir o tempo restante:
-        canvas.drawText(getResources().getString(R.string.time_remaining_format, timeLeft), 50, 100, textPaint);
-        //desenhar o canhão
-        cannon.draw(canvas);
-        //desenha os elementos do jogo:
-        if(cannon.getCannonBall() != null && cannon.getCannonBall().isOnScreen()){
-            cannon.getCannonBall().draw(canvas);
-        }
-        //desenha a barreira:
-        blocker.draw(canvas);
-        //desenha os alvos:
-        for(GameElement target : targets){
-            target.draw(canvas);
-        }
-    }
-    //teste de colisão
-    public void testForCollision(){
-        //remove quaisquer alvos em que a bala colida:
-        if(cannon.getCannonBall() != null && cannon.getCannonBall().isOnScreen()){
-           for(int n = 0; n < targets.size(); n++){
-               if(cannon.getCannonBall().collidesWith(targets.get(n))){
-                   targets.get(n).playSound();//reproduz o som de acerto no alvo
-                   timeLeft += targets.get(n).getHitReward(); //adiciona ao tempo restante o tempo de recompensa
-                   cannon.removeCannonBall();// remover a bala do jogo
-                   targets.remove(n);//remove o alvo do array
-                   --n;
-                   break;
-               }
-           }
+        frameSnapshot.capture(world, System.nanoTime());
+        drawGameElement(canvas, frameSnapshot, 1f);
+    }
+    //desenha um instantâneo do jogo interpolando as posições entre o passo anterior e o atual (alpha de 0 a 1)
+    public void drawGameElement(Canvas canvas, WorldSnapshot snapshot, float alpha){
+        //superfície em resolução reduzida: desenha nas coordenadas da view, reduzidas pelo canvas
+        float scale = surfaceScale;
+        int saveCount = -1;
+        if(scale != 1f){
+            saveCount = canvas.save();
+            canvas.scale(scale, scale);
+        }
+        if(layerCaching){
+            //fundo e canhão já desenhados no bitmap da camada estática
+            layerCache.update(screenWidth, screenHeight, snapshot);
+            layerCache.draw(canvas);
         }else{
-            cannon.removeCannonBall();
+            //limpar o pano de fundo
+            canvas.drawRect(0, 0, screenWidth, screenHeight, backgroundPaint);
+            //desenhar o canhão
+            canvas.drawLine(0, screenHeight / 2, snapshot.getBarrelEndX(), snapshot.getBarrelEndY(), cannonPaint);
+            canvas.drawCircle(0, screenHeight / 2, snapshot.getBaseRadius(), cannonPaint);
+        }
+        //exibir o tempo restante, os tiros disparados e o tempo decorrido:
+        hudRenderer.draw(canvas, snapshot, HUD_X, HUD_Y, textPaint);
+        if(profilerOverlayVisible)
+            profilerOverlay.draw(canvas, HUD_X, getProfilerOverlayTop());
+        //desenha as balas, as barreiras, os alvos e as partículas
+        drawTarget.setCanvas(canvas);
+        worldRenderer.render(snapshot, alpha, drawTarget);
+        drawTarget.setCanvas(null);
+        if(saveCount >= 0)
+            canvas.restoreToCount(saveCount);
+    }
+    //calcula a região a redesenhar (DirtyRegion): elementos móveis no quadro atual e no anterior, mais o texto do HUD
+    //quando ele muda; retorna null quando a tela inteira precisa ser redesenhada
+    private Rect computeDirtyRect(WorldSnapshot snapshot, float alpha){
+        boolean layerChanged = layerCaching && layerCache.update(screenWidth, screenHeight, snapshot);
+        dirtyRegion.begin(screenWidth, screenHeight);
+        //HUD: só nos quadros em que o texto muda, cobrindo também o texto anterior se ele era mais largo
+        if(hudRenderer.update(snapshot)){
+            float width = hudRenderer.getWidth(textPaint);
+            dirtyRegion.addChanged(HUD_X, 0, HUD_X + Math.max(width, hudWidth), HUD_Y + 3 * textPaint.getTextSize() * 1.2f);
+            hudWidth = width;
         }
-        //verificar se a bala colide com a barreira:
-        if(cannon.getCannonBall() != null && cannon.getCannonBall().collidesWith(blocker)){
-            blocker.playSound();
-            //inverter a diração da bala
-            cannon.getCannonBall().reverseVelocityX();
-            //subtrair o tempo pela penalidade:
-            timeLeft -= blocker.getMissPenalty();
+        //tabela de tempos (muda a cada quadro)
+        if(profilerOverlayVisible){
+            float top = getProfilerOverlayTop();
+            dirtyRegion.addChanged(HUD_X, top, HUD_X + profilerOverlay.getWidth(), top + profilerOverlay.getHeight());
         }
+        //balas, barreiras, alvos e partículas
+        dirtyRegion.addSnapshot(snapshot, alpha, worldRenderer.getParticleSize());
+
+        boolean partial = dirtyRegion.end(fullRedraw || layerChanged || !layerCaching);
+        fullRedraw = false;
+        if(!partial)
+            return null;
+        dirtyRect.set(dirtyRegion.getLeft(), dirtyRegion.getTop(), dirtyRegion.getRight(), dirtyRegion.getBottom());
+        return dirtyRect;
     }
+
+    //a tabela de tempos fica no canto inferior esquerdo
+    private float getProfilerOverlayTop(){
+        return screenHeight - profilerOverlay.getHeight() - HUD_X;
+    }
+
     //interrompe o jogo chamado pelo método onPause de CannonGameFragment
     public  void stopGame(){
         if(cannonThread != null)
@@ -313,18 +542,27 @@ public class CannonView extends SurfaceView
     }
     //libera recursos: chamado pelo método onDestroy de view CannonGame
     public void releaseResources(){
-        soundPool.release();//libera todos os recursos usados pelo soudpool
+        layerCache.release();
+        audioDispatcher.shutdown();
+        assetPreloader.release();//libera todos os recursos usados pelo soudpool
         soundPool = null;
     }
 
     //chamado quando o tamanho da superfície muda
     @Override
-    public void surfaceChanged(@NonNull SurfaceHolder holder, int format, int width, int height) { }
+    public void surfaceChanged(@NonNull SurfaceHolder holder, int format, int width, int height) {
+        //a qualidade adaptativa pode ter reduzido a superfície com setFixedSize
+        surfaceScale = screenWidth > 0 && width != screenWidth ? (float)width / screenWidth : 1f;
+        fullRedraw = true;
+    }
 
     @Override
     public void surfaceCreated(@NonNull SurfaceHolder holder) {
         if(!dialogDisplayed){
-            newGame();
+            //na troca de backend o aquecimento só desenhou o tabuleiro, sem simular: não sorteia outro
+            if(!recreatingSurface)
+                newGame();
+            recreatingSurface = false;
             cannonThread = new CannonThread(holder);
             cannonThread.setRunning(true);
             cannonThread.start();
@@ -350,8 +588,18 @@ public class CannonView extends SurfaceView
         //obter o valor int representado o tipo de ação que causou esse evento
         int action = event.getAction();
         //o usuário tocou na tela ou arrastou o dedo?
-        if(action == MotionEvent.ACTION_DOWN || action == MotionEvent.ACTION_MOVE){
+        //os toques vão para a fila da thread do jogo, que mira, dispara e controla o gatilho
+        if(action == MotionEvent.ACTION_DOWN){
+            inputQueue.offer(InputQueue.PRESS, (int)event.getX(), (int)event.getY());
+        }else if(action == MotionEvent.ACTION_MOVE){
             alignAndFireCannonBall(event);
+        }else if(action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL){
+            inputQueue.offer(InputQueue.RELEASE, (int)event.getX(), (int)event.getY());
+        }else if((action & MotionEvent.ACTION_MASK) == MotionEvent.ACTION_POINTER_DOWN && event.getPointerCount() == 3){
+            //toque com três dedos: mostra a tabela de tempos; ao esconder, escreve os tempos no logcat
+            if(profilerOverlayVisible)
+                dumpFrameStats();
+            setProfilerOverlayVisible(!profilerOverlayVisible);
         }
         return true;
     }
@@ -361,15 +609,73 @@ public class CannonView extends SurfaceView
         super.onSizeChanged(w, h, oldw, oldh);
         screenWidth = w; //armazena a largura do CannonView
         screenHeight = h; //Armazena a altura
+        world.setScreenSize(w, h);
+        layerCache.invalidate();
+        fullRedraw = true;
         //configurar a propriedade do texto:
         textPaint.setTextSize((int)(TEXT_SIZE_PERCENT * screenHeight));
-        textPaint.setAntiAlias(true); //suaviza o texto
+        textPaint.setAntiAlias(qualityGovernor.isAntiAlias()); //suaviza o texto
+        profilerOverlay.setTextSize(textPaint.getTextSize() * 0.5f);
+        float particleSize = Math.max(1f, (float)(PARTICLE_SIZE_PERCENT * screenHeight));
+        batchedRenderer.setParticleSize(particleSize);
+        unbatchedRenderer.setParticleSize(particleSize);
+        updateSurfaceSize();
+    }
+
+    //ajusta a resolução da superfície ao nível de qualidade (só na thread da interface)
+    private void updateSurfaceSize(){
+        float scale = qualityGovernor.getResolutionScale();
+        if(scale < 1f && screenWidth > 0 && screenHeight > 0)
+            getHolder().setFixedSize(Math.max(1, (int)(screenWidth * scale)), Math.max(1, (int)(screenHeight * scale)));
+        else
+            getHolder().setSizeFromLayout();
+    }
+
+    //registra o tempo de trabalho do quadro no controle de qualidade e aplica o novo nível, se mudou (thread do jogo)
+    //workNanos é só simulação e desenho: a espera por um buffer livre (lock e post) é contrapressão da tela,
+    //não custo do quadro, e baixar a qualidade não a reduziria
+    private void updateQuality(long workNanos){
+        qualityGovernor.recordFrame(workNanos);
+        int level = qualityGovernor.getLevel();
+        if(level == appliedQualityLevel)
+            return;
+        boolean halfResolution = level >= QualityGovernor.HALF_RESOLUTION;
+        boolean resolutionChanged = appliedQualityLevel < 0 ? halfResolution :
+                (appliedQualityLevel >= QualityGovernor.HALF_RESOLUTION) != halfResolution;
+        if(appliedQualityLevel >= 0)
+            Log.i(TAG, "Quality level: " + QualityGovernor.getLevelName(level) + " (frame p90 "
+                    + qualityGovernor.getLastPercentile() / 1000 + " us, budget " + qualityGovernor.getFrameBudget() / 1000 + " us)");
+        appliedQualityLevel = level;
+        boolean antiAlias = qualityGovernor.isAntiAlias();
+        textPaint.setAntiAlias(antiAlias);
+        cannonPaint.setAntiAlias(antiAlias);
+        drawTarget.setAntiAlias(antiAlias);
+        maxCatchUpSteps = qualityGovernor.getMaxCatchUpSteps(MAX_CATCH_UP_STEPS);
+        ParticleSystem particles = world.getParticles();
+        if(particles != null)
+            particles.setEmissionScale(qualityGovernor.getEffectsScale());
+        layerCache.invalidate();
+        fullRedraw = true;
+        if(resolutionChanged){
+            post(new Runnable() {
+                @Override
+                public void run() {
+                    updateSurfaceSize();
+                }
+            });
+        }
     }
 
     //subclasse de thread para controlar o loop do jogo
-    private class CannonThread extends Thread {
+    private class CannonThread extends Thread implements FrameScheduler.Callback {
         private SurfaceHolder surfaceHolder;// para manipular o canvas
-        private boolean threadIsRunning = true; //executando por padrão
+        private volatile boolean threadIsRunning = true; //executando por padrão
+        private volatile Looper looper; //Looper da thread quando os quadros seguem o vsync
+        private FrameScheduler frameScheduler;
+        private long previousFrameTime;
+        private long accumulator; //tempo real ainda não simulado, em nanossegundos
+        private volatile RenderBackend backend; //obtém o canvas de cada quadro
+        private volatile SimulationThread simulationThread; //simula em paralelo no modo pipeline
 
         //inicializar o surfaceHolder
         public CannonThread(SurfaceHolder holder){
@@ -377,29 +683,345 @@ public class CannonView extends SurfaceView
             setName("CannonThread");
         }
         //altera o estado de execução
-        public void setRunning(boolean running){ threadIsRunning = running;}
+        public void setRunning(boolean running){
+            threadIsRunning = running;
+            //encerra o Looper para a thread terminar no modo vsync
+            Looper threadLooper = looper;
+            if(!running && threadLooper != null)
+                threadLooper.quit();
+            SimulationThread simulation = simulationThread;
+            if(!running && simulation != null)
+                simulation.setRunning(false);
+        }
+        //vsyncs perdidos desde o início da thread
+        public long getMissedVsyncs(){
+            FrameScheduler scheduler = frameScheduler;
+            return scheduler != null ? scheduler.getMissedVsyncs() : 0;
+        }
 
         @Override
         public void run() {
+            if(!selectRenderBackend())
+                return;
+            //mostra o primeiro quadro sem esperar os sons; a simulação só começa quando eles estiverem prontos
+            if(!assetPreloader.isReady()){
+                drawStillFrame();
+                //surfaceDestroyed espera esta thread na thread da interface: não pode ficar presa os 2 s inteiros
+                boolean ready = false;
+                for(long waited = 0; !ready && waited < SOUND_WAIT_MS && threadIsRunning; waited += SOUND_WAIT_SLICE_MS)
+                    ready = assetPreloader.awaitReady(SOUND_WAIT_SLICE_MS);
+                if(!threadIsRunning)
+                    return;
+                if(!ready)
+                    Log.w(TAG, "Sounds not loaded after " + SOUND_WAIT_MS + " ms, starting without them");
+            }
+            fullRedraw = true;
+            previousFrameTime = System.nanoTime();
+            accumulator = 0;
+            if(pipelined){
+                //o FrameProfiler só aceita uma thread escrevendo: no pipeline ele mede só o desenho
+                world.setProfiler(null);
+                simulationThread = new SimulationThread();
+                simulationThread.start();
+            }
+            try{
+                renderLoop();
+            }finally {
+                if(simulationThread != null){
+                    simulationThread.setRunning(false);
+                    joinUninterruptibly(simulationThread);
+                    simulationThread = null;
+                    world.setProfiler(profiler);
+                }
+            }
+        }
+        //desenha os quadros até a thread parar
+        private void renderLoop(){
+            if(vsyncPacing){
+                //quadros guiados pelo vsync: a thread fica parada no Looper entre um quadro e outro
+                Looper.prepare();
+                looper = Looper.myLooper();
+                if(!threadIsRunning)
+                    return;
+                Display display = getDisplay();
+                float refreshRate = display != null ? display.getRefreshRate() : 60f;
+                frameScheduler = new FrameScheduler(Choreographer.getInstance(), refreshRate, targetFrameRate, this);
+                profiler.setFrameBudget(frameScheduler.getVsyncPeriodNs() * frameScheduler.getVsyncsPerFrame());
+                qualityGovernor.setFrameBudget(profiler.getFrameBudget());
+                frameScheduler.start();
+                Looper.loop();
+                frameScheduler.stop();
+            }else{
+                //laço sem pausa: desenha assim que o quadro anterior termina
+                while (threadIsRunning)
+                    doFrame(System.nanoTime());
+            }
+        }
+
+        @Override
+        public void onFrame(long frameTimeNanos) {
+            //os vsyncs perdidos já aparecem como tempo acumulado: a simulação recupera até
+            //maxCatchUpSteps passos e descarta o resto, sem pular de uma vez
+            if(threadIsRunning)
+                doFrame(frameTimeNanos);
+        }
+
+        //escolhe o backend de desenho: o pedido, o já medido ou o mais rápido no aquecimento
+        //retorna false se a superfície precisar ser recriada para trocar de backend
+        private boolean selectRenderBackend(){
+            int type = renderBackendPreference != RenderBackend.AUTO ? renderBackendPreference : selectedRenderBackend;
+            boolean hardwareConnected = false;
+            if(type == RenderBackend.AUTO){
+                RenderBackendSelector selector = new RenderBackendSelector(
+                        new int[]{RenderBackend.SOFTWARE, RenderBackend.HARDWARE}, WARMUP_FRAMES, WARMUP_DISCARDED_FRAMES);
+                warmUpSoftware(selector);
+                hardwareConnected = warmUpHardware(selector);
+                if(!threadIsRunning)
+                    return false;
+                type = selector.getSelected();
+                selectedRenderBackend = type;
+                Log.i(TAG, "Render backend: " + (type == RenderBackend.HARDWARE ? "hardware" : "software")
+                        + " (software " + selector.getMedian(0) / 1000 + " us, hardware "
+                        + selector.getMedian(1) / 1000 + " us per frame)");
+            }
+            if(type == RenderBackend.SOFTWARE && hardwareConnected){
+                //a superfície já está ligada à GPU: recria a superfície para usar o canvas por software
+                recreatingSurface = true;
+                post(new Runnable() {
+                    @Override
+                    public void run() {
+                        setVisibility(INVISIBLE);
+                        setVisibility(VISIBLE);
+                    }
+                });
+                return false;
+            }
+            backend = type == RenderBackend.HARDWARE ?
+                    new HardwareRenderBackend(surfaceHolder) : new SoftwareRenderBackend(surfaceHolder);
+            return true;
+        }
+        //desenha o estado atual do jogo, sem simular
+        private void drawStillFrame(){
             Canvas canvas = null;
-            long previousFrameTime = System.currentTimeMillis();
-            while (threadIsRunning){
+            try{
+                synchronized (surfaceHolder){
+                    canvas = backend.lockCanvas(null);
+                    if(canvas != null)
+                        drawGameElement(canvas);
+                }
+            }finally {
+                if(canvas != null){
+                    backend.unlockCanvasAndPost(canvas);
+                    onFramePosted();
+                }
+            }
+        }
+        //os dois backends são medidos em tempo de parede por quadro, e não em tempo de CPU desta thread: no hardware
+        //parte do trabalho fica na RenderThread e só aparece como espera no unlockCanvasAndPost
+        //o que ainda fica de fora: no software, a cópia do quadro anterior que lockCanvas faz no redesenho parcial;
+        //no hardware, o trabalho da GPU que termina dentro do intervalo do vsync (não atrasa o quadro)
+
+        //mede o desenho por software em um bitmap do tamanho da tela, sem ligar a superfície à CPU
+        private void warmUpSoftware(RenderBackendSelector selector){
+            if(screenWidth <= 0 || screenHeight <= 0){
+                selector.markFailed();
+                return;
+            }
+            Bitmap bitmap = Bitmap.createBitmap(screenWidth, screenHeight, Bitmap.Config.ARGB_8888);
+            Canvas canvas = new Canvas(bitmap);
+            while(threadIsRunning && selector.isMeasuring()
+                    && selector.getCurrentCandidate() == RenderBackend.SOFTWARE){
+                long start = System.nanoTime();
+                synchronized (surfaceHolder){
+                    drawGameElement(canvas);
+                }
+                selector.recordFrame(System.nanoTime() - start);
+            }
+            bitmap.recycle();
+        }
+        //mede o desenho por hardware na própria superfície; retorna true se a superfície foi ligada à GPU
+        //um quadro por vsync: sem esse ritmo a fila de buffers enche e a espera por um buffer livre entraria na medida
+        private boolean warmUpHardware(RenderBackendSelector selector){
+            HardwareRenderBackend hardware = new HardwareRenderBackend(surfaceHolder);
+            boolean connected = false;
+            long vsyncPeriod = getVsyncPeriodNs();
+            while(threadIsRunning && selector.isMeasuring()){
+                long start = System.nanoTime();
+                Canvas canvas;
+                try{
+                    canvas = hardware.lockCanvas(null);
+                }catch (RuntimeException e){
+                    Log.w(TAG, "Hardware canvas unavailable", e);
+                    canvas = null;
+                }
+                if(canvas == null){
+                    selector.markFailed();
+                    break;
+                }
+                connected = true;
                 try{
-                    canvas = surfaceHolder.lockCanvas(null);
-                    //bloquear o surfaceHolder para desenhar
                     synchronized (surfaceHolder){
-                        long currentTime = System.currentTimeMillis();
-                        double elapsedTimeMS = currentTime - previousFrameTime;
-                        totalElapsedTime += elapsedTimeMS /1000.0;
-                        updatePositions(elapsedTimeMS);
-                        testForCollision();
-                        drawGameElement(canvas);//desenha usando o canvas
-                        previousFrameTime = currentTime;
+                        drawGameElement(canvas);
                     }
                 }finally {
+                    hardware.unlockCanvasAndPost(canvas);
+                    onFramePosted();
+                }
+                long elapsed = System.nanoTime() - start;
+                selector.recordFrame(elapsed);
+                if(elapsed < vsyncPeriod)
+                    LockSupport.parkNanos(vsyncPeriod - elapsed);
+            }
+            return connected;
+        }
+        //intervalo entre vsyncs da tela, em nanossegundos
+        private long getVsyncPeriodNs(){
+            Display display = getDisplay();
+            float refreshRate = display != null ? display.getRefreshRate() : 60f;
+            return (long)(1000000000L / (refreshRate > 0 ? refreshRate : 60f));
+        }
+
+        //simula e desenha um quadro; currentTime usa a base de System.nanoTime
+        private void doFrame(long currentTime){
+            if(simulationThread != null){
+                renderSnapshot(currentTime);
+                return;
+            }
+            Canvas canvas = null;
+            long frameStart = profiler.now();
+            long phaseStart = 0;
+            long lockNanos = 0;
+            try{
+                synchronized (surfaceHolder){
+                    long frameTime = Math.max(0, currentTime - previousFrameTime);
+                    previousFrameTime = currentTime;
+                    float alpha = 1f;
+                    //sons repetidos dentro do mesmo quadro tocam uma vez só
+                    audioDispatcher.beginFrame();
+                    if(fixedTimestep){
+                        //simula em passos fixos o tempo acumulado, limitando os passos por quadro
+                        accumulator += frameTime;
+                        int steps = 0;
+                        while(accumulator >= SIMULATION_STEP_NS && steps < maxCatchUpSteps && threadIsRunning){
+                            stepWorld(SIMULATION_STEP_NS / 1000000000.0);
+                            accumulator -= SIMULATION_STEP_NS;
+                            ++steps;
+                        }
+                        //descarta o atraso que não cabe no limite de passos
+                        if(accumulator >= SIMULATION_STEP_NS)
+                            accumulator %= SIMULATION_STEP_NS;
+                        //desenha interpolando entre o passo anterior e o atual
+                        alpha = (float)accumulator / SIMULATION_STEP_NS;
+                    }else{
+                        stepWorld(frameTime / 1000000000.0);
+                    }
+                    //bloquear o surfaceHolder para desenhar (só a região alterada, se ativado)
+                    frameSnapshot.capture(world, currentTime);
+                    long lockStart = profiler.now();
+                    canvas = backend.lockCanvas(dirtyRedraw && backend.supportsDirtyRegions() && surfaceScale == 1f ?
+                            computeDirtyRect(frameSnapshot, alpha) : null);
+                    phaseStart = profiler.end(FrameProfiler.LOCK, lockStart);
+                    lockNanos = phaseStart - lockStart;
                     if(canvas != null)
-                        surfaceHolder.unlockCanvasAndPost(canvas);
+                        drawGameElement(canvas, frameSnapshot, alpha);//desenha usando o canvas
+                    phaseStart = profiler.end(FrameProfiler.DRAW, phaseStart);
+                }
+            }finally {
+                if(canvas != null){
+                    backend.unlockCanvasAndPost(canvas);
+                    long frameEnd = profiler.end(FrameProfiler.POST, phaseStart);
+                    profiler.endFrame(frameEnd - frameStart);
+                    //phaseStart é o fim do desenho: fica de fora o post e, descontado, o lock
+                    updateQuality(phaseStart - frameStart - lockNanos);
+                    onFramePosted();
+                }
+            }
+        }
+
+        //modo pipeline: desenha o último instantâneo publicado pela thread da simulação
+        private void renderSnapshot(long currentTime){
+            WorldSnapshot snapshot = snapshots.acquire();
+            if(snapshot == null)
+                return; //a simulação ainda não publicou nada
+            Canvas canvas = null;
+            long frameStart = profiler.now();
+            long phaseStart = frameStart;
+            long lockNanos = 0;
+            try{
+                //o instantâneo é o fim de um passo: desenha entre o passo anterior e ele conforme o tempo passado
+                float alpha = Math.min(1f, Math.max(0f,
+                        (float)(currentTime - snapshot.getTimeNanos()) / SIMULATION_STEP_NS));
+                synchronized (surfaceHolder){
+                    canvas = backend.lockCanvas(dirtyRedraw && backend.supportsDirtyRegions() && surfaceScale == 1f ?
+                            computeDirtyRect(snapshot, alpha) : null);
+                    phaseStart = profiler.end(FrameProfiler.LOCK, phaseStart);
+                    lockNanos = phaseStart - frameStart;
+                    if(canvas != null)
+                        drawGameElement(canvas, snapshot, alpha);
+                    phaseStart = profiler.end(FrameProfiler.DRAW, phaseStart);
+                }
+            }finally {
+                snapshots.release();
+                if(canvas != null){
+                    backend.unlockCanvasAndPost(canvas);
+                    long frameEnd = profiler.end(FrameProfiler.POST, phaseStart);
+                    profiler.endFrame(frameEnd - frameStart);
+                    //phaseStart é o fim do desenho: fica de fora o post e, descontado, o lock
+                    updateQuality(phaseStart - frameStart - lockNanos);
+                    onFramePosted();
+                }
+            }
+        }
+    }
+
+    //thread da simulação no modo pipeline: passos fixos no ritmo do relógio, publicando um instantâneo após cada quadro simulado
+    private class SimulationThread extends Thread {
+        private volatile boolean running = true;
+
+        public SimulationThread(){
+            setName("SimulationThread");
+        }
+        public void setRunning(boolean running){
+            this.running = running;
+            LockSupport.unpark(this);
+        }
+
+        @Override
+        public void run() {
+            long previousTime = System.nanoTime();
+            long accumulator = 0;
+            snapshots.publish(world, previousTime);
+            while(running){
+                long currentTime = System.nanoTime();
+                accumulator += currentTime - previousTime;
+                previousTime = currentTime;
+                int steps = 0;
+                audioDispatcher.beginFrame();
+                while(accumulator >= SIMULATION_STEP_NS && steps < maxCatchUpSteps && running){
+                    stepWorld(SIMULATION_STEP_NS / 1000000000.0);
+                    accumulator -= SIMULATION_STEP_NS;
+                    ++steps;
                 }
+                if(accumulator >= SIMULATION_STEP_NS)
+                    accumulator %= SIMULATION_STEP_NS;
+                //o instantâneo vale para o instante em que o último passo terminou
+                if(steps > 0)
+                    snapshots.publish(world, currentTime - accumulator);
+                //dorme até o próximo passo
+                LockSupport.parkNanos(SIMULATION_STEP_NS - accumulator);
+            }
+        }
+    }
+
+    //espera a thread terminar, mesmo se a thread atual for interrompida
+    private static void joinUninterruptibly(Thread thread){
+        boolean retry = true;
+        while(retry){
+            try{
+                thread.join();
+                retry = false;
+            }catch (InterruptedException e){
+                Log.e(TAG, "Thread interrupted", e);
             }
         }
     }
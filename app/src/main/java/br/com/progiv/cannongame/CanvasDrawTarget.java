@@ -0,0 +1,40 @@
+package br.com.progiv.cannongame;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+//DrawTarget que desenha no Canvas do quadro, com um Paint por tipo de primitiva reaproveitado entre as chamadas
+public class CanvasDrawTarget implements DrawTarget {
+    private final Paint linePaint = new Paint();
+    private final Paint pointPaint = new Paint();
+    private Canvas canvas;
+
+    public CanvasDrawTarget(){
+        linePaint.setStrokeCap(Paint.Cap.BUTT); //pontas retas: o segmento cobre exatamente o retângulo
+    }
+
+    //canvas do quadro atual
+    public void setCanvas(Canvas canvas){
+        this.canvas = canvas;
+    }
+
+    public void setAntiAlias(boolean antiAlias){
+        linePaint.setAntiAlias(antiAlias);
+        pointPaint.setAntiAlias(antiAlias);
+    }
+
+    @Override
+    public void drawLines(float[] lines, int offset, int count, int color, float width) {
+        linePaint.setColor(color);
+        linePaint.setStrokeWidth(width);
+        canvas.drawLines(lines, offset, count, linePaint);
+    }
+
+    @Override
+    public void drawPoints(float[] points, int offset, int count, int color, float size, boolean round) {
+        pointPaint.setColor(color);
+        pointPaint.setStrokeWidth(size);
+        pointPaint.setStrokeCap(round ? Paint.Cap.ROUND : Paint.Cap.SQUARE);
+        canvas.drawPoints(points, offset, count, pointPaint);
+    }
+}
@@ -0,0 +1,144 @@
+package br.com.progiv.cannongame;
+
+//região a redesenhar no redesenho parcial (CannonView.setDirtyRedraw), em Java puro para ser medida nos testes
+//o lockCanvas só aceita um retângulo: tudo que mudou vira um retângulo só, então as partes estáticas ficam de fora
+//para ele não crescer até a tela toda; o HUD entra só nos quadros em que o texto muda, e só a área do texto
+//os elementos móveis entram com a posição atual e com a do quadro anterior (para apagar o rastro)
+//quando o retângulo passa de FULL_REDRAW_FRACTION da tela o quadro é redesenhado inteiro: o redesenho parcial
+//ainda copia o resto do buffer anterior e, com quase tudo sujo, deixa de compensar
+public class DirtyRegion {
+    public static final float FULL_REDRAW_FRACTION = 0.5f;
+    static final int MARGIN = 2; //arredondamento e suavização das bordas
+
+    //áreas como left, top, right, bottom; vazias quando right <= left
+    private final Bounds moving = new Bounds(0, 0, 0, 0); //elementos móveis neste quadro
+    private final Bounds previousMoving = new Bounds(0, 0, 0, 0); //os mesmos no quadro anterior
+    private final Bounds region = new Bounds(0, 0, 0, 0); //resultado do quadro
+    private int screenWidth;
+    private int screenHeight;
+
+    //medição: fração da tela redesenhada, somada por quadro (1 nos quadros inteiros)
+    private long frames;
+    private long fullFrames;
+    private double dirtyFraction;
+
+    //começa um quadro
+    public void begin(int screenWidth, int screenHeight){
+        this.screenWidth = screenWidth;
+        this.screenHeight = screenHeight;
+        moving.set(0, 0, 0, 0);
+        region.set(0, 0, 0, 0);
+    }
+
+    //acrescenta a área de um elemento móvel (entra também no próximo quadro)
+    public void addMoving(float left, float top, float right, float bottom){
+        union(moving, left, top, right, bottom);
+    }
+
+    //acrescenta uma área que mudou só neste quadro (ex.: o texto do HUD)
+    public void addChanged(float left, float top, float right, float bottom){
+        union(region, left, top, right, bottom);
+    }
+
+    //acrescenta as balas, as barreiras, os alvos e as partículas do instantâneo, na posição interpolada
+    public void addSnapshot(WorldSnapshot snapshot, float alpha, float particleSize){
+        for(int b = 0; b < snapshot.getBallCount(); b++){
+            float left = snapshot.getBallLeft(b, alpha);
+            float top = snapshot.getBallTop(b, alpha);
+            int diameter = 2 * snapshot.getBallRadius(b);
+            addMoving(left, top, left + diameter, top + diameter);
+        }
+        addEntities(snapshot.getBlockers(), alpha);
+        addEntities(snapshot.getTargets(), alpha);
+        ParticleBatch particles = snapshot.getParticles();
+        if(!particles.isEmpty()){
+            float half = particleSize / 2;
+            addMoving(particles.getLeft() - half, particles.getTop() - half,
+                    particles.getRight() + half, particles.getBottom() + half);
+        }
+    }
+    private void addEntities(EntityStore entities, float alpha){
+        for(int n = 0; n < entities.size(); n++){
+            float left = entities.getPreviousX(n) + (entities.getX(n) - entities.getPreviousX(n)) * alpha;
+            float top = entities.getPreviousY(n) + (entities.getY(n) - entities.getPreviousY(n)) * alpha;
+            addMoving(left, top, left + entities.getWidth(n), top + entities.getHeight(n));
+        }
+    }
+
+    //fecha o quadro; retorna true se basta redesenhar getLeft/getTop/getRight/getBottom e false para a tela inteira
+    //forceFull: a tela inteira mudou (novo jogo, camada estática redesenhada, superfície recriada)
+    public boolean end(boolean forceFull){
+        union(region, moving);
+        union(region, previousMoving);
+        previousMoving.set(moving.left, moving.top, moving.right, moving.bottom);
+        //só a parte dentro da tela conta
+        region.set(Math.max(region.left, 0), Math.max(region.top, 0),
+                Math.min(region.right, screenWidth), Math.min(region.bottom, screenHeight));
+        long screenArea = (long)screenWidth * screenHeight;
+        long area = isEmpty(region) ? 0 : (long)region.width() * region.height();
+        boolean full = forceFull || screenArea == 0 || area > FULL_REDRAW_FRACTION * screenArea;
+        ++frames;
+        if(full){
+            ++fullFrames;
+            dirtyFraction += 1;
+        }else{
+            dirtyFraction += (double)area / screenArea;
+        }
+        return !full;
+    }
+
+    private static void union(Bounds target, float left, float top, float right, float bottom){
+        if(right <= left || bottom <= top)
+            return;
+        int l = (int)Math.floor(left) - MARGIN;
+        int t = (int)Math.floor(top) - MARGIN;
+        int r = (int)Math.ceil(right) + MARGIN;
+        int b = (int)Math.ceil(bottom) + MARGIN;
+        if(isEmpty(target))
+            target.set(l, t, r, b);
+        else
+            target.set(Math.min(target.left, l), Math.min(target.top, t), Math.max(target.right, r), Math.max(target.bottom, b));
+    }
+    private static void union(Bounds target, Bounds other){
+        if(isEmpty(other))
+            return;
+        if(isEmpty(target))
+            target.set(other.left, other.top, other.right, other.bottom);
+        else
+            target.set(Math.min(target.left, other.left), Math.min(target.top, other.top),
+                    Math.max(target.right, other.right), Math.max(target.bottom, other.bottom));
+    }
+    private static boolean isEmpty(Bounds bounds){
+        return bounds.right <= bounds.left || bounds.bottom <= bounds.top;
+    }
+
+    public int getLeft(){
+        return region.left;
+    }
+    public int getTop(){
+        return region.top;
+    }
+    public int getRight(){
+        return region.right;
+    }
+    public int getBottom(){
+        return region.bottom;
+    }
+
+    //recomeça a medição
+    public void resetStats(){
+        frames = 0;
+        fullFrames = 0;
+        dirtyFraction = 0;
+    }
+    public long getFrames(){
+        return frames;
+    }
+    public long getFullFrames(){
+        return fullFrames;
+    }
+    //fração média da tela redesenhada por quadro (os quadros inteiros contam 1)
+    public double getMeanDirtyFraction(){
+        return frames == 0 ? 0 : dirtyFraction / frames;
+    }
+}
@@ -0,0 +1,127 @@
+package br.com.progiv.cannongame;
+
+//junta os retângulos e círculos de um quadro em grupos com a mesma cor e o mesmo tamanho, em arrays
+//pré-alocados, e desenha cada grupo com uma chamada só (DrawTarget.drawLines ou drawPoints)
+//retângulo vira um segmento no eixo maior com a espessura do menor; círculo vira um ponto redondo
+//sem espaço (mais grupos que o limite ou grupo cheio) o que já foi juntado é desenhado antes de continuar
+public class DrawBatcher {
+    public static final int DEFAULT_GROUPS = 16;
+    public static final int DEFAULT_GROUP_CAPACITY = 1024; //primitivas por grupo
+
+    private static final int LINES = 0;
+    private static final int ROUND_POINTS = 1;
+    private static final int[] FLOATS = {4, 2}; //floats por primitiva em cada modo
+
+    private final float[][] data; //primitivas de cada grupo
+    private final int[] mode;
+    private final int[] color;
+    private final float[] size; //espessura do segmento ou diâmetro do ponto
+    private final int[] used; //floats usados de cada grupo
+    private final int groupCapacity;
+    private int groupCount;
+    private DrawTarget target;
+    private long primitives; //primitivas juntadas desde a criação
+    private long flushedGroups; //chamadas de desenho feitas desde a criação
+
+    public DrawBatcher(){
+        this(DEFAULT_GROUPS, DEFAULT_GROUP_CAPACITY);
+    }
+    //maxGroups: grupos (cor e tamanho) abertos ao mesmo tempo; groupCapacity: primitivas por grupo
+    public DrawBatcher(int maxGroups, int groupCapacity){
+        this.groupCapacity = groupCapacity;
+        data = new float[maxGroups][4 * groupCapacity];
+        mode = new int[maxGroups];
+        color = new int[maxGroups];
+        size = new float[maxGroups];
+        used = new int[maxGroups];
+    }
+
+    //começa a juntar comandos para target
+    public void begin(DrawTarget target){
+        this.target = target;
+        groupCount = 0;
+    }
+
+    //retângulo de (left, top) a (right, bottom)
+    public void addRect(float left, float top, float right, float bottom, int color){
+        float width = right - left;
+        float height = bottom - top;
+        if(width <= 0 || height <= 0)
+            return;
+        int g = group(LINES, color, Math.min(width, height));
+        float[] lines = data[g];
+        int n = used[g];
+        if(width <= height){
+            //segmento vertical no centro, com a largura do retângulo
+            float x = left + width / 2;
+            lines[n] = x;
+            lines[n + 1] = top;
+            lines[n + 2] = x;
+            lines[n + 3] = bottom;
+        }else{
+            float y = top + height / 2;
+            lines[n] = left;
+            lines[n + 1] = y;
+            lines[n + 2] = right;
+            lines[n + 3] = y;
+        }
+        used[g] = n + 4;
+        ++primitives;
+    }
+
+    //círculo com centro (centerX, centerY)
+    public void addCircle(float centerX, float centerY, float radius, int color){
+        if(radius <= 0)
+            return;
+        int g = group(ROUND_POINTS, color, 2 * radius);
+        int n = used[g];
+        data[g][n] = centerX;
+        data[g][n + 1] = centerY;
+        used[g] = n + 2;
+        ++primitives;
+    }
+
+    //desenha todos os grupos na ordem em que apareceram e esvazia o lote
+    public void flush(){
+        for(int g = 0; g < groupCount; g++)
+            flushGroup(g);
+        groupCount = 0;
+    }
+
+    //grupo com espaço para mais uma primitiva do modo, da cor e do tamanho pedidos
+    private int group(int mode, int color, float size){
+        for(int g = 0; g < groupCount; g++){
+            if(this.mode[g] == mode && this.color[g] == color && this.size[g] == size){
+                if(used[g] + FLOATS[mode] > FLOATS[mode] * groupCapacity)
+                    flushGroup(g);
+                return g;
+            }
+        }
+        if(groupCount == data.length)
+            flush();
+        int g = groupCount++;
+        this.mode[g] = mode;
+        this.color[g] = color;
+        this.size[g] = size;
+        used[g] = 0;
+        return g;
+    }
+
+    private void flushGroup(int g){
+        if(used[g] == 0)
+            return;
+        if(mode[g] == LINES)
+            target.drawLines(data[g], 0, used[g], color[g], size[g]);
+        else
+            target.drawPoints(data[g], 0, used[g], color[g], size[g], true);
+        used[g] = 0;
+        ++flushedGroups;
+    }
+
+    public long getPrimitives(){
+        return primitives;
+    }
+    public long getFlushedGroups(){
+        return flushedGroups;
+    }
+}
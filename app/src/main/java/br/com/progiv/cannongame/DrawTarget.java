@@ -0,0 +1,11 @@
+package br.com.progiv.cannongame;
+
+//destino das chamadas de desenho em lote: o Canvas no aparelho (CanvasDrawTarget) ou a gravação nos testes
+//(RecordingDrawTarget); count é o número de floats usados do array, como em Canvas.drawLines e drawPoints
+public interface DrawTarget {
+    //segmentos (x0, y0, x1, y1) com espessura width e pontas retas: cada segmento é um retângulo
+    void drawLines(float[] lines, int offset, int count, int color, float width);
+
+    //pontos (x, y) com lado ou diâmetro size; round desenha círculos em vez de quadrados
+    void drawPoints(float[] points, int offset, int count, int color, float size, boolean round);
+}
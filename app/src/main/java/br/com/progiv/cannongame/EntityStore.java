@@ -0,0 +1,224 @@
+package br.com.progiv.cannongame;
+
+//armazenamento em arrays paralelos (estrutura de arrays) para alvos e barreiras
+//cada entidade é um índice; a remoção troca a entidade removida pela última (O(1))
+public class EntityStore {
+    private final int soundId; //som tocado quando uma entidade deste conjunto é atingida
+    private int size;
+
+    //posição e tamanho, em pixels
+    private float[] x;
+    private float[] y;
+    private float[] width;
+    private float[] height;
+    private float[] velocityY; //velocidade vertical, em pixels por segundo
+    private int[] value; //recompensa (alvos) ou penalidade (barreiras), em segundos
+    private int[] color;
+    //posição no passo de simulação anterior (usada na interpolação do desenho)
+    private float[] previousX;
+    private float[] previousY;
+    //posição e altura em 32.32 e velocidade vertical em 16.16, usadas por updateFixed (y acompanha em pixels)
+    private long[] fixedY;
+    private long[] fixedHeight;
+    private int[] fixedVelocityY;
+
+    //construtor
+    public EntityStore(int soundId, int initialCapacity){
+        this.soundId = soundId;
+        allocate(Math.max(initialCapacity, 1));
+    }
+
+    //cria os arrays com a capacidade informada, preservando as entidades existentes
+    private void allocate(int capacity){
+        x = copy(x, capacity);
+        y = copy(y, capacity);
+        width = copy(width, capacity);
+        height = copy(height, capacity);
+        velocityY = copy(velocityY, capacity);
+        previousX = copy(previousX, capacity);
+        previousY = copy(previousY, capacity);
+        value = copy(value, capacity);
+        color = copy(color, capacity);
+        fixedY = copy(fixedY, capacity);
+        fixedHeight = copy(fixedHeight, capacity);
+        fixedVelocityY = copy(fixedVelocityY, capacity);
+    }
+    private float[] copy(float[] source, int capacity){
+        float[] target = new float[capacity];
+        if(source != null)
+            System.arraycopy(source, 0, target, 0, size);
+        return target;
+    }
+    private int[] copy(int[] source, int capacity){
+        int[] target = new int[capacity];
+        if(source != null)
+            System.arraycopy(source, 0, target, 0, size);
+        return target;
+    }
+    private long[] copy(long[] source, int capacity){
+        long[] target = new long[capacity];
+        if(source != null)
+            System.arraycopy(source, 0, target, 0, size);
+        return target;
+    }
+
+    //garante espaço para capacity entidades (chamado na montagem do nível, fora do loop do jogo)
+    public void ensureCapacity(int capacity){
+        if(capacity > x.length)
+            allocate(Math.max(capacity, x.length * 2));
+    }
+
+    //copia todas as entidades de outro conjunto (só aloca se a capacidade não bastar)
+    public void copyFrom(EntityStore source){
+        ensureCapacity(source.size);
+        int n = source.size;
+        System.arraycopy(source.x, 0, x, 0, n);
+        System.arraycopy(source.y, 0, y, 0, n);
+        System.arraycopy(source.width, 0, width, 0, n);
+        System.arraycopy(source.height, 0, height, 0, n);
+        System.arraycopy(source.velocityY, 0, velocityY, 0, n);
+        System.arraycopy(source.value, 0, value, 0, n);
+        System.arraycopy(source.color, 0, color, 0, n);
+        System.arraycopy(source.previousX, 0, previousX, 0, n);
+        System.arraycopy(source.previousY, 0, previousY, 0, n);
+        System.arraycopy(source.fixedY, 0, fixedY, 0, n);
+        System.arraycopy(source.fixedHeight, 0, fixedHeight, 0, n);
+        System.arraycopy(source.fixedVelocityY, 0, fixedVelocityY, 0, n);
+        size = n;
+    }
+
+    //remove todas as entidades
+    public void clear(){
+        size = 0;
+    }
+
+    //adiciona uma entidade e retorna seu índice
+    public int add(float left, float top, float entityWidth, float entityHeight, float entityVelocityY, int entityValue, int entityColor){
+        ensureCapacity(size + 1);
+        int n = size++;
+        x[n] = left;
+        y[n] = top;
+        width[n] = entityWidth;
+        height[n] = entityHeight;
+        velocityY[n] = entityVelocityY;
+        value[n] = entityValue;
+        color[n] = entityColor;
+        previousX[n] = left;
+        previousY[n] = top;
+        fixedY[n] = FixedPoint.position(top);
+        fixedHeight[n] = FixedPoint.position(entityHeight);
+        fixedVelocityY[n] = FixedPoint.velocity(entityVelocityY);
+        return n;
+    }
+
+    //remove a entidade n movendo a última para a sua posição
+    public void removeSwap(int n){
+        int last = --size;
+        x[n] = x[last];
+        y[n] = y[last];
+        width[n] = width[last];
+        height[n] = height[last];
+        velocityY[n] = velocityY[last];
+        value[n] = value[last];
+        color[n] = color[last];
+        previousX[n] = previousX[last];
+        previousY[n] = previousY[last];
+        fixedY[n] = fixedY[last];
+        fixedHeight[n] = fixedHeight[last];
+        fixedVelocityY[n] = fixedVelocityY[last];
+    }
+
+    //guarda as posições atuais antes de um passo de simulação
+    public void savePreviousPositions(){
+        System.arraycopy(x, 0, previousX, 0, size);
+        System.arraycopy(y, 0, previousY, 0, size);
+    }
+
+    //move todas as entidades na vertical, invertendo a direção nas bordas da tela
+    public void update(double interval, int screenHeight){
+        float dt = (float)interval;
+        for(int n = 0; n < size; n++){
+            float vy = velocityY[n];
+            float top = y[n] + vy * dt;
+            y[n] = top;
+            if(top < 0 && vy < 0 || top + height[n] > screenHeight && vy > 0)
+                velocityY[n] = -vy;
+        }
+    }
+
+    //o mesmo movimento em ponto fixo (interval em 32.32 segundos): a conta é toda inteira e y é só a cópia em pixels
+    //as posições em ponto fixo partem de add; misturar com update no mesmo jogo descarta o que update moveu
+    public void updateFixed(long interval, int screenHeight){
+        long bottomLimit = FixedPoint.position(screenHeight);
+        for(int n = 0; n < size; n++){
+            int vy = fixedVelocityY[n];
+            long top = fixedY[n] + FixedPoint.displacement(vy, interval);
+            fixedY[n] = top;
+            y[n] = FixedPoint.toFloat(top);
+            if(top < 0 && vy < 0 || top + fixedHeight[n] > bottomLimit && vy > 0){
+                fixedVelocityY[n] = -vy;
+                velocityY[n] = -velocityY[n];
+            }
+        }
+    }
+
+    //retorna o índice da primeira entidade que se sobrepõe ao retângulo, ou -1
+    public int findIntersecting(Bounds shape){
+        float left = shape.left;
+        float top = shape.top;
+        float right = shape.right;
+        float bottom = shape.bottom;
+        for(int n = 0; n < size; n++){
+            if(left < x[n] + width[n] && x[n] < right && top < y[n] + height[n] && y[n] < bottom)
+                return n;
+        }
+        return -1;
+    }
+
+    public int size(){
+        return size;
+    }
+    public boolean isEmpty(){
+        return size == 0;
+    }
+    public int getSoundId(){
+        return soundId;
+    }
+    public float getX(int n){
+        return x[n];
+    }
+    public float getY(int n){
+        return y[n];
+    }
+    public float getWidth(int n){
+        return width[n];
+    }
+    public float getHeight(int n){
+        return height[n];
+    }
+    public float getVelocityY(int n){
+        return velocityY[n];
+    }
+    //posição e altura em 32.32 e velocidade vertical em 16.16 (física em ponto fixo)
+    public long getFixedY(int n){
+        return fixedY[n];
+    }
+    public long getFixedHeight(int n){
+        return fixedHeight[n];
+    }
+    public int getFixedVelocityY(int n){
+        return fixedVelocityY[n];
+    }
+    public int getValue(int n){
+        return value[n];
+    }
+    public int getColor(int n){
+        return color[n];
+    }
+    public float getPreviousX(int n){
+        return previousX[n];
+    }
+    public float getPreviousY(int n){
+        return previousY[n];
+    }
+}
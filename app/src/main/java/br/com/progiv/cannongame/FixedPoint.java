@@ -0,0 +1,48 @@
+package br.com.progiv.cannongame;
+
+//aritmética de ponto fixo da física inteira (GameWorld.setFixedPointPhysics)
+//velocidades em 16.16 pixels por segundo; posições e intervalos em 32.32 (pixels e segundos), para a fração
+//de pixel de cada passo se acumular sem erro visível mesmo com milhares de passos por segundo
+public final class FixedPoint {
+    public static final int VELOCITY_SHIFT = 16;
+    public static final int POSITION_SHIFT = 32;
+    public static final int INTERVAL_SHIFT = 32;
+    //limites que mantêm displacement dentro do long: velocidade * 2^16 cabe em int e intervalo * 2^32 em 2^32,
+    //então o produto fica abaixo de 2^63 (no máximo 32767 px por chamada)
+    public static final double MAX_SPEED = 32767; //pixels por segundo, em módulo
+    public static final double MAX_INTERVAL = 1; //segundos; passos maiores (ex.: depois de uma pausa) são cortados
+
+    private FixedPoint(){ }
+
+    //pixels por segundo para 16.16, arredondando e limitando a MAX_SPEED
+    public static int velocity(double pixelsPerSecond){
+        double clamped = Math.max(-MAX_SPEED, Math.min(MAX_SPEED, pixelsPerSecond));
+        return (int)Math.round(clamped * (1 << VELOCITY_SHIFT));
+    }
+    public static float velocityToFloat(int velocity){
+        return velocity / (float)(1 << VELOCITY_SHIFT);
+    }
+    //pixels para 32.32
+    public static long position(double pixels){
+        return Math.round(pixels * (1L << POSITION_SHIFT));
+    }
+    public static long position(int pixels){
+        return (long)pixels << POSITION_SHIFT;
+    }
+    //32.32 para pixels inteiros (arredonda para baixo, também para negativos)
+    public static int toPixels(long position){
+        return (int)(position >> POSITION_SHIFT);
+    }
+    public static float toFloat(long position){
+        return position / (float)(1L << POSITION_SHIFT);
+    }
+    //segundos para 32.32, limitando a MAX_INTERVAL
+    public static long interval(double seconds){
+        return Math.round(Math.min(seconds, MAX_INTERVAL) * (1L << INTERVAL_SHIFT));
+    }
+    //deslocamento em 32.32 de uma velocidade 16.16 durante um intervalo 32.32
+    //(o produto cabe em long enquanto |velocidade| * intervalo < 32768 px, garantido por velocity e interval)
+    public static long displacement(int velocity, long interval){
+        return (velocity * interval) >> VELOCITY_SHIFT;
+    }
+}
@@ -0,0 +1,105 @@
+package br.com.progiv.cannongame;
+
+import java.io.IOException;
+import java.util.Locale;
+
+//tempos de cada fase do quadro (simulação, colisão, bloqueio do canvas, desenho e envio) em histogramas
+//as fases de um quadro são somadas (podem ocorrer vários passos de simulação por quadro) e registradas em endFrame
+//gravação feita só pela thread do jogo e sem alocar memória; leituras de outras threads são aproximadas
+public class FrameProfiler {
+    public static final int UPDATE = 0; //GameWorld.updatePositions
+    public static final int COLLISION = 1; //testes de colisão (ou varredura contínua)
+    public static final int LOCK = 2; //espera pelo canvas
+    public static final int DRAW = 3; //drawGameElement
+    public static final int POST = 4; //unlockCanvasAndPost
+    public static final int FRAME = 5; //quadro inteiro
+    public static final int PHASE_COUNT = 6;
+    private static final String[] PHASE_NAMES = {"update", "collision", "lock", "draw", "post", "frame"};
+
+    private final TimingHistogram[] histograms = new TimingHistogram[PHASE_COUNT];
+    private final long[] pending = new long[FRAME]; //tempo acumulado por fase no quadro atual
+    private volatile long frameBudgetNs; //quadros acima disso contam como jank
+    private volatile boolean resetRequested;
+    private long jankFrames; //quadros acima do orçamento
+    private long severeJankFrames; //quadros acima do dobro do orçamento
+
+    //construtor: frameBudgetNs é o intervalo esperado entre quadros
+    public FrameProfiler(long frameBudgetNs){
+        this.frameBudgetNs = frameBudgetNs;
+        for(int i = 0; i < PHASE_COUNT; i++)
+            histograms[i] = new TimingHistogram();
+    }
+
+    public static String getPhaseName(int phase){
+        return PHASE_NAMES[phase];
+    }
+
+    public long now(){
+        return System.nanoTime();
+    }
+
+    //soma a fase o tempo desde start; retorna o instante atual para encadear a próxima fase
+    public long end(int phase, long start){
+        long now = System.nanoTime();
+        pending[phase] += now - start;
+        return now;
+    }
+
+    //fecha o quadro: registra as fases acumuladas e a duração total
+    public void endFrame(long frameNanos){
+        if(resetRequested){
+            resetRequested = false;
+            for(TimingHistogram histogram : histograms)
+                histogram.reset();
+            jankFrames = 0;
+            severeJankFrames = 0;
+        }
+        for(int phase = 0; phase < FRAME; phase++){
+            histograms[phase].record(pending[phase]);
+            pending[phase] = 0;
+        }
+        histograms[FRAME].record(frameNanos);
+        long budget = frameBudgetNs;
+        if(frameNanos > budget)
+            ++jankFrames;
+        if(frameNanos > 2 * budget)
+            ++severeJankFrames;
+    }
+
+    //pede para zerar as estatísticas no próximo quadro (seguro a partir de qualquer thread)
+    public void requestReset(){
+        resetRequested = true;
+    }
+
+    public void setFrameBudget(long frameBudgetNs){
+        this.frameBudgetNs = frameBudgetNs;
+    }
+    public long getFrameBudget(){
+        return frameBudgetNs;
+    }
+    public TimingHistogram getHistogram(int phase){
+        return histograms[phase];
+    }
+    public long getFrameCount(){
+        return histograms[FRAME].getCount();
+    }
+    public long getJankFrames(){
+        return jankFrames;
+    }
+    public long getSevereJankFrames(){
+        return severeJankFrames;
+    }
+
+    //escreve um relatório em texto (aloca memória: usar só sob demanda, fora do laço do jogo)
+    public void writeReport(Appendable out) throws IOException {
+        out.append(String.format(Locale.US, "frames %d, jank %d (>%.2f ms), severe jank %d (>%.2f ms)%n",
+                getFrameCount(), jankFrames, frameBudgetNs / 1e6, severeJankFrames, 2 * frameBudgetNs / 1e6));
+        out.append(String.format(Locale.US, "%-10s %8s %8s %8s %8s %8s%n", "phase (ms)", "mean", "p50", "p95", "p99", "max"));
+        for(int phase = 0; phase < PHASE_COUNT; phase++){
+            TimingHistogram histogram = histograms[phase];
+            out.append(String.format(Locale.US, "%-10s %8.3f %8.3f %8.3f %8.3f %8.3f%n", PHASE_NAMES[phase],
+                    histogram.getMean() / 1e6, histogram.getPercentile(50) / 1e6, histogram.getPercentile(95) / 1e6,
+                    histogram.getPercentile(99) / 1e6, histogram.getMax() / 1e6));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package br.com.progiv.cannongame;
+
+import android.view.Choreographer;
+
+//agenda os quadros do jogo pelos sinais de vsync do Choreographer, em vez de um laço sem pausa
+//deve ser criado e iniciado em uma thread com Looper (a thread do jogo); a conta dos vsyncs fica com o VsyncPacer
+public class FrameScheduler implements Choreographer.FrameCallback {
+    public static final int NATIVE_FRAME_RATE = 0; //um quadro por vsync
+
+    //recebe os quadros agendados
+    public interface Callback {
+        //frameTimeNanos: instante do vsync (base de System.nanoTime)
+        void onFrame(long frameTimeNanos);
+    }
+
+    private final Choreographer choreographer;
+    private final Callback callback;
+    private final VsyncPacer pacer;
+    private volatile boolean running;
+
+    //construtor: refreshRate é a taxa da tela (Display.getRefreshRate) e targetFrameRate a taxa desejada
+    public FrameScheduler(Choreographer choreographer, float refreshRate, int targetFrameRate, Callback callback){
+        this.choreographer = choreographer;
+        this.callback = callback;
+        pacer = new VsyncPacer(refreshRate, targetFrameRate);
+    }
+
+    //começa a receber vsyncs
+    public void start(){
+        running = true;
+        pacer.reset();
+        choreographer.postFrameCallback(this);
+    }
+
+    //para de receber vsyncs (chamar na thread do Looper)
+    public void stop(){
+        running = false;
+        choreographer.removeFrameCallback(this);
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if(!running)
+            return;
+        //agenda o próximo vsync antes de trabalhar neste quadro
+        choreographer.postFrameCallback(this);
+        if(pacer.onVsync(frameTimeNanos) != VsyncPacer.SKIP)
+            callback.onFrame(frameTimeNanos);
+    }
+
+    //vsyncs perdidos desde a criação (o atraso em si já aparece no tempo entre os quadros)
+    public long getMissedVsyncs(){
+        return pacer.getMissedVsyncs();
+    }
+    public long getVsyncPeriodNs(){
+        return pacer.getVsyncPeriodNs();
+    }
+    public int getVsyncsPerFrame(){
+        return pacer.getVsyncsPerFrame();
+    }
+}
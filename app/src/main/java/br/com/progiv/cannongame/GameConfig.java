@@ -0,0 +1,78 @@
+package br.com.progiv.cannongame;
+
+import java.util.Locale;
+
+//constantes de balanceamento do jogo que podem ser trocadas sem recompilar (ex.: varredura do BalanceHarness)
+//os valores padrão são as constantes de GameWorld; o novo valor vale a partir do próximo newGame
+public class GameConfig {
+    private int missPenalty = GameWorld.MISS_PENALTY; //segundos subtraídos em caso de erro
+    private int hitReward = GameWorld.HIT_REWARD; //segundos adicionados em caso de acerto
+    private double initialTime = GameWorld.INITIAL_TIME; //tempo inicial da contagem regressiva, em segundos
+    private double targetMinSpeedPercent = GameWorld.TARGET_MIN_SPEED_PERCENT;
+    private double targetMaxSpeedPercent = GameWorld.TARGET_MAX_SPEED_PERCENT;
+    private double blockerSpeedPercent = GameWorld.BLOCKER_SPEED_PERCENT;
+    private double cannonballSpeedPercent = GameWorld.CANNONBALL_SPEED_PERCENT;
+
+    public GameConfig(){
+    }
+    public GameConfig(GameConfig other){
+        missPenalty = other.missPenalty;
+        hitReward = other.hitReward;
+        initialTime = other.initialTime;
+        targetMinSpeedPercent = other.targetMinSpeedPercent;
+        targetMaxSpeedPercent = other.targetMaxSpeedPercent;
+        blockerSpeedPercent = other.blockerSpeedPercent;
+        cannonballSpeedPercent = other.cannonballSpeedPercent;
+    }
+
+    public int getMissPenalty(){
+        return missPenalty;
+    }
+    public void setMissPenalty(int missPenalty){
+        this.missPenalty = missPenalty;
+    }
+    public int getHitReward(){
+        return hitReward;
+    }
+    public void setHitReward(int hitReward){
+        this.hitReward = hitReward;
+    }
+    public double getInitialTime(){
+        return initialTime;
+    }
+    public void setInitialTime(double initialTime){
+        this.initialTime = initialTime;
+    }
+    public double getTargetMinSpeedPercent(){
+        return targetMinSpeedPercent;
+    }
+    public void setTargetMinSpeedPercent(double targetMinSpeedPercent){
+        this.targetMinSpeedPercent = targetMinSpeedPercent;
+    }
+    public double getTargetMaxSpeedPercent(){
+        return targetMaxSpeedPercent;
+    }
+    public void setTargetMaxSpeedPercent(double targetMaxSpeedPercent){
+        this.targetMaxSpeedPercent = targetMaxSpeedPercent;
+    }
+    public double getBlockerSpeedPercent(){
+        return blockerSpeedPercent;
+    }
+    public void setBlockerSpeedPercent(double blockerSpeedPercent){
+        this.blockerSpeedPercent = blockerSpeedPercent;
+    }
+    public double getCannonballSpeedPercent(){
+        return cannonballSpeedPercent;
+    }
+    public void setCannonballSpeedPercent(double cannonballSpeedPercent){
+        this.cannonballSpeedPercent = cannonballSpeedPercent;
+    }
+
+    @Override
+    public String toString(){
+        return String.format(Locale.US,
+                "missPenalty=%d hitReward=%d initialTime=%.1f targetSpeed=%.3f..%.3f blockerSpeed=%.3f cannonballSpeed=%.3f",
+                missPenalty, hitReward, initialTime, targetMinSpeedPercent, targetMaxSpeedPercent,
+                blockerSpeedPercent, cannonballSpeedPercent);
+    }
+}
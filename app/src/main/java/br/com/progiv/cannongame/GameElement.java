@@ -1,42 +1,74 @@
 package br.com.progiv.cannongame;
 
-import android.graphics.Canvas;
-import android.graphics.Paint;
-import android.graphics.Rect;
-
 public class GameElement {
-    protected CannonView view; // a view que contém esse GameElement
-    protected Paint paint = new Paint(); //objet Paint para desenhar
-    protected Rect shape; //os limites retangulares do GameElement
+    protected GameWorld world; // o mundo que contém esse GameElement
+    protected int color; //cor usada para desenhar
+    protected Bounds shape; //os limites retangulares do GameElement
     protected float velocityY; //velocidade vertical
     protected int soundId;// id do som associado
+    protected int previousLeft; //posição horizontal no passo de simulação anterior
+    protected int previousTop; //posição vertical no passo de simulação anterior
+    //física em ponto fixo (GameWorld.setFixedPointPhysics): posição vertical em 32.32 e velocidade em 16.16;
+    //shape passa a ser só a posição arredondada para pixels, usada nas colisões e no desenho
+    protected long fixedTop;
+    protected int fixedVelocityY;
 
     //construtor:
-    public GameElement(CannonView view, int color, int soundId, int x, int y, int width, int length, float velocityY){
-        this.view = view;
-        paint.setColor(color);
-        shape = new Rect(x, y, x + width, y + length);
+    public GameElement(GameWorld world, int color, int soundId, int x, int y, int width, int length, float velocityY){
+        this.world = world;
+        this.color = color;
+        shape = new Bounds(x, y, x + width, y + length);
+        previousLeft = x;
+        previousTop = y;
         this.soundId = soundId;
         this.velocityY = velocityY;
+        fixedTop = FixedPoint.position(y);
+        fixedVelocityY = FixedPoint.velocity(velocityY);
+    }
+
+    //guarda a posição atual antes de um passo de simulação (usada na interpolação)
+    public void savePreviousPosition(){
+        previousLeft = shape.left;
+        previousTop = shape.top;
     }
 
     //atualizar a posição de GameElement e verificar se há colisões com a parede
     public void update(double interval){
         //atualizar a posição vertical
-        shape.offset(0, (int)(velocityY * interval));
+        if(world.isFixedPointPhysics()){
+            //a fração de pixel de cada passo se acumula em vez de ser descartada
+            fixedTop += FixedPoint.displacement(fixedVelocityY, FixedPoint.interval(interval));
+            shape.offset(0, FixedPoint.toPixels(fixedTop) - shape.top);
+        }else{
+            shape.offset(0, (int)(velocityY * interval));
+        }
 
         //se esse GameElement colide com a parede, inverte a direção:
-        if(shape.top < 0 && velocityY < 0 || shape.bottom > view.getScreenHeight() && velocityY > 0)
+        if(shape.top < 0 && velocityY < 0 || shape.bottom > world.getScreenHeight() && velocityY > 0){
             velocityY *= -1;
+            fixedVelocityY = -fixedVelocityY;
+        }
     }
 
-    //desenhar o objeto Canvas
-    public void draw(Canvas canvas){
-        canvas.drawRect(shape, paint);
-    }
     //reproduzir o som correspondente a esse tipo de objeto
     public void playSound(){
-        view.playSound(soundId);
+        world.playSound(soundId);
+    }
+
+    public int getColor(){
+        return color;
+    }
+    public Bounds getShape(){
+        return shape;
+    }
+    public float getVelocityY(){
+        return velocityY;
+    }
+    public int getPreviousLeft(){
+        return previousLeft;
+    }
+    public int getPreviousTop(){
+        return previousTop;
     }
 
 }
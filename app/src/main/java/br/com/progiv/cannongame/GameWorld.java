@@ -0,0 +1,635 @@
+package br.com.progiv.cannongame;
+
+import java.util.Random;
+
+//estado e regras do jogo, sem dependências do Android
+//CannonView conduz a simulação e desenha o estado; os testes JVM rodam o mundo sem emulador
+public class GameWorld {
+
+    //constantes para interação do jogo
+    public static final int MISS_PENALTY = 2; //segundos subtraídos em caso de erro
+    public static final int HIT_REWARD = 3; //segundos adicionados em caso de acerto
+    public static final double INITIAL_TIME = 20; //tempo inicial da contagem regressiva, em segundos
+
+    //constantes para o canhõa
+    public static final double CANNON_BASE_RADIUS_PERCENT = 3.0 / 40;
+    public static final double CANNON_BARREL_WIDTH_PERCENT = 3.0 / 40;
+    public static final double CANNON_BARREL_LENGTH_PERCENT = 1.0 / 10;
+
+    //constantes para a bala:
+    public static final double CANNONBALL_RADIUS_PERCENT = 3.0 / 80;
+    public static final double CANNONBALL_SPEED_PERCENT = 3.0 / 2;
+    public static final int PROJECTILE_POOL_CAPACITY = 32; //máximo de balas simultâneas na tela
+    public static final double RAPID_FIRE_INTERVAL = 1.0 / 20; //intervalo mínimo entre disparos no modo rajada, em segundos
+
+    //constantes para os alvos
+    public static final double TARGET_WIDTH_PERCENT = 1.0 / 40;
+    public static final double TARGET_LENGTH_PERCENT = 3.0 / 20;
+    public static final double TARGET_FIRST_X_PERCENT = 3.0 / 5;
+    public static final double TARGET_SPACING_PERCENT = 1.0 / 60;
+    public static final double TARGET_PIECES = 9;
+    public static final double TARGET_MIN_SPEED_PERCENT = 3.0 / 4;
+    public static final double TARGET_MAX_SPEED_PERCENT = 6.0 / 4;
+
+    //constantes para a barreira
+    public static final double BLOCKER_WIDTH_PERCENT = 1.0 / 40;
+    public static final double BLOCKER_LENGTH_PERCENT = 1.0 / 4;
+    public static final double BLOCKER_X_PERCENT = 1.0 / 2;
+    public static final double BLOCKER_SPEED_PERCENT = 1.0;
+
+    //a grade de colisão só compensa a partir deste número de alvos
+    public static final int BROADPHASE_MIN_TARGETS = 32;
+
+    //máximo de contatos (batidas na barreira) resolvidos por bala em um passo no modo contínuo
+    public static final int MAX_SWEEP_ITERATIONS = 4;
+
+    //efeitos de partículas (GameWorld.setParticles)
+    public static final int PARTICLE_CAPACITY = 4096; //máximo de partículas vivas
+    public static final int TARGET_HIT_PARTICLES = 48; //estilhaços do alvo atingido
+    public static final int BLOCKER_HIT_PARTICLES = 16; //faíscas da batida na barreira
+    public static final int MUZZLE_PARTICLES = 12; //fumaça do disparo
+    public static final double PARTICLE_SPEED_PERCENT = 1.0 / 2; //velocidade máxima, em alturas da tela por segundo
+    public static final double PARTICLE_GRAVITY_PERCENT = 1.0; //aceleração, em alturas da tela por segundo ao quadrado
+    public static final float PARTICLE_LIFETIME = 0.6f; //segundos
+    public static final int MUZZLE_COLOR = 0xFF9E9E9E;
+
+    //identificadores dos sons
+    public static final int TARGET_SOUND_ID = 0;
+    public static final int CANNON_SOUND_ID = 1;
+    public static final int BLOCKER_SOUND_ID = 2;
+
+    //cores padrão dos alvos (iguais a R.color.dark e R.color.light)
+    public static final int DEFAULT_DARK_COLOR = 0xFF1976D2;
+    public static final int DEFAULT_LIGHT_COLOR = 0xFFFFE100;
+
+    //recebe os eventos do mundo que dependem da plataforma (som e fim de jogo)
+    public interface Listener {
+        void playSound(int soundId);
+        void onGameOver(boolean won);
+    }
+
+    private Listener listener;
+    private int darkColor;
+    private int lightColor;
+
+    //objetos do jogo
+    private Cannon cannon;
+    private final ProjectilePool projectiles = new ProjectilePool(this, PROJECTILE_POOL_CAPACITY);
+    private final EntityStore targets = new EntityStore(TARGET_SOUND_ID, (int)TARGET_PIECES);
+    private final EntityStore blockers = new EntityStore(BLOCKER_SOUND_ID, 1);
+    private final SpatialGrid targetGrid = new SpatialGrid(); //broadphase dos alvos
+    private boolean broadphase = true;
+    private boolean continuousCollision; //colisão contínua (swept) em vez de testar só a posição final
+    private int[] sweepCandidates = new int[(int)TARGET_PIECES]; //alvos candidatos de cada varredura
+    private FrameProfiler profiler; //mede o tempo de movimento e de colisão, se definido
+    private ParticleSystem particles; //efeitos de acerto, batida e disparo, se definido
+    private boolean fixedPointRequested; //física em ponto fixo pedida para o próximo jogo
+    private boolean fixedPointPhysics; //física em ponto fixo no jogo atual
+
+    //variáveis de dimensão
+    private int screenWidth;
+    private int screenHeight;
+
+    //variáveis para controle de estatísticas:
+    private boolean gameOver;
+    private double timeLeft; //tempo restante, em segundos
+    private int shotsFired; //tiros disparados pelo usuários
+    private double totalElapsedTime; //segundos decorridos
+
+    //modo rajada: várias balas na tela ao mesmo tempo
+    private boolean rapidFire;
+    private boolean triggerPulled; //o jogador mantém o disparo pressionado
+    private InputQueue inputQueue; //toques vindos da thread da interface, aplicados no início de cada passo
+    private final InputQueue.Handler inputHandler = new InputQueue.Handler() {
+        @Override
+        public void onInput(int type, int x, int y) {
+            applyInput(type, x, y);
+        }
+    };
+    private double lastShotTime; //instante do último disparo, em segundos
+    private SessionRecorder recorder; //grava a partida para repetição, se definido
+    private GameConfig config = new GameConfig(); //constantes de balanceamento
+
+    //construtores
+    public GameWorld(){
+        this(DEFAULT_DARK_COLOR, DEFAULT_LIGHT_COLOR);
+    }
+    public GameWorld(int darkColor, int lightColor){
+        this.darkColor = darkColor;
+        this.lightColor = lightColor;
+    }
+
+    public void setListener(Listener listener){
+        this.listener = listener;
+    }
+
+    //configura as dimensões da tela do jogo
+    public void setScreenSize(int width, int height){
+        screenWidth = width;
+        screenHeight = height;
+        targetGrid.resize(width, height);
+        if(particles != null)
+            particles.setGravity((float)(PARTICLE_GRAVITY_PERCENT * height));
+    }
+    //obtém a largura de tela do jogo
+    public int getScreenWidth(){
+        return screenWidth;
+    }
+    //obtém a altura de tela do jogo
+    public int getScreenHeight(){
+        return  screenHeight;
+    }
+    //reproduz um som com o soundId
+    public void playSound(int soundId){
+        if(recorder != null && soundId != CANNON_SOUND_ID)
+            recorder.onHit(soundId);
+        if(listener != null)
+            listener.playSound(soundId);
+    }
+
+    //novo jogo, com velocidades sorteadas por random:
+    public void newGame(Random random){
+        newGame(random, (int)TARGET_PIECES);
+    }
+    //novo jogo sorteado a partir de seed; com um gravador definido, a partida é gravada desde aqui
+    public void newGame(long seed){
+        newGame(new Random(seed));
+        if(recorder != null)
+            recorder.begin(seed, screenWidth, screenHeight, rapidFire, continuousCollision, fixedPointPhysics);
+    }
+    //novo jogo com o nível level de um pacote de níveis (alvos e barreiras definidos no arquivo)
+    public void newGame(LevelPack pack, int level){
+        if(recorder != null)
+            recorder.cancel(); //só partidas sorteadas por semente são gravadas
+        resetCannon();
+        pack.load(level, blockers, targets, screenWidth, screenHeight);
+        resetCounters(pack.getInitialTime(level));
+    }
+    //novo jogo com targetPieces alvos (usado pelos benchmarks para tabuleiros maiores)
+    public void newGame(Random random, int targetPieces){
+        resetCannon();
+        //iniciar alvos
+        targets.clear();
+        targets.ensureCapacity(targetPieces);
+        //inicializar targetX para o primeiro alvo a esquerda
+        int targetX = (int)(TARGET_FIRST_X_PERCENT * screenWidth);
+        //calcular a coordenada Y dos alvos
+        int targetY = (int)((0.5 - TARGET_LENGTH_PERCENT / 2) * screenHeight);
+
+        int targetWidth = (int)(TARGET_WIDTH_PERCENT * screenWidth);
+
+        //adiconar targetPieces alvos à lista de alvos
+        for(int n = 0; n < targetPieces; n++){
+            //volta para a primeira coluna quando os alvos não cabem mais na tela
+            if(targetX + targetWidth > screenWidth)
+                targetX = (int)(TARGET_FIRST_X_PERCENT * screenWidth);
+            //determinar a velocidade aleatória entre os valores min e max para o alvo 'n'
+            double velocity = screenHeight * (random.nextDouble() *
+                        (config.getTargetMaxSpeedPercent() - config.getTargetMinSpeedPercent()) +
+                        config.getTargetMinSpeedPercent()
+                    );
+            //alternar as cores dos alvos entre ESCURA e CLARA
+            int color = (n % 2 == 0) ? darkColor : lightColor;
+            //inverter a velocidade inicial para o próximo alvo
+            velocity *= -1;
+            //adiciona um novo alvo
+            targets.add(targetX, targetY,
+                        targetWidth,
+                        (int)(TARGET_LENGTH_PERCENT * screenWidth),
+                        (int)velocity,
+                        config.getHitReward(), color
+            );
+            //aumentar a coordenada X para posicionar o próximo alvo mais a direita
+            targetX += (TARGET_WIDTH_PERCENT + TARGET_SPACING_PERCENT) * screenWidth;
+        }
+        //criar uma barreira
+        blockers.clear();
+        blockers.add(
+                (int)(BLOCKER_X_PERCENT * screenWidth),
+                (int)((0.5 - BLOCKER_LENGTH_PERCENT / 2) * screenHeight),
+                (int)(BLOCKER_WIDTH_PERCENT * screenWidth),
+                (int)(BLOCKER_LENGTH_PERCENT * screenHeight),
+                (float)(config.getBlockerSpeedPercent() * screenHeight),
+                config.getMissPenalty(), Cannon.COLOR
+        );
+
+        resetCounters(config.getInitialTime());
+    }
+    //contruir canhão
+    private void resetCannon(){
+        fixedPointPhysics = fixedPointRequested;
+        projectiles.clear();
+        if(particles != null)
+            particles.clear();
+        cannon = new Cannon(this, projectiles,
+                    (int)(CANNON_BASE_RADIUS_PERCENT * screenHeight),
+                    (int)(CANNON_BARREL_LENGTH_PERCENT * screenWidth),
+                    (int)(CANNON_BARREL_WIDTH_PERCENT * screenHeight)
+                );
+    }
+    private void resetCounters(double initialTime){
+        //criar a contagem regressiva
+        timeLeft = initialTime;
+        //configurar o número inicial de tiros dispardos
+        shotsFired = 0;
+        //configurar o tempo decorrido como zero
+        totalElapsedTime = 0.0;
+        lastShotTime = -RAPID_FIRE_INTERVAL;
+        gameOver = false;
+    }
+
+    //executa um passo de simulação de interval segundos
+    public void step(double interval){
+        if(inputQueue != null)
+            inputQueue.drain(inputHandler);
+        if(gameOver)
+            return;
+        if(recorder != null)
+            recorder.onStep(interval);
+        //guarda as posições atuais para a interpolação do desenho
+        for(int b = 0; b < projectiles.size(); b++)
+            projectiles.get(b).savePreviousPosition();
+        blockers.savePreviousPositions();
+        targets.savePreviousPositions();
+
+        totalElapsedTime += interval;
+        FrameProfiler frameProfiler = profiler;
+        long phaseStart = frameProfiler != null ? frameProfiler.now() : 0;
+        if(continuousCollision){
+            //move as balas até o primeiro contato ao longo do caminho, depois move o resto
+            sweepProjectiles(interval);
+            if(frameProfiler != null)
+                phaseStart = frameProfiler.end(FrameProfiler.COLLISION, phaseStart);
+            updatePositions(interval);
+            if(frameProfiler != null)
+                phaseStart = frameProfiler.end(FrameProfiler.UPDATE, phaseStart);
+            releaseProjectilesOffScreen();
+            if(frameProfiler != null)
+                frameProfiler.end(FrameProfiler.COLLISION, phaseStart);
+        }else{
+            updatePositions(interval);
+            if(frameProfiler != null)
+                phaseStart = frameProfiler.end(FrameProfiler.UPDATE, phaseStart);
+            testForCollision();
+            if(frameProfiler != null)
+                frameProfiler.end(FrameProfiler.COLLISION, phaseStart);
+        }
+        //no modo rajada, continua disparando enquanto o gatilho estiver pressionado
+        if(rapidFire && triggerPulled && !gameOver)
+            fireIfReady();
+        if(particles != null)
+            particles.update(interval);
+        //a gravação termina no fim do passo, depois das colisões que ainda aconteceram nele
+        if(gameOver && recorder != null)
+            recorder.finish(this);
+    }
+
+    //atualiza os elementos do jogo
+    public void updatePositions(double interval){
+        //atualizar a posição das balas (no modo contínuo elas já foram movidas por sweepProjectiles)
+        if(!continuousCollision){
+            for(int b = 0; b < projectiles.size(); b++)
+                projectiles.get(b).update(interval);
+        }
+        if(fixedPointPhysics){
+            long fixedInterval = FixedPoint.interval(interval);
+            blockers.updateFixed(fixedInterval, screenHeight);
+            targets.updateFixed(fixedInterval, screenHeight);
+        }else{
+            //atualizar a posição das barreiras
+            blockers.update(interval, screenHeight);
+            //atualizar a posição dos alvos
+            targets.update(interval, screenHeight);
+        }
+        //subtrair o tempo restante
+        timeLeft -= interval;
+
+        //se o cronometro foi zerado
+        if(timeLeft <= 0){
+            timeLeft = 0.0;
+            gameOver = true;// o jogo terminou
+            if(listener != null)
+                listener.onGameOver(false);
+        }
+
+        //se todas as peças foram atingidas
+        if(targets.isEmpty()){
+            gameOver = true;
+            if(listener != null)
+                listener.onGameOver(true);
+        }
+    }
+
+    //alinhar o cano para o ponto (x, y) e disparar uma bala, caso seja possível:
+    public void alignAndFireCannonBall(int x, int y){
+        //calcular a distância do toque a partir do centro
+        double centerMinusY = (screenHeight / 2 - y);
+        //calcular o ângulo do cano em relação à hohrizontal
+        double angle = Math.atan2(x, centerMinusY);
+        //apontar o cano para o ponto onde a tela foi tocada
+        cannon.align(angle);
+        fireIfReady();
+    }
+
+    //dispara se não houver bala na tela ou, no modo rajada, se o intervalo entre disparos já passou
+    private void fireIfReady(){
+        boolean ready = rapidFire ?
+                totalElapsedTime - lastShotTime >= RAPID_FIRE_INTERVAL - 1e-9 : //tolera o erro de arredondamento da soma dos passos
+                projectiles.isEmpty();
+        if(ready && cannon.fireCannonBall()){
+            ++shotsFired;
+            lastShotTime = totalElapsedTime;
+        }
+    }
+
+    //teste de colisão
+    public void testForCollision(){
+        //com muitos alvos, reconstrói a grade para testar só os alvos próximos de cada bala
+        boolean useGrid = broadphase && targets.size() >= BROADPHASE_MIN_TARGETS && !projectiles.isEmpty();
+        if(useGrid)
+            targetGrid.build(targets);
+        for(int b = 0; b < projectiles.size(); b++){
+            CannonBall cannonBall = projectiles.get(b);
+            //devolve ao conjunto as balas que saíram da tela
+            if(!cannonBall.isOnScreen()){
+                projectiles.release(b);
+                --b;
+                continue;
+            }
+            //remove o primeiro alvo em que a bala colida:
+            int target = useGrid ? findTargetInGrid(cannonBall) : cannonBall.findCollision(targets);
+            if(target >= 0){
+                playSound(targets.getSoundId());//reproduz o som de acerto no alvo
+                emitTargetHit(cannonBall, targets.getColor(target));
+                timeLeft += targets.getValue(target); //adiciona ao tempo restante o tempo de recompensa
+                if(useGrid)
+                    targetGrid.onRemoveSwap(targets, target);
+                targets.removeSwap(target);//remove o alvo
+                projectiles.release(b);// remover a bala do jogo
+                --b;
+                continue;
+            }
+            //verificar se a bala colide com uma barreira:
+            int blocker = cannonBall.findCollision(blockers);
+            if(blocker >= 0){
+                playSound(blockers.getSoundId());
+                emitBlockerHit(cannonBall, blockers.getColor(blocker));
+                //inverter a diração da bala
+                cannonBall.reverseVelocityX();
+                //subtrair o tempo pela penalidade:
+                timeLeft -= blockers.getValue(blocker);
+            }
+        }
+    }
+
+    //colisão contínua: cada bala avança até o primeiro contato dentro do passo (alvo ou barreira),
+    //considerando o movimento vertical dos alvos; depois de bater na barreira continua com o tempo restante.
+    //os alvos e barreiras ainda estão nas posições do início do passo
+    private void sweepProjectiles(double interval){
+        boolean useGrid = broadphase && targets.size() >= BROADPHASE_MIN_TARGETS && !projectiles.isEmpty();
+        if(useGrid){
+            targetGrid.build(targets);
+            if(sweepCandidates.length < targets.size())
+                sweepCandidates = new int[targets.size()];
+        }
+        for(int b = 0; b < projectiles.size(); b++){
+            CannonBall cannonBall = projectiles.get(b);
+            double time = 0; //parte do passo já simulada para esta bala
+            boolean removed = false;
+            for(int i = 0; i < MAX_SWEEP_ITERATIONS && time < interval && !removed; i++){
+                double remaining = interval - time;
+                double hitTime = SweptCollision.NO_HIT;
+                int hitTarget = -1;
+                int hitBlocker = -1;
+                //a bala só colide indo para a direita
+                if(cannonBall.getVelocityX() > 0){
+                    if(useGrid){
+                        int count = collectSweepCandidates(cannonBall, remaining, interval);
+                        for(int c = 0; c < count; c++){
+                            double t = timeOfImpact(cannonBall, targets, sweepCandidates[c], time, remaining);
+                            if(t < hitTime || (t == hitTime && sweepCandidates[c] < hitTarget)){
+                                hitTime = t;
+                                hitTarget = sweepCandidates[c];
+                            }
+                        }
+                    }else{
+                        for(int n = 0; n < targets.size(); n++){
+                            double t = timeOfImpact(cannonBall, targets, n, time, remaining);
+                            if(t < hitTime){
+                                hitTime = t;
+                                hitTarget = n;
+                            }
+                        }
+                    }
+                    for(int n = 0; n < blockers.size(); n++){
+                        double t = timeOfImpact(cannonBall, blockers, n, time, remaining);
+                        if(t < hitTime){
+                            hitTime = t;
+                            hitTarget = -1;
+                            hitBlocker = n;
+                        }
+                    }
+                }
+                if(hitTime == SweptCollision.NO_HIT){
+                    cannonBall.update(remaining);
+                    time = interval;
+                    break;
+                }
+                //avança a bala até o contato
+                cannonBall.update(hitTime);
+                time += hitTime;
+                if(hitTarget >= 0){
+                    playSound(targets.getSoundId());//reproduz o som de acerto no alvo
+                    emitTargetHit(cannonBall, targets.getColor(hitTarget));
+                    timeLeft += targets.getValue(hitTarget); //adiciona ao tempo restante o tempo de recompensa
+                    if(useGrid)
+                        targetGrid.onRemoveSwap(targets, hitTarget);
+                    targets.removeSwap(hitTarget);//remove o alvo
+                    projectiles.release(b);// remover a bala do jogo
+                    --b;
+                    removed = true;
+                }else{
+                    playSound(blockers.getSoundId());
+                    emitBlockerHit(cannonBall, blockers.getColor(hitBlocker));
+                    //inverter a diração da bala e continuar com o tempo restante
+                    cannonBall.reverseVelocityX();
+                    //subtrair o tempo pela penalidade:
+                    timeLeft -= blockers.getValue(hitBlocker);
+                }
+            }
+            //esgotou as iterações: move a bala pelo tempo que falta sem testar colisões
+            if(!removed && time < interval)
+                cannonBall.update(interval - time);
+        }
+    }
+
+    //estilhaços na cor do alvo, espalhados em todas as direções a partir da bala
+    private void emitTargetHit(CannonBall cannonBall, int color){
+        if(particles == null)
+            return;
+        Bounds shape = cannonBall.getShape();
+        particles.emit(shape.right, shape.top + shape.height() / 2f, TARGET_HIT_PARTICLES, color,
+                0, (float)(2 * Math.PI), (float)(PARTICLE_SPEED_PERCENT * screenHeight), PARTICLE_LIFETIME);
+    }
+    //faíscas na cor da barreira, voltando para o lado de onde a bala veio
+    private void emitBlockerHit(CannonBall cannonBall, int color){
+        if(particles == null)
+            return;
+        Bounds shape = cannonBall.getShape();
+        float direction = cannonBall.getVelocityX() > 0 ? (float)Math.PI : 0;
+        particles.emit(cannonBall.getVelocityX() > 0 ? shape.right : shape.left, shape.top + shape.height() / 2f,
+                BLOCKER_HIT_PARTICLES, color, direction, (float)(Math.PI / 2),
+                (float)(PARTICLE_SPEED_PERCENT * screenHeight), PARTICLE_LIFETIME / 2);
+    }
+    //fumaça na boca do cano, na direção do disparo (barrelAngle conta a partir da vertical, como em Cannon.align)
+    void emitMuzzleFlash(int x, int y, double barrelAngle){
+        if(particles == null)
+            return;
+        particles.emit(x, y, MUZZLE_PARTICLES, MUZZLE_COLOR, (float)(barrelAngle - Math.PI / 2), (float)(Math.PI / 4),
+                (float)(PARTICLE_SPEED_PERCENT * screenHeight / 2), PARTICLE_LIFETIME);
+    }
+
+    //instante do contato da bala com a entidade n, contado a partir de time (início da varredura)
+    private static double timeOfImpact(CannonBall cannonBall, EntityStore entities, int n, double time, double remaining){
+        Bounds shape = cannonBall.getShape();
+        //posição da entidade no instante time do passo
+        float top = (float)(entities.getY(n) + entities.getVelocityY(n) * time);
+        return SweptCollision.timeOfImpact(
+                shape.left, shape.top, shape.width(), shape.height(), cannonBall.getVelocityX(), cannonBall.getVelocityY(),
+                entities.getX(n), top, entities.getWidth(n), entities.getHeight(n), entities.getVelocityY(n),
+                remaining);
+    }
+
+    //alvos da grade próximos do caminho da bala no tempo restante (ampliado pelo movimento dos alvos no passo)
+    private int collectSweepCandidates(CannonBall cannonBall, double remaining, double interval){
+        Bounds shape = cannonBall.getShape();
+        float dx = (float)(cannonBall.getVelocityX() * remaining);
+        float dy = (float)(cannonBall.getVelocityY() * remaining);
+        float margin = (float)(targetGrid.getMaxSpeed() * interval);
+        return targetGrid.collectCandidates(
+                shape.left, Math.min(shape.top, shape.top + dy) - margin,
+                shape.right + dx, Math.max(shape.bottom, shape.bottom + dy) + margin,
+                sweepCandidates);
+    }
+
+    //devolve ao conjunto as balas que saíram da tela
+    private void releaseProjectilesOffScreen(){
+        for(int b = 0; b < projectiles.size(); b++){
+            if(!projectiles.get(b).isOnScreen()){
+                projectiles.release(b);
+                --b;
+            }
+        }
+    }
+
+    //igual a CannonBall.findCollision, mas consultando só as células da grade tocadas pela bala
+    private int findTargetInGrid(CannonBall cannonBall){
+        return cannonBall.getVelocityX() > 0 ? targetGrid.findIntersecting(targets, cannonBall.getShape()) : -1;
+    }
+
+    //ativa ou desativa a grade de colisão (broadphase) para tabuleiros grandes
+    public void setBroadphase(boolean broadphase){
+        this.broadphase = broadphase;
+    }
+    public boolean isBroadphase(){
+        return broadphase;
+    }
+
+    //ativa ou desativa a colisão contínua (permite passos maiores sem a bala atravessar alvos finos)
+    public void setContinuousCollision(boolean continuousCollision){
+        this.continuousCollision = continuousCollision;
+        if(recorder != null)
+            recorder.onSetting(SessionRecorder.TAG_CONTINUOUS_COLLISION, continuousCollision);
+    }
+    public boolean isContinuousCollision(){
+        return continuousCollision;
+    }
+
+    //define quem mede as fases de cada passo (null desativa)
+    public void setProfiler(FrameProfiler profiler){
+        this.profiler = profiler;
+    }
+    //define o sistema de partículas dos efeitos (null desativa os efeitos)
+    public void setParticles(ParticleSystem particles){
+        this.particles = particles;
+        if(particles != null)
+            particles.setGravity((float)(PARTICLE_GRAVITY_PERCENT * screenHeight));
+    }
+    public ParticleSystem getParticles(){
+        return particles;
+    }
+
+    //ativa ou desativa o modo rajada
+    public void setRapidFire(boolean rapidFire){
+        this.rapidFire = rapidFire;
+        if(recorder != null)
+            recorder.onSetting(SessionRecorder.TAG_RAPID_FIRE, rapidFire);
+    }
+    public boolean isRapidFire(){
+        return rapidFire;
+    }
+    //ativa ou desativa a física em ponto fixo (FixedPoint: velocidades em 16.16, posições e intervalos em 32.32):
+    //contas inteiras, sem perder a fração de pixel de cada passo e com o mesmo resultado em qualquer aparelho;
+    //vale a partir do próximo newGame
+    public void setFixedPointPhysics(boolean fixedPointPhysics){
+        fixedPointRequested = fixedPointPhysics;
+    }
+    public boolean isFixedPointPhysics(){
+        return fixedPointPhysics;
+    }
+    //troca as constantes de balanceamento; vale a partir do próximo newGame
+    public void setConfig(GameConfig config){
+        this.config = config;
+    }
+    public GameConfig getConfig(){
+        return config;
+    }
+    //define quem grava as partidas iniciadas por newGame(long) (null desativa)
+    public void setRecorder(SessionRecorder recorder){
+        this.recorder = recorder;
+    }
+    //informa se o jogador mantém o disparo pressionado (usado no modo rajada)
+    public void setTriggerPulled(boolean triggerPulled){
+        this.triggerPulled = triggerPulled;
+    }
+    //aplica um evento de toque (InputQueue.PRESS, MOVE ou RELEASE)
+    public void applyInput(int type, int x, int y){
+        if(recorder != null)
+            recorder.onInput(type, x, y);
+        if(type == InputQueue.RELEASE){
+            setTriggerPulled(false);
+        }else if(!gameOver){
+            setTriggerPulled(true);
+            alignAndFireCannonBall(x, y);
+        }
+    }
+    //define a fila de toques consumida por step (null para aplicar os toques diretamente)
+    public void setInputQueue(InputQueue inputQueue){
+        this.inputQueue = inputQueue;
+    }
+
+    public Cannon getCannon(){
+        return cannon;
+    }
+    public ProjectilePool getProjectiles(){
+        return projectiles;
+    }
+    public EntityStore getBlockers(){
+        return blockers;
+    }
+    public EntityStore getTargets(){
+        return targets;
+    }
+    public boolean isGameOver(){
+        return gameOver;
+    }
+    public double getTimeLeft(){
+        return timeLeft;
+    }
+    public int getShotsFired(){
+        return shotsFired;
+    }
+    public double getTotalElapsedTime(){
+        return totalElapsedTime;
+    }
+}
@@ -0,0 +1,45 @@
+package br.com.progiv.cannongame;
+
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.view.Surface;
+import android.view.SurfaceHolder;
+
+//canvas acelerado por hardware (Surface.lockHardwareCanvas, API 23+)
+//o conteúdo do quadro anterior não é preservado: sempre redesenha a tela toda
+public class HardwareRenderBackend implements RenderBackend {
+    private final SurfaceHolder surfaceHolder;
+    private Surface lockedSurface; //superfície do canvas bloqueado
+
+    public HardwareRenderBackend(SurfaceHolder surfaceHolder){
+        this.surfaceHolder = surfaceHolder;
+    }
+
+    @Override
+    public Canvas lockCanvas(Rect dirty) {
+        Surface surface = surfaceHolder.getSurface();
+        if(surface == null || !surface.isValid())
+            return null;
+        Canvas canvas = surface.lockHardwareCanvas();
+        lockedSurface = surface;
+        return canvas;
+    }
+
+    @Override
+    public void unlockCanvasAndPost(Canvas canvas) {
+        Surface surface = lockedSurface;
+        lockedSurface = null;
+        if(surface != null)
+            surface.unlockCanvasAndPost(canvas);
+    }
+
+    @Override
+    public boolean supportsDirtyRegions() {
+        return false;
+    }
+
+    @Override
+    public int getType() {
+        return HARDWARE;
+    }
+}
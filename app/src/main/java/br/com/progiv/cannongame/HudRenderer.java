@@ -0,0 +1,48 @@
+package br.com.progiv.cannongame;
+
+import android.content.res.Resources;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+import java.text.DecimalFormatSymbols;
+
+//desenha o HUD (tempo restante, tiros disparados e tempo decorrido) sem alocar memória por quadro
+public class HudRenderer {
+    private final HudText timeRemaining;
+    private final HudText shotsFired;
+    private final HudText elapsedTime;
+
+    //construtor: os textos fixos vêm dos recursos, uma única vez
+    public HudRenderer(Resources resources){
+        char decimalSeparator = DecimalFormatSymbols.getInstance().getDecimalSeparator();
+        String secondsSuffix = resources.getString(R.string.time_remaining_suffix);
+        timeRemaining = new HudText(resources.getString(R.string.time_remaining_prefix), secondsSuffix, 1, decimalSeparator);
+        shotsFired = new HudText(resources.getString(R.string.shots_fired_prefix), "", 0, decimalSeparator);
+        elapsedTime = new HudText(resources.getString(R.string.elapsed_time_prefix), secondsSuffix, 1, decimalSeparator);
+    }
+
+    //atualiza as linhas com o instantâneo; retorna true se o texto de alguma mudou
+    public boolean update(WorldSnapshot world){
+        //cada linha só é formatada de novo quando o valor exibido muda
+        boolean changed = timeRemaining.setValue(world.getTimeLeft());
+        changed |= shotsFired.setValue(world.getShotsFired());
+        changed |= elapsedTime.setValue(world.getTotalElapsedTime());
+        return changed;
+    }
+
+    //largura da linha mais longa com a fonte de paint
+    public float getWidth(Paint paint){
+        float width = paint.measureText(timeRemaining.getChars(), 0, timeRemaining.length());
+        width = Math.max(width, paint.measureText(shotsFired.getChars(), 0, shotsFired.length()));
+        return Math.max(width, paint.measureText(elapsedTime.getChars(), 0, elapsedTime.length()));
+    }
+
+    //desenha as três linhas a partir de (x, y), uma abaixo da outra
+    public void draw(Canvas canvas, WorldSnapshot world, float x, float y, Paint paint){
+        update(world);
+        float lineHeight = paint.getTextSize() * 1.2f;
+        canvas.drawText(timeRemaining.getChars(), 0, timeRemaining.length(), x, y, paint);
+        canvas.drawText(shotsFired.getChars(), 0, shotsFired.length(), x, y + lineHeight, paint);
+        canvas.drawText(elapsedTime.getChars(), 0, elapsedTime.length(), x, y + 2 * lineHeight, paint);
+    }
+}
@@ -0,0 +1,76 @@
+package br.com.progiv.cannongame;
+
+//linha de texto do HUD formatada em um char[] reutilizado, sem criar Strings a cada quadro
+//o número só é formatado de novo quando o valor exibido (já arredondado) muda
+public class HudText {
+    private static final int MAX_DIGITS = 20;
+
+    private final char[] prefix;
+    private final char[] suffix;
+    private final int decimals; //casas decimais exibidas
+    private final char decimalSeparator;
+    private final long scale; //10 ^ decimals
+    private final char[] buffer;
+    private final char[] digits = new char[MAX_DIGITS];
+    private int length;
+    private long shownValue = Long.MIN_VALUE; //valor exibido, multiplicado por scale
+
+    //construtor
+    public HudText(String prefix, String suffix, int decimals, char decimalSeparator){
+        this.prefix = prefix.toCharArray();
+        this.suffix = suffix.toCharArray();
+        this.decimals = decimals;
+        this.decimalSeparator = decimalSeparator;
+        long s = 1;
+        for(int n = 0; n < decimals; n++)
+            s *= 10;
+        scale = s;
+        buffer = new char[this.prefix.length + MAX_DIGITS + 2 + this.suffix.length];
+        System.arraycopy(this.prefix, 0, buffer, 0, this.prefix.length);
+    }
+
+    //atualiza o valor; retorna true se o texto mudou
+    public boolean setValue(double value){
+        //arredonda como String.format (metade para longe do zero)
+        long scaled = value >= 0 ? (long)(value * scale + 0.5) : -(long)(-value * scale + 0.5);
+        if(scaled == shownValue)
+            return false;
+        shownValue = scaled;
+        format(scaled);
+        return true;
+    }
+
+    //atualiza com um valor inteiro (sem casas decimais)
+    public boolean setValue(long value){
+        return setValue((double)value);
+    }
+
+    //escreve prefixo + número + sufixo em buffer
+    private void format(long scaled){
+        int position = prefix.length;
+        if(scaled < 0){
+            buffer[position++] = '-';
+            scaled = -scaled;
+        }
+        //dígitos do fim para o começo, incluindo as casas decimais
+        int count = 0;
+        do{
+            digits[count++] = (char)('0' + scaled % 10);
+            scaled /= 10;
+        }while(scaled > 0 || count <= decimals);
+        for(int n = count - 1; n >= 0; n--){
+            buffer[position++] = digits[n];
+            if(n == decimals && decimals > 0)
+                buffer[position++] = decimalSeparator;
+        }
+        System.arraycopy(suffix, 0, buffer, position, suffix.length);
+        length = position + suffix.length;
+    }
+
+    public char[] getChars(){
+        return buffer;
+    }
+    public int length(){
+        return length;
+    }
+}
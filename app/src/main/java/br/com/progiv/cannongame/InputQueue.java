@@ -0,0 +1,90 @@
+package br.com.progiv.cannongame;
+
+//fila circular de eventos de toque entre a thread da interface (produtora) e a thread do jogo (consumidora)
+//um único produtor e um único consumidor: sem locks, só os índices head/tail voláteis; sem alocação após a criação
+public class InputQueue {
+    //tipos de evento
+    public static final int PRESS = 0; //dedo na tela: puxa o gatilho e mira
+    public static final int MOVE = 1; //dedo arrastado: mira com o gatilho puxado
+    public static final int RELEASE = 2; //dedo fora da tela: solta o gatilho
+
+    public static final int DEFAULT_CAPACITY = 256; //~1 s de toques a 240 Hz
+
+    //recebe os eventos retirados da fila
+    public interface Handler {
+        void onInput(int type, int x, int y);
+    }
+
+    private final int[] types;
+    private final int[] xs;
+    private final int[] ys;
+    private final int mask;
+    private volatile long head; //próximo evento a ler (escrito só pelo consumidor)
+    private volatile long tail; //próxima posição a escrever (escrito só pelo produtor)
+    private long cachedHead; //última leitura de head feita pelo produtor
+    private volatile long droppedEvents; //eventos descartados com a fila cheia (escrito só pelo produtor)
+    private volatile long droppedReleases; //RELEASEs descartados (escrito só pelo produtor)
+    private long handledDroppedReleases; //RELEASEs descartados já tratados pelo consumidor
+
+    //capacity é arredondada para a próxima potência de 2
+    public InputQueue(int capacity){
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        types = new int[size];
+        xs = new int[size];
+        ys = new int[size];
+        mask = size - 1;
+    }
+
+    //produtor: publica um evento; retorna false (e descarta) se a fila estiver cheia
+    public boolean offer(int type, int x, int y){
+        long t = tail;
+        if(t - cachedHead >= types.length){
+            cachedHead = head;
+            if(t - cachedHead >= types.length){
+                droppedEvents = droppedEvents + 1;
+                if(type == RELEASE)
+                    droppedReleases = droppedReleases + 1;
+                return false;
+            }
+        }
+        int slot = (int)t & mask;
+        types[slot] = type;
+        xs[slot] = x;
+        ys[slot] = y;
+        tail = t + 1; //escrita volátil: publica o evento
+        return true;
+    }
+
+    //consumidor: entrega os eventos pendentes em ordem; MOVEs consecutivos viram só o último
+    //retorna quantos eventos foram retirados da fila
+    public int drain(Handler handler){
+        long h = head;
+        long t = tail; //leitura volátil: os eventos até t estão visíveis
+        for(long i = h; i < t; i++){
+            int slot = (int)i & mask;
+            int type = types[slot];
+            if(type == MOVE && i + 1 < t && types[(int)(i + 1) & mask] == MOVE)
+                continue;
+            handler.onInput(type, xs[slot], ys[slot]);
+        }
+        head = t; //libera as posições para o produtor
+        //um RELEASE perdido deixaria o gatilho puxado: solta o gatilho mesmo assim
+        long releases = droppedReleases;
+        if(releases != handledDroppedReleases){
+            handledDroppedReleases = releases;
+            handler.onInput(RELEASE, 0, 0);
+        }
+        return (int)(t - h);
+    }
+
+    //eventos à espera do consumidor (aproximado se lido fora das duas threads)
+    public int size(){
+        return (int)(tail - head);
+    }
+    public int getCapacity(){
+        return types.length;
+    }
+    public long getDroppedEvents(){
+        return droppedEvents;
+    }
+}
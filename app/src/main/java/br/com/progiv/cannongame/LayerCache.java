@@ -0,0 +1,71 @@
+package br.com.progiv.cannongame;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+//camada estática pré-desenhada em um Bitmap: fundo e canhão
+//só é redesenhada quando a tela muda de tamanho ou o cano do canhão muda de ângulo
+public class LayerCache {
+    private final Paint backgroundPaint;
+    private final Paint cannonPaint;
+    private Bitmap bitmap;
+    private Canvas bitmapCanvas;
+    private boolean valid;
+    private int cachedBarrelEndX;
+    private int cachedBarrelEndY;
+    private int cachedBaseRadius;
+
+    //construtor
+    public LayerCache(Paint backgroundPaint, Paint cannonPaint){
+        this.backgroundPaint = backgroundPaint;
+        this.cannonPaint = cannonPaint;
+    }
+
+    //força o redesenho no próximo update (ex.: mudança de tamanho da tela)
+    public void invalidate(){
+        valid = false;
+    }
+
+    //garante que a camada corresponda ao tamanho e ao canhão do instantâneo; retorna true se foi redesenhada
+    public boolean update(int width, int height, WorldSnapshot snapshot){
+        if(width <= 0 || height <= 0)
+            return false;
+        if(bitmap == null || bitmap.getWidth() != width || bitmap.getHeight() != height){
+            if(bitmap != null)
+                bitmap.recycle();
+            bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            bitmapCanvas = new Canvas(bitmap);
+            valid = false;
+        }
+        if(valid && snapshot.getBarrelEndX() == cachedBarrelEndX && snapshot.getBarrelEndY() == cachedBarrelEndY
+                && snapshot.getBaseRadius() == cachedBaseRadius)
+            return false;
+        //fundo
+        bitmapCanvas.drawRect(0, 0, width, height, backgroundPaint);
+        //cano e base do canhão
+        bitmapCanvas.drawLine(0, height / 2, snapshot.getBarrelEndX(), snapshot.getBarrelEndY(), cannonPaint);
+        bitmapCanvas.drawCircle(0, height / 2, snapshot.getBaseRadius(), cannonPaint);
+        cachedBarrelEndX = snapshot.getBarrelEndX();
+        cachedBarrelEndY = snapshot.getBarrelEndY();
+        cachedBaseRadius = snapshot.getBaseRadius();
+        valid = true;
+        return true;
+    }
+
+    //desenha a camada no canvas
+    public void draw(Canvas canvas){
+        if(bitmap != null)
+            canvas.drawBitmap(bitmap, 0, 0, null);
+    }
+
+    //libera o bitmap
+    public void release(){
+        if(bitmap != null){
+            bitmap.recycle();
+            bitmap = null;
+            bitmapCanvas = null;
+        }
+        valid = false;
+    }
+}
@@ -0,0 +1,144 @@
+package br.com.progiv.cannongame;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+//pacote de níveis em formato binário, lido direto de um arquivo mapeado em memória
+//ao abrir só o cabeçalho e o índice são lidos; cada nível é decodificado quando carregado,
+//direto para os EntityStores do mundo (a única alocação é o crescimento dos stores)
+//
+//formato (big-endian):
+//  cabeçalho: int MAGIC, short VERSION, short reservado, int número de níveis
+//  índice: para cada nível, int deslocamento e int tamanho (em bytes, a partir do início do pacote)
+//  nível: short tamanho do nome, nome em UTF-8, float tempo inicial, int barreiras, int alvos,
+//         depois as barreiras e os alvos, cada um com float x, y, largura, altura, velocidade vertical,
+//         short valor (segundos) e int cor
+//  x e largura são frações da largura da tela; y, altura e velocidade (por segundo), da altura da tela
+//o pacote é gerado a partir do texto pelo LevelCompiler, no módulo benchmark (fora do APK)
+public class LevelPack {
+    public static final int MAGIC = 0x43474C50; //"CGLP"
+    public static final short VERSION = 1;
+    static final int HEADER_SIZE = 12;
+    static final int INDEX_ENTRY_SIZE = 8;
+    static final int LEVEL_FIXED_SIZE = 2 + 4 + 4 + 4; //sem o nome
+    static final int ENTITY_SIZE = 5 * 4 + 2 + 4;
+
+    private final ByteBuffer buffer;
+    private final int levelCount;
+
+    //lê e valida o cabeçalho e o índice; buffer pode ser um MappedByteBuffer ou um array
+    public LevelPack(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        int base = buffer.position();
+        if(buffer.remaining() < HEADER_SIZE || buffer.getInt(base) != MAGIC)
+            throw new IOException("Not a level pack");
+        if(buffer.getShort(base + 4) != VERSION)
+            throw new IOException("Unsupported level pack version " + buffer.getShort(base + 4));
+        levelCount = buffer.getInt(base + 8);
+        if(levelCount < 0 || HEADER_SIZE + (long)levelCount * INDEX_ENTRY_SIZE > buffer.remaining())
+            throw new IOException("Corrupt level pack index");
+        for(int level = 0; level < levelCount; level++){
+            long offset = buffer.getInt(indexEntry(level));
+            long length = buffer.getInt(indexEntry(level) + 4);
+            if(offset < 0 || length < LEVEL_FIXED_SIZE || offset + length > buffer.remaining()
+                    || LEVEL_FIXED_SIZE + (buffer.getShort(levelStart(level)) & 0xFFFF) > length)
+                throw new IOException("Corrupt level pack entry " + level);
+            //em long: a soma de duas contagens corrompidas pode estourar o int
+            long entities = (long)getBlockerCount(level) + getTargetCount(level);
+            if(getBlockerCount(level) < 0 || getTargetCount(level) < 0
+                    || entitiesStart(level) + entities * ENTITY_SIZE > levelStart(level) + length)
+                throw new IOException("Corrupt level " + level);
+        }
+    }
+
+    //mapeia o arquivo inteiro
+    public static LevelPack open(File file) throws IOException {
+        RandomAccessFile input = new RandomAccessFile(file, "r");
+        try{
+            return map(input.getChannel(), 0, input.length());
+        }finally {
+            input.close(); //o mapeamento continua válido depois de fechar o arquivo
+        }
+    }
+
+    //mapeia um trecho de um arquivo (ex.: AssetFileDescriptor de um asset não comprimido)
+    public static LevelPack map(FileChannel channel, long offset, long length) throws IOException {
+        return new LevelPack(channel.map(FileChannel.MapMode.READ_ONLY, offset, length));
+    }
+
+    public int getLevelCount(){
+        return levelCount;
+    }
+
+    //nome do nível (aloca a String: usar fora do laço do jogo)
+    public String getLevelName(int level){
+        int start = levelStart(level);
+        int length = buffer.getShort(start) & 0xFFFF;
+        byte[] name = new byte[length];
+        for(int i = 0; i < length; i++)
+            name[i] = buffer.get(start + 2 + i);
+        return new String(name, Charset.forName("UTF-8"));
+    }
+
+    //tempo inicial da contagem regressiva, em segundos
+    public double getInitialTime(int level){
+        return buffer.getFloat(countsStart(level) - 4);
+    }
+    public int getBlockerCount(int level){
+        return buffer.getInt(countsStart(level));
+    }
+    public int getTargetCount(int level){
+        return buffer.getInt(countsStart(level) + 4);
+    }
+
+    //decodifica as barreiras e os alvos do nível para os stores, em pixels da tela informada
+    public void load(int level, EntityStore blockers, EntityStore targets, int screenWidth, int screenHeight){
+        int blockerCount = getBlockerCount(level);
+        int targetCount = getTargetCount(level);
+        int position = entitiesStart(level);
+        blockers.clear();
+        blockers.ensureCapacity(blockerCount);
+        position = decode(position, blockerCount, blockers, screenWidth, screenHeight);
+        targets.clear();
+        targets.ensureCapacity(targetCount);
+        decode(position, targetCount, targets, screenWidth, screenHeight);
+    }
+
+    private int decode(int position, int count, EntityStore store, int screenWidth, int screenHeight){
+        for(int n = 0; n < count; n++){
+            //posições e tamanhos truncados para pixels inteiros, como no tabuleiro padrão
+            store.add(
+                    (int)(buffer.getFloat(position) * screenWidth),
+                    (int)(buffer.getFloat(position + 4) * screenHeight),
+                    (int)(buffer.getFloat(position + 8) * screenWidth),
+                    (int)(buffer.getFloat(position + 12) * screenHeight),
+                    buffer.getFloat(position + 16) * screenHeight,
+                    buffer.getShort(position + 20),
+                    buffer.getInt(position + 22)
+            );
+            position += ENTITY_SIZE;
+        }
+        return position;
+    }
+
+    private int indexEntry(int level){
+        if(level < 0 || level >= levelCount)
+            throw new IndexOutOfBoundsException("Level " + level + " of " + levelCount);
+        return buffer.position() + HEADER_SIZE + level * INDEX_ENTRY_SIZE;
+    }
+    private int levelStart(int level){
+        return buffer.position() + buffer.getInt(indexEntry(level));
+    }
+    //posição do número de barreiras (logo depois do nome e do tempo inicial)
+    private int countsStart(int level){
+        int start = levelStart(level);
+        return start + 2 + (buffer.getShort(start) & 0xFFFF) + 4;
+    }
+    private int entitiesStart(int level){
+        return countsStart(level) + 8;
+    }
+}
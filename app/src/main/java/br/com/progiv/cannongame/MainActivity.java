@@ -5,10 +5,17 @@ import androidx.appcompat.app.AppCompatActivity;
 import android.os.Bundle;
 
 public class MainActivity extends AppCompatActivity {
+    private AssetPreloader assetPreloader; //sons carregados em paralelo com a criação do layout
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        //começa a carregar os sons antes de inflar o layout
+        assetPreloader = new AssetPreloader(this);
         setContentView(R.layout.activity_main);
     }
+
+    public AssetPreloader getAssetPreloader(){
+        return assetPreloader;
+    }
 }
\ No newline at end of file
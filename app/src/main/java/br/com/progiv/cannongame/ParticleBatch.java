@@ -0,0 +1,126 @@
+package br.com.progiv.cannongame;
+
+//partículas de um quadro prontas para o desenho: as posições (x, y intercalados) ficam agrupadas por cor e
+//por faixa de transparência, para cada grupo sair em uma chamada só (Canvas.drawPoints)
+//preenchido por ParticleSystem.writeBatch em duas passadas: conta os grupos e depois distribui as posições
+public class ParticleBatch {
+    public static final int FADE_LEVELS = 4; //faixas de transparência conforme a idade da partícula
+
+    private float[] points = new float[0];
+    private int[] palette = new int[ParticleSystem.INITIAL_COLORS];
+    private int[] groupStart = new int[ParticleSystem.INITIAL_COLORS * FADE_LEVELS]; //primeira partícula de cada grupo
+    private int[] groupSize = new int[groupStart.length];
+    private int[] fill = new int[groupStart.length]; //próxima posição livre de cada grupo
+    private int groupCount;
+    private int size;
+
+    //área ocupada pelas partículas, em pixels
+    private float left;
+    private float top;
+    private float right;
+    private float bottom;
+
+    //começa um quadro com até capacity partículas e a paleta do sistema
+    void begin(int capacity, int colorCount, int[] palette){
+        if(points.length < 2 * capacity)
+            points = new float[2 * capacity]; //só no primeiro quadro ou se a capacidade aumentar
+        if(this.palette.length < colorCount){
+            //só quando a paleta do sistema cresce
+            this.palette = new int[palette.length];
+            groupStart = new int[palette.length * FADE_LEVELS];
+            groupSize = new int[groupStart.length];
+            fill = new int[groupStart.length];
+        }
+        System.arraycopy(palette, 0, this.palette, 0, colorCount);
+        groupCount = colorCount * FADE_LEVELS;
+        for(int g = 0; g < groupCount; g++)
+            groupSize[g] = 0;
+        size = 0;
+        left = Float.MAX_VALUE;
+        top = Float.MAX_VALUE;
+        right = -Float.MAX_VALUE;
+        bottom = -Float.MAX_VALUE;
+    }
+
+    //primeira passada: conta uma partícula com a idade progress (0 a 1) da vida
+    void count(int colorIndex, float progress){
+        ++groupSize[group(colorIndex, progress)];
+    }
+
+    //fim da contagem: cada grupo ganha seu trecho de points
+    void endCounting(){
+        int start = 0;
+        for(int g = 0; g < groupCount; g++){
+            groupStart[g] = start;
+            fill[g] = start;
+            start += groupSize[g];
+        }
+        size = start;
+    }
+
+    //segunda passada: guarda a posição no trecho do grupo
+    void add(int colorIndex, float progress, float x, float y){
+        int p = fill[group(colorIndex, progress)]++;
+        points[2 * p] = x;
+        points[2 * p + 1] = y;
+        if(x < left)
+            left = x;
+        if(x > right)
+            right = x;
+        if(y < top)
+            top = y;
+        if(y > bottom)
+            bottom = y;
+    }
+
+    private static int group(int colorIndex, float progress){
+        int fade = (int)(progress * FADE_LEVELS);
+        return colorIndex * FADE_LEVELS + (fade < FADE_LEVELS ? fade : FADE_LEVELS - 1);
+    }
+
+    //esvazia o lote (mundo sem partículas)
+    public void clear(){
+        groupCount = 0;
+        size = 0;
+    }
+
+    //posições de todas as partículas, x e y intercalados, grupo após grupo
+    public float[] getPoints(){
+        return points;
+    }
+    public int size(){
+        return size;
+    }
+    public boolean isEmpty(){
+        return size == 0;
+    }
+    public int getGroupCount(){
+        return groupCount;
+    }
+    //primeira partícula do grupo (o x dela está em getPoints()[2 * getGroupStart(group)])
+    public int getGroupStart(int group){
+        return groupStart[group];
+    }
+    public int getGroupSize(int group){
+        return groupSize[group];
+    }
+    //cor do grupo, com a transparência da faixa de idade (as mais velhas mais transparentes)
+    public int getGroupColor(int group){
+        int color = palette[group / FADE_LEVELS];
+        int fade = group % FADE_LEVELS;
+        int alpha = (color >>> 24) * (FADE_LEVELS - fade) / FADE_LEVELS;
+        return (alpha << 24) | (color & 0x00FFFFFF);
+    }
+    public float getLeft(){
+        return left;
+    }
+    public float getTop(){
+        return top;
+    }
+    public float getRight(){
+        return right;
+    }
+    public float getBottom(){
+        return bottom;
+    }
+}
@@ -0,0 +1,229 @@
+package br.com.progiv.cannongame;
+
+import java.util.Arrays;
+
+//partículas dos efeitos (acerto no alvo, batida na barreira, disparo) em arrays paralelos pré-alocados
+//as partículas vivem em um buffer circular: as novas entram no fim e as mais antigas saem do início;
+//com o buffer cheio, a partícula mais antiga é substituída (capacity é o limite de partículas vivas)
+//as cores vêm de uma paleta, para o desenho agrupar as partículas por cor (ParticleBatch); a paleta cresce com
+//as cores novas até MAX_COLORS e, depois disso, cada cor nova usa a mais próxima da paleta (contado em getColorOverflows)
+//emissão, atualização e cópia para o desenho sem alocar memória; usado só pela thread da simulação
+public class ParticleSystem {
+    public static final int MAX_COLORS = 256; //cores distintas por jogo (o índice é um byte)
+    static final int INITIAL_COLORS = 16;
+    public static final float LIFETIME_VARIATION = 0.25f; //vida de cada partícula entre 75% e 125% da pedida
+
+    private final int capacity;
+    private int head; //índice da partícula mais antiga
+    private int count; //partículas no buffer (vivas ou já expiradas depois da cabeça)
+
+    //posição e velocidade, em pixels e pixels por segundo
+    private final float[] x;
+    private final float[] y;
+    private final float[] velocityX;
+    private final float[] velocityY;
+    private final float[] age; //segundos desde a emissão
+    private final float[] lifetime; //segundos de vida
+    private final byte[] colorIndex; //índice na paleta
+
+    private int[] palette = new int[INITIAL_COLORS];
+    private int colorCount;
+    private long colorOverflows; //emissões com a paleta cheia, desenhadas com a cor mais próxima
+    private float gravity; //aceleração vertical, em pixels por segundo ao quadrado
+    private volatile float emissionScale = 1f; //fração das partículas pedidas que é emitida (qualidade adaptativa)
+    private int seed = 0x9E3779B9; //gerador xorshift: os efeitos não usam o Random do jogo
+    private long emitted;
+    private long overwritten; //partículas substituídas antes do fim da vida por falta de espaço
+
+    //construtor: capacity é o máximo de partículas vivas
+    public ParticleSystem(int capacity){
+        this.capacity = Math.max(capacity, 1);
+        x = new float[this.capacity];
+        y = new float[this.capacity];
+        velocityX = new float[this.capacity];
+        velocityY = new float[this.capacity];
+        age = new float[this.capacity];
+        lifetime = new float[this.capacity];
+        colorIndex = new byte[this.capacity];
+    }
+
+    //remove todas as partículas e esvazia a paleta (novo jogo)
+    public void clear(){
+        head = 0;
+        count = 0;
+        colorCount = 0;
+    }
+
+    public void setGravity(float gravity){
+        this.gravity = gravity;
+    }
+    //fração das partículas emitidas, de 0 a 1 (ex.: QualityGovernor.getEffectsScale)
+    public void setEmissionScale(float emissionScale){
+        this.emissionScale = emissionScale;
+    }
+    public float getEmissionScale(){
+        return emissionScale;
+    }
+
+    //emite count partículas a partir de (x, y), em direções sorteadas no leque direction ± spread / 2 (radianos,
+    //0 é para a direita e PI / 2 para baixo), com velocidades entre metade e o total de speed
+    public void emit(float x, float y, int count, int color, float direction, float spread, float speed, float lifetime){
+        int n = Math.round(count * emissionScale);
+        if(n <= 0)
+            return;
+        byte index = colorIndexOf(color);
+        for(int i = 0; i < n; i++){
+            int p;
+            if(this.count == capacity){
+                //sem espaço: a mais antiga dá lugar à nova
+                p = head;
+                head = next(head);
+                if(age[p] < this.lifetime[p])
+                    ++overwritten;
+            }else{
+                p = head + this.count;
+                if(p >= capacity)
+                    p -= capacity;
+                ++this.count;
+            }
+            double angle = direction + (nextFloat() - 0.5f) * spread;
+            float v = speed * (0.5f + 0.5f * nextFloat());
+            this.x[p] = x;
+            this.y[p] = y;
+            velocityX[p] = (float)(v * Math.cos(angle));
+            velocityY[p] = (float)(v * Math.sin(angle));
+            age[p] = 0;
+            this.lifetime[p] = lifetime * (1 + LIFETIME_VARIATION * (2 * nextFloat() - 1));
+            colorIndex[p] = index;
+        }
+        emitted += n;
+    }
+
+    //move as partículas e descarta as expiradas do início do buffer
+    //as que expiram antes das mais antigas continuam no buffer até chegar a vez delas, mas não são desenhadas
+    public void update(double interval){
+        if(count == 0)
+            return;
+        float dt = (float)interval;
+        //o buffer circular são no máximo dois trechos contíguos
+        int end = head + count;
+        if(end <= capacity){
+            update(head, end, dt);
+        }else{
+            update(head, capacity, dt);
+            update(0, end - capacity, dt);
+        }
+        while(count > 0 && age[head] >= lifetime[head]){
+            head = next(head);
+            --count;
+        }
+    }
+    private void update(int from, int to, float dt){
+        float dv = gravity * dt;
+        for(int p = from; p < to; p++){
+            velocityY[p] += dv;
+            x[p] += velocityX[p] * dt;
+            y[p] += velocityY[p] * dt;
+            age[p] += dt;
+        }
+    }
+
+    //copia as partículas vivas para o lote de desenho, agrupadas por cor e por faixa de transparência
+    public void writeBatch(ParticleBatch batch){
+        batch.begin(capacity, colorCount, palette);
+        int end = head + count;
+        if(end <= capacity){
+            countGroups(batch, head, end);
+            batch.endCounting();
+            fillGroups(batch, head, end);
+        }else{
+            countGroups(batch, head, capacity);
+            countGroups(batch, 0, end - capacity);
+            batch.endCounting();
+            fillGroups(batch, head, capacity);
+            fillGroups(batch, 0, end - capacity);
+        }
+    }
+    private void countGroups(ParticleBatch batch, int from, int to){
+        for(int p = from; p < to; p++)
+            if(age[p] < lifetime[p])
+                batch.count(colorIndex[p] & 0xFF, age[p] / lifetime[p]);
+    }
+    private void fillGroups(ParticleBatch batch, int from, int to){
+        for(int p = from; p < to; p++)
+            if(age[p] < lifetime[p])
+                batch.add(colorIndex[p] & 0xFF, age[p] / lifetime[p], x[p], y[p]);
+    }
+
+    private byte colorIndexOf(int color){
+        for(int c = 0; c < colorCount; c++)
+            if(palette[c] == color)
+                return (byte)c;
+        if(colorCount == MAX_COLORS){
+            ++colorOverflows;
+            return (byte)closestColor(color);
+        }
+        if(colorCount == palette.length)
+            palette = Arrays.copyOf(palette, Math.min(2 * palette.length, MAX_COLORS)); //só quando aparece uma cor nova
+        palette[colorCount] = color;
+        return (byte)colorCount++;
+    }
+
+    //cor da paleta mais parecida (distância entre os canais ARGB)
+    private int closestColor(int color){
+        int best = 0;
+        int bestDistance = Integer.MAX_VALUE;
+        for(int c = 0; c < colorCount; c++){
+            int distance = 0;
+            for(int shift = 0; shift < 32; shift += 8){
+                int d = ((palette[c] >>> shift) & 0xFF) - ((color >>> shift) & 0xFF);
+                distance += d * d;
+            }
+            if(distance < bestDistance){
+                best = c;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+
+    private int next(int index){
+        return index + 1 == capacity ? 0 : index + 1;
+    }
+
+    //número entre 0 (inclusive) e 1 (exclusive)
+    private float nextFloat(){
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        return (seed >>> 8) / (float)(1 << 24);
+    }
+
+    public int getCapacity(){
+        return capacity;
+    }
+    //partículas no buffer, incluindo as expiradas que ainda não chegaram ao início
+    public int size(){
+        return count;
+    }
+    //partículas ainda vivas
+    public int getLiveCount(){
+        int live = 0;
+        for(int i = 0, p = head; i < count; i++, p = next(p))
+            if(age[p] < lifetime[p])
+                ++live;
+        return live;
+    }
+    public long getEmitted(){
+        return emitted;
+    }
+    public long getOverwritten(){
+        return overwritten;
+    }
+    public int getColorCount(){
+        return colorCount;
+    }
+    public long getColorOverflows(){
+        return colorOverflows;
+    }
+}
@@ -0,0 +1,98 @@
+package br.com.progiv.cannongame;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+
+//sobreposição de depuração com p50/p95/p99/max de cada fase do quadro, em ms, as contagens de jank e o nível de qualidade
+//os números são formatados em buffers pré-alocados (HudText), sem alocar memória por quadro
+public class ProfilerOverlay {
+    private static final String HEADER = "ms";
+    private static final String[] COLUMN_NAMES = {"p50", "p95", "p99", "max"};
+    private static final int ROWS = FrameProfiler.PHASE_COUNT + 2; //cabeçalho, fases e jank
+
+    private final FrameProfiler profiler;
+    private final Paint paint = new Paint();
+    private final Paint backgroundPaint = new Paint();
+    private final HudText[][] cells = new HudText[FrameProfiler.PHASE_COUNT][COLUMN_NAMES.length];
+    private final HudText frames = new HudText("frames ", "", 0, '.');
+    private final HudText jank = new HudText("jank ", "", 0, '.');
+    private final HudText severeJank = new HudText("severe ", "", 0, '.');
+    private final HudText quality = new HudText("quality ", "", 0, '.');
+    private QualityGovernor qualityGovernor; //opcional
+
+    public ProfilerOverlay(FrameProfiler profiler){
+        this.profiler = profiler;
+        for(int phase = 0; phase < cells.length; phase++)
+            for(int column = 0; column < COLUMN_NAMES.length; column++)
+                cells[phase][column] = new HudText("", "", 2, '.');
+        paint.setTypeface(Typeface.MONOSPACE);
+        paint.setAntiAlias(true);
+        paint.setColor(0xFFFFFFFF);
+        backgroundPaint.setColor(0xA0000000);
+    }
+
+    //mostra o nível do controle de qualidade adaptativa na linha do jank
+    public void setQualityGovernor(QualityGovernor qualityGovernor){
+        this.qualityGovernor = qualityGovernor;
+    }
+
+    //tamanho do texto da sobreposição
+    public void setTextSize(float textSize){
+        paint.setTextSize(textSize);
+    }
+
+    //altura ocupada na tela
+    public float getHeight(){
+        return ROWS * getLineHeight();
+    }
+
+    //largura ocupada na tela (coluna dos nomes e as colunas de valores)
+    public float getWidth(){
+        return paint.getTextSize() * (6f + COLUMN_NAMES.length * 4.5f);
+    }
+
+    private float getLineHeight(){
+        return paint.getTextSize() * 1.2f;
+    }
+
+    //desenha a tabela com o canto superior esquerdo em (x, y)
+    public void draw(Canvas canvas, float x, float y){
+        float lineHeight = getLineHeight();
+        float columnWidth = paint.getTextSize() * 4.5f;
+        float firstColumn = x + paint.getTextSize() * 6f;
+        canvas.drawRect(x, y, firstColumn + COLUMN_NAMES.length * columnWidth, y + getHeight(), backgroundPaint);
+
+        float baseline = y + paint.getTextSize();
+        canvas.drawText(HEADER, x, baseline, paint);
+        for(int column = 0; column < COLUMN_NAMES.length; column++)
+            canvas.drawText(COLUMN_NAMES[column], firstColumn + column * columnWidth, baseline, paint);
+
+        for(int phase = 0; phase < FrameProfiler.PHASE_COUNT; phase++){
+            baseline += lineHeight;
+            TimingHistogram histogram = profiler.getHistogram(phase);
+            canvas.drawText(FrameProfiler.getPhaseName(phase), x, baseline, paint);
+            drawCell(canvas, cells[phase][0], histogram.getPercentile(50), firstColumn, baseline);
+            drawCell(canvas, cells[phase][1], histogram.getPercentile(95), firstColumn + columnWidth, baseline);
+            drawCell(canvas, cells[phase][2], histogram.getPercentile(99), firstColumn + 2 * columnWidth, baseline);
+            drawCell(canvas, cells[phase][3], histogram.getMax(), firstColumn + 3 * columnWidth, baseline);
+        }
+
+        baseline += lineHeight;
+        frames.setValue(profiler.getFrameCount());
+        jank.setValue(profiler.getJankFrames());
+        severeJank.setValue(profiler.getSevereJankFrames());
+        canvas.drawText(frames.getChars(), 0, frames.length(), x, baseline, paint);
+        canvas.drawText(jank.getChars(), 0, jank.length(), firstColumn + columnWidth, baseline, paint);
+        canvas.drawText(severeJank.getChars(), 0, severeJank.length(), firstColumn + 2 * columnWidth, baseline, paint);
+        if(qualityGovernor != null){
+            quality.setValue(qualityGovernor.getLevel());
+            canvas.drawText(quality.getChars(), 0, quality.length(), firstColumn + 3 * columnWidth, baseline, paint);
+        }
+    }
+
+    private void drawCell(Canvas canvas, HudText cell, long nanos, float x, float y){
+        cell.setValue(nanos / 1e6);
+        canvas.drawText(cell.getChars(), 0, cell.length(), x, y, paint);
+    }
+}
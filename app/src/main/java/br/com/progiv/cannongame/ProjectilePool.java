@@ -0,0 +1,52 @@
+package br.com.progiv.cannongame;
+
+//conjunto de balas pré-alocadas; as balas são recicladas em vez de recriadas a cada disparo
+//as balas ativas ficam sempre em balls[0 .. activeCount - 1]
+public class ProjectilePool {
+    private final CannonBall[] balls;
+    private int activeCount;
+
+    //construtor: cria todas as balas de uma vez
+    public ProjectilePool(GameWorld world, int capacity){
+        balls = new CannonBall[capacity];
+        for(int n = 0; n < capacity; n++)
+            balls[n] = new CannonBall(world, Cannon.COLOR, GameWorld.CANNON_SOUND_ID, 0, 0, 0, 0, 0);
+    }
+
+    //obtém uma bala livre ou null se todas estiverem em uso
+    public CannonBall acquire(){
+        if(activeCount == balls.length)
+            return null;
+        return balls[activeCount++];
+    }
+
+    //devolve a bala ativa da posição index; a última bala ativa passa a ocupar essa posição
+    public void release(int index){
+        CannonBall released = balls[index];
+        balls[index] = balls[--activeCount];
+        balls[activeCount] = released;
+    }
+
+    //devolve todas as balas
+    public void clear(){
+        activeCount = 0;
+    }
+
+    //retorna a bala ativa da posição index
+    public CannonBall get(int index){
+        return balls[index];
+    }
+    //número de balas ativas
+    public int size(){
+        return activeCount;
+    }
+    public boolean isEmpty(){
+        return activeCount == 0;
+    }
+    public boolean isFull(){
+        return activeCount == balls.length;
+    }
+    public int getCapacity(){
+        return balls.length;
+    }
+}
@@ -0,0 +1,156 @@
+package br.com.progiv.cannongame;
+
+import java.util.Arrays;
+
+//controle de qualidade adaptativo: observa o tempo de trabalho dos quadros em janelas e baixa ou sobe um nível
+//a decisão usa o percentil 90 da janela: acima do orçamento desce um nível; abaixo de UPGRADE_RATIO do orçamento
+//por upgradeWindows janelas seguidas sobe um nível (histerese); se a subida estoura logo na janela seguinte,
+//o nível volta e a próxima tentativa de subir espera o dobro de janelas, para não oscilar
+//gravação feita só pela thread do jogo e sem alocar memória; o nível pode ser lido de qualquer thread
+public class QualityGovernor {
+    public static final int FULL = 0; //tudo ligado
+    public static final int NO_ANTIALIAS = 1; //sem suavização de texto e bordas
+    public static final int FEWER_SUBSTEPS = 2; //menos passos de simulação para recuperar atraso
+    public static final int REDUCED_EFFECTS = 3; //efeitos visuais reduzidos
+    public static final int HALF_RESOLUTION = 4; //superfície com metade da resolução, ampliada pelo compositor
+    public static final int LEVEL_COUNT = 5;
+    private static final String[] LEVEL_NAMES = {"full", "no antialias", "fewer substeps", "reduced effects", "half resolution"};
+
+    public static final int DEFAULT_WINDOW_FRAMES = 60; //um segundo a 60 fps
+    public static final int REDUCED_CATCH_UP_STEPS = 2; //passos por quadro a partir de FEWER_SUBSTEPS
+    public static final float REDUCED_EFFECTS_SCALE = 0.25f; //fração dos efeitos mantida a partir de REDUCED_EFFECTS
+    private static final int PERCENTILE = 90;
+    private static final double UPGRADE_RATIO = 0.6; //folga exigida para subir de nível
+    private static final int UPGRADE_WINDOWS = 3; //janelas folgadas seguidas para subir de nível
+    private static final int MAX_UPGRADE_WINDOWS = 48;
+
+    private final long[] window; //tempos da janela atual
+    private final long[] sorted; //cópia ordenada para o percentil
+    private int frame; //quadros na janela atual
+    private volatile long frameBudgetNs;
+    private volatile boolean enabled = true;
+    private volatile boolean resetRequested;
+    private volatile int level = FULL;
+    private int calmWindows; //janelas seguidas abaixo do limite de subida
+    private int upgradeWindows = UPGRADE_WINDOWS;
+    private boolean justUpgraded; //a última janela terminou com uma subida
+    private volatile long lastPercentile;
+    private volatile long downgrades;
+    private volatile long upgrades;
+
+    //frameBudgetNs: tempo disponível por quadro; windowFrames: quadros por decisão
+    public QualityGovernor(long frameBudgetNs, int windowFrames){
+        this.frameBudgetNs = frameBudgetNs;
+        window = new long[windowFrames];
+        sorted = new long[windowFrames];
+    }
+
+    public static String getLevelName(int level){
+        return LEVEL_NAMES[level];
+    }
+
+    //registra o tempo de trabalho de um quadro; retorna true se o nível mudou
+    public boolean recordFrame(long frameNanos){
+        if(!enabled)
+            return false;
+        if(resetRequested){
+            resetRequested = false;
+            level = FULL;
+            frame = 0;
+            calmWindows = 0;
+            upgradeWindows = UPGRADE_WINDOWS;
+            justUpgraded = false;
+        }
+        window[frame++] = frameNanos;
+        if(frame < window.length)
+            return false;
+        frame = 0;
+        System.arraycopy(window, 0, sorted, 0, window.length);
+        Arrays.sort(sorted);
+        long percentile = sorted[(window.length - 1) * PERCENTILE / 100];
+        lastPercentile = percentile;
+        long budget = frameBudgetNs;
+        if(percentile > budget){
+            calmWindows = 0;
+            //a subida anterior não se sustentou: espera mais antes de tentar de novo
+            if(justUpgraded)
+                upgradeWindows = Math.min(MAX_UPGRADE_WINDOWS, upgradeWindows * 2);
+            justUpgraded = false;
+            if(level < LEVEL_COUNT - 1){
+                ++level;
+                ++downgrades;
+                return true;
+            }
+            return false;
+        }
+        //uma janela dentro do orçamento depois da subida: a subida valeu
+        if(justUpgraded)
+            upgradeWindows = UPGRADE_WINDOWS;
+        justUpgraded = false;
+        if(percentile < budget * UPGRADE_RATIO && level > FULL){
+            if(++calmWindows >= upgradeWindows){
+                calmWindows = 0;
+                justUpgraded = true;
+                --level;
+                ++upgrades;
+                return true;
+            }
+        }else{
+            calmWindows = 0;
+        }
+        return false;
+    }
+
+    //liga ou desliga o controle; desligado, volta à qualidade máxima
+    public void setEnabled(boolean enabled){
+        this.enabled = enabled;
+        if(!enabled)
+            requestReset();
+    }
+    public boolean isEnabled(){
+        return enabled;
+    }
+    //volta à qualidade máxima e descarta a janela atual no próximo quadro (seguro a partir de qualquer thread)
+    public void requestReset(){
+        level = FULL;
+        resetRequested = true;
+    }
+
+    public void setFrameBudget(long frameBudgetNs){
+        this.frameBudgetNs = frameBudgetNs;
+    }
+    public long getFrameBudget(){
+        return frameBudgetNs;
+    }
+    public int getLevel(){
+        return level;
+    }
+    //percentil 90 da última janela completa, em nanossegundos
+    public long getLastPercentile(){
+        return lastPercentile;
+    }
+    public long getDowngrades(){
+        return downgrades;
+    }
+    public long getUpgrades(){
+        return upgrades;
+    }
+    //janelas folgadas exigidas hoje para subir de nível
+    public int getUpgradeWindows(){
+        return upgradeWindows;
+    }
+
+    //o que cada nível desliga
+    public boolean isAntiAlias(){
+        return level < NO_ANTIALIAS;
+    }
+    public int getMaxCatchUpSteps(int fullSteps){
+        return level < FEWER_SUBSTEPS ? fullSteps : Math.min(fullSteps, REDUCED_CATCH_UP_STEPS);
+    }
+    public float getEffectsScale(){
+        return level < REDUCED_EFFECTS ? 1f : REDUCED_EFFECTS_SCALE;
+    }
+    public float getResolutionScale(){
+        return level < HALF_RESOLUTION ? 1f : 0.5f;
+    }
+}
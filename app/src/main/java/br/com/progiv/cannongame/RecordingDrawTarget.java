@@ -0,0 +1,104 @@
+package br.com.progiv.cannongame;
+
+//DrawTarget sem tela: grava cada chamada (tipo, cor, tamanho e primitivas) para os testes e benchmarks na JVM
+//os arrays só crescem quando um quadro tem mais chamadas ou primitivas que os anteriores
+public class RecordingDrawTarget implements DrawTarget {
+    public static final int LINES = 0;
+    public static final int POINTS = 1;
+    public static final int ROUND_POINTS = 2;
+
+    private int callCount;
+    private int[] type = new int[16];
+    private int[] color = new int[16];
+    private float[] size = new float[16];
+    private int[] dataStart = new int[16]; //início das primitivas da chamada em data
+    private int[] dataCount = new int[16]; //floats da chamada
+    private float[] data = new float[1024];
+    private int dataSize;
+    private long totalCalls; //chamadas desde a criação
+
+    //descarta as chamadas gravadas (início de um quadro)
+    public void reset(){
+        callCount = 0;
+        dataSize = 0;
+    }
+
+    @Override
+    public void drawLines(float[] lines, int offset, int count, int color, float width) {
+        record(LINES, lines, offset, count, color, width);
+    }
+
+    @Override
+    public void drawPoints(float[] points, int offset, int count, int color, float size, boolean round) {
+        record(round ? ROUND_POINTS : POINTS, points, offset, count, color, size);
+    }
+
+    private void record(int type, float[] source, int offset, int count, int color, float size){
+        if(callCount == this.type.length){
+            this.type = grow(this.type);
+            this.color = grow(this.color);
+            this.size = grow(this.size);
+            dataStart = grow(dataStart);
+            dataCount = grow(dataCount);
+        }
+        if(dataSize + count > data.length){
+            float[] grown = new float[Math.max(data.length * 2, dataSize + count)];
+            System.arraycopy(data, 0, grown, 0, dataSize);
+            data = grown;
+        }
+        int n = callCount++;
+        this.type[n] = type;
+        this.color[n] = color;
+        this.size[n] = size;
+        dataStart[n] = dataSize;
+        dataCount[n] = count;
+        System.arraycopy(source, offset, data, dataSize, count);
+        dataSize += count;
+        ++totalCalls;
+    }
+    private static int[] grow(int[] array){
+        int[] grown = new int[array.length * 2];
+        System.arraycopy(array, 0, grown, 0, array.length);
+        return grown;
+    }
+    private static float[] grow(float[] array){
+        float[] grown = new float[array.length * 2];
+        System.arraycopy(array, 0, grown, 0, array.length);
+        return grown;
+    }
+
+    //chamadas gravadas desde o último reset
+    public int getCallCount(){
+        return callCount;
+    }
+    public long getTotalCalls(){
+        return totalCalls;
+    }
+    public int getType(int call){
+        return type[call];
+    }
+    public int getColor(int call){
+        return color[call];
+    }
+    public float getSize(int call){
+        return size[call];
+    }
+    //primitivas (segmentos ou pontos) da chamada
+    public int getPrimitiveCount(int call){
+        return dataCount[call] / (type[call] == LINES ? 4 : 2);
+    }
+    //floats das primitivas da chamada, a partir de getDataStart
+    public float[] getData(){
+        return data;
+    }
+    public int getDataStart(int call){
+        return dataStart[call];
+    }
+    //primitivas de todas as chamadas gravadas
+    public int getPrimitiveCount(){
+        int total = 0;
+        for(int n = 0; n < callCount; n++)
+            total += getPrimitiveCount(n);
+        return total;
+    }
+}
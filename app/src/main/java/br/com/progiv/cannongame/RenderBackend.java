@@ -0,0 +1,25 @@
+package br.com.progiv.cannongame;
+
+import android.graphics.Canvas;
+import android.graphics.Rect;
+
+//forma de obter o canvas da superfície do jogo a cada quadro
+public interface RenderBackend {
+    //preferências de backend aceitas por CannonView.setRenderBackend
+    int AUTO = 0; //escolhe pelo aquecimento medido no início do jogo
+    int SOFTWARE = 1; //SurfaceHolder.lockCanvas, desenhado pela CPU
+    int HARDWARE = 2; //Surface.lockHardwareCanvas, desenhado pela GPU
+
+    //bloqueia a superfície; dirty é a região a redesenhar (null = tela toda)
+    //retorna null se a superfície não estiver disponível
+    Canvas lockCanvas(Rect dirty);
+
+    //libera o canvas e mostra o quadro
+    void unlockCanvasAndPost(Canvas canvas);
+
+    //true se lockCanvas respeita a região dirty (e preserva o resto do quadro anterior)
+    boolean supportsDirtyRegions();
+
+    //SOFTWARE ou HARDWARE
+    int getType();
+}
@@ -0,0 +1,75 @@
+package br.com.progiv.cannongame;
+
+import java.util.Arrays;
+
+//aquecimento que compara o tempo por quadro de cada backend (medido por quem chama) e escolhe o mais rápido
+//os candidatos são medidos em sequência; as primeiras amostras de cada um são descartadas
+//(criação de buffers, compilação de shaders etc.) e compara-se a mediana das restantes
+public class RenderBackendSelector {
+    private final int[] candidates;
+    private final int discardedFrames;
+    private final long[][] samples;
+    private final boolean[] failed;
+    private int current; //índice do candidato sendo medido
+    private int frame; //quadros medidos do candidato atual
+
+    //candidates: tipos de backend (RenderBackend.SOFTWARE, HARDWARE), na ordem de preferência em caso de empate
+    public RenderBackendSelector(int[] candidates, int measuredFrames, int discardedFrames){
+        this.candidates = candidates.clone();
+        this.discardedFrames = discardedFrames;
+        samples = new long[candidates.length][measuredFrames];
+        failed = new boolean[candidates.length];
+    }
+
+    //true enquanto houver candidato a medir
+    public boolean isMeasuring(){
+        return current < candidates.length;
+    }
+
+    //backend que deve desenhar o próximo quadro de aquecimento
+    public int getCurrentCandidate(){
+        return candidates[current];
+    }
+
+    //registra o tempo de um quadro do candidato atual
+    public void recordFrame(long nanos){
+        if(!isMeasuring())
+            return;
+        if(frame >= discardedFrames)
+            samples[current][frame - discardedFrames] = nanos;
+        if(++frame >= discardedFrames + samples[current].length)
+            next();
+    }
+
+    //o candidato atual não funcionou (ex.: exceção ao bloquear o canvas)
+    public void markFailed(){
+        if(!isMeasuring())
+            return;
+        failed[current] = true;
+        next();
+    }
+
+    private void next(){
+        ++current;
+        frame = 0;
+    }
+
+    //mediana dos tempos medidos de um candidato, em nanossegundos
+    public long getMedian(int index){
+        long[] sorted = samples[index].clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    //backend escolhido; o primeiro candidato se nenhum funcionou
+    public int getSelected(){
+        int best = -1;
+        for(int c = 0; c < candidates.length; c++){
+            if(failed[c] || c >= current)
+                continue;
+            if(best < 0 || getMedian(c) < getMedian(best))
+                best = c;
+        }
+        return candidates[best < 0 ? 0 : best];
+    }
+}
@@ -0,0 +1,177 @@
+package br.com.progiv.cannongame;
+
+//grava uma partida para ser repetida de forma determinística por SessionReplayer
+//guarda a semente do tabuleiro e, em ordem, os toques aplicados, os passos de simulação e as mudanças de modo
+//formato binário compacto: passos iguais seguidos viram uma contagem, e as coordenadas dos toques
+//são gravadas como diferença para o toque anterior (varint zigzag); o fim traz o resultado para conferência
+public class SessionRecorder {
+    public static final int MAGIC = 0x43475253; //"CGRS"
+    public static final int VERSION = 2; //2: cabeçalho com a física em ponto fixo
+
+    //marcadores dos eventos
+    static final int TAG_STEPS = 1; //varint n: n passos com o intervalo atual
+    static final int TAG_INTERVAL = 2; //long: bits do novo intervalo (double)
+    static final int TAG_INPUT = 3; //byte tipo, varint zigzag dx, varint zigzag dy
+    static final int TAG_RAPID_FIRE = 4; //byte 0 ou 1
+    static final int TAG_CONTINUOUS_COLLISION = 5; //byte 0 ou 1
+    static final int TAG_END = 6; //long bits de timeLeft, varint tiros, varint passos, varint acertos, long hash dos acertos
+
+    private byte[] data = new byte[1024];
+    private int length;
+    private boolean recording;
+    private double interval; //intervalo dos passos pendentes
+    private int pendingSteps; //passos ainda não escritos (todos com o mesmo intervalo)
+    private int steps; //total de passos
+    private int lastX;
+    private int lastY;
+    private int hits;
+    private long hitsHash;
+
+    //começa uma gravação nova; chamado por GameWorld.newGame(long)
+    public void begin(long seed, int screenWidth, int screenHeight, boolean rapidFire, boolean continuousCollision,
+                      boolean fixedPointPhysics){
+        length = 0;
+        recording = true;
+        interval = Double.NaN;
+        pendingSteps = 0;
+        steps = 0;
+        lastX = 0;
+        lastY = 0;
+        hits = 0;
+        hitsHash = 0;
+        writeInt(MAGIC);
+        writeByte(VERSION);
+        writeLong(seed);
+        writeVarint(screenWidth);
+        writeVarint(screenHeight);
+        writeByte(rapidFire ? 1 : 0);
+        writeByte(continuousCollision ? 1 : 0);
+        writeByte(fixedPointPhysics ? 1 : 0);
+    }
+
+    //descarta a gravação em andamento (ex.: partida de um pacote de níveis, que não tem semente)
+    public void cancel(){
+        recording = false;
+        length = 0;
+    }
+
+    public boolean isRecording(){
+        return recording;
+    }
+
+    //um toque aplicado pelo mundo (InputQueue.PRESS, MOVE ou RELEASE)
+    void onInput(int type, int x, int y){
+        if(!recording)
+            return;
+        flushSteps();
+        writeByte(TAG_INPUT);
+        writeByte(type);
+        writeVarint(zigzag(x - lastX));
+        writeVarint(zigzag(y - lastY));
+        lastX = x;
+        lastY = y;
+    }
+
+    //um passo de simulação
+    void onStep(double stepInterval){
+        if(!recording)
+            return;
+        if(stepInterval != interval && !(Double.isNaN(interval) && Double.isNaN(stepInterval))){
+            flushSteps();
+            writeByte(TAG_INTERVAL);
+            writeLong(Double.doubleToLongBits(stepInterval));
+            interval = stepInterval;
+        }
+        ++pendingSteps;
+        ++steps;
+    }
+
+    //mudança de modo durante a partida (TAG_RAPID_FIRE ou TAG_CONTINUOUS_COLLISION)
+    void onSetting(int tag, boolean value){
+        if(!recording)
+            return;
+        flushSteps();
+        writeByte(tag);
+        writeByte(value ? 1 : 0);
+    }
+
+    //acerto em alvo ou barreira no passo atual
+    void onHit(int soundId){
+        if(!recording)
+            return;
+        ++hits;
+        hitsHash = hashHit(hitsHash, steps, soundId);
+    }
+
+    //encerra a gravação guardando o resultado da partida
+    public void finish(GameWorld world){
+        if(!recording)
+            return;
+        flushSteps();
+        writeByte(TAG_END);
+        writeLong(Double.doubleToLongBits(world.getTimeLeft()));
+        writeVarint(world.getShotsFired());
+        writeVarint(steps);
+        writeVarint(hits);
+        writeLong(hitsHash);
+        recording = false;
+    }
+
+    //cópia da gravação até aqui
+    public byte[] toByteArray(){
+        byte[] copy = new byte[length];
+        System.arraycopy(data, 0, copy, 0, length);
+        return copy;
+    }
+    public int length(){
+        return length;
+    }
+
+    //hash da sequência de acertos (passo e som de cada um), igual na gravação e na repetição
+    static long hashHit(long hash, int step, int soundId){
+        return hash * 1000003 + ((long)step << 2 | soundId);
+    }
+
+    private void flushSteps(){
+        if(pendingSteps == 0)
+            return;
+        writeByte(TAG_STEPS);
+        writeVarint(pendingSteps);
+        pendingSteps = 0;
+    }
+
+    private static int zigzag(int value){
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private void ensure(int bytes){
+        if(length + bytes > data.length){
+            byte[] bigger = new byte[Math.max(data.length * 2, length + bytes)];
+            System.arraycopy(data, 0, bigger, 0, length);
+            data = bigger;
+        }
+    }
+    private void writeByte(int value){
+        ensure(1);
+        data[length++] = (byte)value;
+    }
+    private void writeInt(int value){
+        ensure(4);
+        for(int shift = 24; shift >= 0; shift -= 8)
+            data[length++] = (byte)(value >>> shift);
+    }
+    private void writeLong(long value){
+        ensure(8);
+        for(int shift = 56; shift >= 0; shift -= 8)
+            data[length++] = (byte)(value >>> shift);
+    }
+    //inteiro sem sinal em grupos de 7 bits
+    private void writeVarint(int value){
+        ensure(5);
+        while((value & ~0x7F) != 0){
+            data[length++] = (byte)((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[length++] = (byte)value;
+    }
+}
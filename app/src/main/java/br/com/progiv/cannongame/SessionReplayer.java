@@ -0,0 +1,157 @@
+package br.com.progiv.cannongame;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+//repete uma partida gravada por SessionRecorder em um GameWorld sem tela, o mais rápido possível
+//a partir da semente e dos eventos gravados, o resultado é idêntico ao da partida original
+public class SessionReplayer {
+
+    //resultado da repetição
+    public static class Result {
+        private double timeLeft;
+        private int shotsFired;
+        private int steps;
+        private boolean gameOver;
+        private int[] hitSteps = new int[16];
+        private int[] hitSounds = new int[16];
+        private int hitCount;
+        private long hitsHash;
+        private boolean recordedEnd; //a gravação terminou com o resultado original
+        private boolean matchesRecording;
+
+        private void addHit(int soundId){
+            if(hitCount == hitSteps.length){
+                hitSteps = Arrays.copyOf(hitSteps, hitCount * 2);
+                hitSounds = Arrays.copyOf(hitSounds, hitCount * 2);
+            }
+            hitSteps[hitCount] = steps;
+            hitSounds[hitCount] = soundId;
+            ++hitCount;
+            hitsHash = SessionRecorder.hashHit(hitsHash, steps, soundId);
+        }
+
+        public double getTimeLeft(){
+            return timeLeft;
+        }
+        public int getShotsFired(){
+            return shotsFired;
+        }
+        public int getSteps(){
+            return steps;
+        }
+        public boolean isGameOver(){
+            return gameOver;
+        }
+        //acertos em ordem: passo em que ocorreu e som (GameWorld.TARGET_SOUND_ID ou BLOCKER_SOUND_ID)
+        public int getHitCount(){
+            return hitCount;
+        }
+        public int getHitStep(int hit){
+            return hitSteps[hit];
+        }
+        public int getHitSound(int hit){
+            return hitSounds[hit];
+        }
+        //true se a gravação guardou o resultado original
+        public boolean hasRecordedEnd(){
+            return recordedEnd;
+        }
+        //true se timeLeft, tiros, passos e acertos são idênticos aos da partida gravada
+        public boolean matchesRecording(){
+            return matchesRecording;
+        }
+    }
+
+    //repete a gravação; IOException se os dados não forem uma gravação válida
+    public static Result replay(byte[] recording) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(recording);
+        final Result result = new Result();
+        try{
+            if(in.getInt() != SessionRecorder.MAGIC)
+                throw new IOException("Not a session recording");
+            int version = in.get();
+            if(version < 1 || version > SessionRecorder.VERSION)
+                throw new IOException("Unsupported session recording version " + version);
+            long seed = in.getLong();
+            GameWorld world = new GameWorld();
+            world.setScreenSize(readVarint(in), readVarint(in));
+            world.setRapidFire(in.get() != 0);
+            world.setContinuousCollision(in.get() != 0);
+            world.setFixedPointPhysics(version >= 2 && in.get() != 0);
+            world.setListener(new GameWorld.Listener() {
+                @Override
+                public void playSound(int soundId) {
+                    if(soundId != GameWorld.CANNON_SOUND_ID)
+                        result.addHit(soundId);
+                }
+
+                @Override
+                public void onGameOver(boolean won) {
+                    result.gameOver = true;
+                }
+            });
+            world.newGame(seed);
+
+            double interval = 0;
+            int x = 0;
+            int y = 0;
+            while(in.hasRemaining()){
+                int tag = in.get();
+                if(tag == SessionRecorder.TAG_STEPS){
+                    for(int n = readVarint(in); n > 0; n--){
+                        ++result.steps;
+                        world.step(interval);
+                    }
+                }else if(tag == SessionRecorder.TAG_INTERVAL){
+                    interval = Double.longBitsToDouble(in.getLong());
+                }else if(tag == SessionRecorder.TAG_INPUT){
+                    int type = in.get();
+                    x += unzigzag(readVarint(in));
+                    y += unzigzag(readVarint(in));
+                    world.applyInput(type, x, y);
+                }else if(tag == SessionRecorder.TAG_RAPID_FIRE){
+                    world.setRapidFire(in.get() != 0);
+                }else if(tag == SessionRecorder.TAG_CONTINUOUS_COLLISION){
+                    world.setContinuousCollision(in.get() != 0);
+                }else if(tag == SessionRecorder.TAG_END){
+                    long timeLeftBits = in.getLong();
+                    int shotsFired = readVarint(in);
+                    int steps = readVarint(in);
+                    int hits = readVarint(in);
+                    long hitsHash = in.getLong();
+                    result.recordedEnd = true;
+                    result.matchesRecording = timeLeftBits == Double.doubleToLongBits(world.getTimeLeft())
+                            && shotsFired == world.getShotsFired() && steps == result.steps
+                            && hits == result.hitCount && hitsHash == result.hitsHash;
+                    break;
+                }else{
+                    throw new IOException("Unknown event " + tag + " at byte " + (in.position() - 1));
+                }
+            }
+            result.timeLeft = world.getTimeLeft();
+            result.shotsFired = world.getShotsFired();
+            result.gameOver = world.isGameOver();
+        }catch (BufferUnderflowException e){
+            throw new IOException("Truncated session recording", e);
+        }
+        return result;
+    }
+
+    private static int readVarint(ByteBuffer in) throws IOException {
+        int value = 0;
+        for(int shift = 0; shift < 35; shift += 7){
+            int b = in.get();
+            value |= (b & 0x7F) << shift;
+            if((b & 0x80) == 0)
+                return value;
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private static int unzigzag(int value){
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,65 @@
+package br.com.progiv.cannongame;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+//troca de instantâneos entre a thread da simulação (escritora) e a de desenho (leitora) com dois buffers
+//o estado (buffer da frente, leitor ativo e o buffer que ele lê) fica em um único AtomicInteger: sem locks
+//se o leitor ainda estiver com o buffer que o escritor precisa, a escrita daquele passo é pulada
+//(a simulação não espera; o próximo passo publica um instantâneo mais novo)
+public class SnapshotBuffer {
+    private static final int FRONT = 1; //bit 0: índice do buffer publicado
+    private static final int READING = 2; //bit 1: o leitor está com um buffer
+    private static final int READ_INDEX_SHIFT = 2; //bit 2: índice do buffer do leitor
+    private static final int PUBLISHED = 8; //bit 3: já houve uma publicação
+
+    private final WorldSnapshot[] buffers = new WorldSnapshot[2];
+    private final AtomicInteger state = new AtomicInteger();
+    private long skippedWrites; //escritas puladas porque o leitor ocupava o buffer (só o escritor altera)
+
+    public SnapshotBuffer(int ballCapacity){
+        buffers[0] = new WorldSnapshot(ballCapacity);
+        buffers[1] = new WorldSnapshot(ballCapacity);
+    }
+
+    //escritor: captura o mundo no buffer de trás e o publica; retorna false se a escrita foi pulada
+    public boolean publish(GameWorld world, long timeNanos){
+        int current = state.get();
+        int back = 1 - (current & FRONT);
+        if((current & READING) != 0 && (current >> READ_INDEX_SHIFT & 1) == back){
+            ++skippedWrites;
+            return false;
+        }
+        //o leitor só pega o buffer da frente, então o de trás fica livre até a troca abaixo
+        buffers[back].capture(world, timeNanos);
+        int s;
+        do{
+            s = state.get();
+        }while(!state.compareAndSet(s, (s & ~FRONT) | back | PUBLISHED));
+        return true;
+    }
+
+    //leitor: pega o instantâneo mais recente (null se nada foi publicado); devolver com release
+    public WorldSnapshot acquire(){
+        int s;
+        int front;
+        do{
+            s = state.get();
+            if((s & PUBLISHED) == 0)
+                return null;
+            front = s & FRONT;
+        }while(!state.compareAndSet(s, (s & ~(1 << READ_INDEX_SHIFT)) | READING | front << READ_INDEX_SHIFT));
+        return buffers[front];
+    }
+
+    //leitor: terminou de usar o instantâneo obtido em acquire
+    public void release(){
+        int s;
+        do{
+            s = state.get();
+        }while(!state.compareAndSet(s, s & ~READING));
+    }
+
+    public long getSkippedWrites(){
+        return skippedWrites;
+    }
+}
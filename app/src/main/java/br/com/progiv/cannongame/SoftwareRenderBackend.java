@@ -0,0 +1,34 @@
+package br.com.progiv.cannongame;
+
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.view.SurfaceHolder;
+
+//canvas rasterizado pela CPU (caminho original do jogo)
+public class SoftwareRenderBackend implements RenderBackend {
+    private final SurfaceHolder surfaceHolder;
+
+    public SoftwareRenderBackend(SurfaceHolder surfaceHolder){
+        this.surfaceHolder = surfaceHolder;
+    }
+
+    @Override
+    public Canvas lockCanvas(Rect dirty) {
+        return surfaceHolder.lockCanvas(dirty);
+    }
+
+    @Override
+    public void unlockCanvasAndPost(Canvas canvas) {
+        surfaceHolder.unlockCanvasAndPost(canvas);
+    }
+
+    @Override
+    public boolean supportsDirtyRegions() {
+        return true;
+    }
+
+    @Override
+    public int getType() {
+        return SOFTWARE;
+    }
+}
@@ -0,0 +1,140 @@
+package br.com.progiv.cannongame;
+
+//grade uniforme sobre a tela para a fase ampla (broadphase) da detecção de colisão
+//cada entidade é registrada só na célula do seu canto superior esquerdo ("grade folgada");
+//a consulta amplia o retângulo pelo maior tamanho de entidade para não perder sobreposições
+//e só testa com precisão as entidades dessas células
+public class SpatialGrid {
+    public static final int CELLS_PER_SIDE = 16; //células no maior lado da tela
+
+    private float cellSize;
+    private float inverseCellSize; //1 / cellSize, para trocar divisões por multiplicações
+    private int columns;
+    private int rows;
+    private int[] cellStart = new int[1]; //início das entradas de cada célula (tamanho cells + 1)
+    private int[] cellNext = new int[0]; //próxima posição livre de cada célula durante a reconstrução
+    private int[] entries = new int[64]; //índices das entidades, agrupados por célula (-1 = removida)
+    private int[] cellOf = new int[64]; //célula de cada entidade
+    private float maxWidth; //maior largura entre as entidades registradas
+    private float maxHeight; //maior altura entre as entidades registradas
+    private float maxSpeed; //maior velocidade vertical (em módulo) entre as entidades registradas
+
+    //ajusta as células às dimensões da tela
+    public void resize(int screenWidth, int screenHeight){
+        cellSize = Math.max(1f, (float)Math.max(screenWidth, screenHeight) / CELLS_PER_SIDE);
+        inverseCellSize = 1f / cellSize;
+        columns = Math.max(1, (int)Math.ceil(screenWidth / cellSize));
+        rows = Math.max(1, (int)Math.ceil(screenHeight / cellSize));
+        int cells = columns * rows;
+        if(cellNext.length != cells){
+            cellStart = new int[cells + 1];
+            cellNext = new int[cells];
+        }
+    }
+
+    private int column(float x){
+        int c = (int)(x * inverseCellSize);
+        return c < 0 ? 0 : (c >= columns ? columns - 1 : c);
+    }
+    private int row(float y){
+        int r = (int)(y * inverseCellSize);
+        return r < 0 ? 0 : (r >= rows ? rows - 1 : r);
+    }
+
+    //reconstrói a grade com as posições atuais das entidades (ordenação por contagem)
+    public void build(EntityStore store){
+        int size = store.size();
+        int cells = cellNext.length;
+        if(entries.length < size){
+            entries = new int[Math.max(size, entries.length * 2)];
+            cellOf = new int[entries.length];
+        }
+        for(int c = 0; c <= cells; c++)
+            cellStart[c] = 0;
+        //conta as entidades de cada célula
+        maxWidth = 0;
+        maxHeight = 0;
+        maxSpeed = 0;
+        for(int n = 0; n < size; n++){
+            int cell = row(store.getY(n)) * columns + column(store.getX(n));
+            cellOf[n] = cell;
+            cellStart[cell + 1]++;
+            maxWidth = Math.max(maxWidth, store.getWidth(n));
+            maxHeight = Math.max(maxHeight, store.getHeight(n));
+            maxSpeed = Math.max(maxSpeed, Math.abs(store.getVelocityY(n)));
+        }
+        //soma de prefixos: início de cada célula
+        for(int c = 0; c < cells; c++){
+            cellStart[c + 1] += cellStart[c];
+            cellNext[c] = cellStart[c];
+        }
+        //preenche as entradas
+        for(int n = 0; n < size; n++)
+            entries[cellNext[cellOf[n]]++] = n;
+    }
+
+    //atualiza a grade antes de store.removeSwap(n): a entidade n sai e a última passa a ser n
+    public void onRemoveSwap(EntityStore store, int n){
+        int last = store.size() - 1;
+        replace(cellOf[n], n, -1);
+        if(last != n){
+            replace(cellOf[last], last, n);
+            cellOf[n] = cellOf[last];
+        }
+    }
+    //troca, na célula informada, a entrada from por to
+    private void replace(int cell, int from, int to){
+        for(int e = cellStart[cell]; e < cellStart[cell + 1]; e++){
+            if(entries[e] == from){
+                entries[e] = to;
+                return;
+            }
+        }
+    }
+
+    //copia para out os índices das entidades que podem se sobrepor ao retângulo e retorna quantos são
+    //out deve ter espaço para store.size() índices
+    public int collectCandidates(float left, float top, float right, float bottom, int[] out){
+        int count = 0;
+        int c0 = column(left - maxWidth), c1 = column(right);
+        int r0 = row(top - maxHeight), r1 = row(bottom);
+        for(int r = r0; r <= r1; r++){
+            for(int c = c0; c <= c1; c++){
+                int cell = r * columns + c;
+                for(int e = cellStart[cell]; e < cellStart[cell + 1]; e++){
+                    if(entries[e] >= 0)
+                        out[count++] = entries[e];
+                }
+            }
+        }
+        return count;
+    }
+
+    public float getMaxSpeed(){
+        return maxSpeed;
+    }
+
+    //retorna o menor índice de entidade que se sobrepõe ao retângulo, ou -1
+    public int findIntersecting(EntityStore store, Bounds shape){
+        return findIntersecting(store, shape.left, shape.top, shape.right, shape.bottom);
+    }
+    public int findIntersecting(EntityStore store, float left, float top, float right, float bottom){
+        int found = -1;
+        int c0 = column(left - maxWidth), c1 = column(right);
+        int r0 = row(top - maxHeight), r1 = row(bottom);
+        for(int r = r0; r <= r1; r++){
+            for(int c = c0; c <= c1; c++){
+                int cell = r * columns + c;
+                for(int e = cellStart[cell]; e < cellStart[cell + 1]; e++){
+                    int n = entries[e];
+                    if(n < 0 || (found >= 0 && n >= found))
+                        continue;
+                    float x = store.getX(n), y = store.getY(n);
+                    if(left < x + store.getWidth(n) && x < right && top < y + store.getHeight(n) && y < bottom)
+                        found = n;
+                }
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,56 @@
+package br.com.progiv.cannongame;
+
+//detecção de colisão contínua entre retângulos alinhados aos eixos (swept AABB)
+//em vez de testar só a posição final, calcula o instante do primeiro contato dentro do passo
+public final class SweptCollision {
+    public static final double NO_HIT = Double.POSITIVE_INFINITY;
+
+    private SweptCollision(){ }
+
+    //instante, entre 0 e maxTime, em que o retângulo A (velocidade ax/ay) passa a se sobrepor ao
+    //retângulo B (que só se move na vertical, com velocidade bvy); retorna NO_HIT se não houver contato.
+    //a sobreposição segue a mesma regra de Bounds.intersects: encostar não é colidir
+    public static double timeOfImpact(
+            float aLeft, float aTop, float aWidth, float aHeight, float avx, float avy,
+            float bLeft, float bTop, float bWidth, float bHeight, float bvy,
+            double maxTime){
+        //movimento relativo: B parado e A com a diferença das velocidades
+        double vx = avx;
+        double vy = (double)avy - bvy;
+
+        double entryX, exitX;
+        if(vx == 0){
+            if(!(aLeft < bLeft + bWidth && bLeft < aLeft + aWidth))
+                return NO_HIT;
+            entryX = Double.NEGATIVE_INFINITY;
+            exitX = Double.POSITIVE_INFINITY;
+        }else if(vx > 0){
+            entryX = (bLeft - (aLeft + aWidth)) / vx;
+            exitX = (bLeft + bWidth - aLeft) / vx;
+        }else{
+            entryX = (bLeft + bWidth - aLeft) / vx;
+            exitX = (bLeft - (aLeft + aWidth)) / vx;
+        }
+
+        double entryY, exitY;
+        if(vy == 0){
+            if(!(aTop < bTop + bHeight && bTop < aTop + aHeight))
+                return NO_HIT;
+            entryY = Double.NEGATIVE_INFINITY;
+            exitY = Double.POSITIVE_INFINITY;
+        }else if(vy > 0){
+            entryY = (bTop - (aTop + aHeight)) / vy;
+            exitY = (bTop + bHeight - aTop) / vy;
+        }else{
+            entryY = (bTop + bHeight - aTop) / vy;
+            exitY = (bTop - (aTop + aHeight)) / vy;
+        }
+
+        double entry = Math.max(entryX, entryY);
+        double exit = Math.min(exitX, exitY);
+        //sem intervalo de sobreposição, já separados ou contato só depois do passo
+        if(entry >= exit || exit <= 0 || entry > maxTime)
+            return NO_HIT;
+        return Math.max(entry, 0);
+    }
+}
@@ -0,0 +1,78 @@
+package br.com.progiv.cannongame;
+
+//histograma de tempos em nanossegundos com buckets pré-alocados (escala log2 com 16 sub-buckets, ~6% de precisão)
+//record não aloca memória; os percentis retornam o limite superior do bucket, limitado ao máximo registrado
+public class TimingHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long count;
+    private long total;
+    private long max;
+
+    //registra um tempo; valores negativos contam como zero
+    public void record(long nanos){
+        if(nanos < 0)
+            nanos = 0;
+        ++counts[bucketOf(nanos)];
+        ++count;
+        total += nanos;
+        if(nanos > max)
+            max = nanos;
+    }
+
+    //zera todas as contagens
+    public void reset(){
+        for(int i = 0; i < counts.length; i++)
+            counts[i] = 0;
+        count = 0;
+        total = 0;
+        max = 0;
+    }
+
+    public long getCount(){
+        return count;
+    }
+    public long getMax(){
+        return max;
+    }
+    public long getMean(){
+        return count > 0 ? total / count : 0;
+    }
+
+    //tempo abaixo do qual estão percentile (0 a 100) por cento das amostras
+    public long getPercentile(double percentile){
+        if(count == 0)
+            return 0;
+        long rank = (long)Math.ceil(percentile / 100.0 * count);
+        if(rank < 1)
+            rank = 1;
+        long seen = 0;
+        for(int i = 0; i < counts.length; i++){
+            seen += counts[i];
+            if(seen >= rank)
+                return Math.min(highestValueIn(i), max);
+        }
+        return max;
+    }
+
+    //valores até 15 têm bucket próprio; acima disso, 16 buckets por potência de 2
+    static int bucketOf(long value){
+        if(value < SUB_BUCKETS)
+            return (int)value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int)(value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    //maior valor que cai no bucket
+    static long highestValueIn(int bucket){
+        if(bucket < SUB_BUCKETS)
+            return bucket;
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long)(SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,54 @@
+package br.com.progiv.cannongame;
+
+//conta de vsyncs do FrameScheduler, sem dependências do Android: a partir dos instantes dos vsyncs decide
+//quais quadros desenhar para manter a taxa desejada e quantos vsyncs foram perdidos
+//a distância entre dois vsyncs é arredondada para o número inteiro de períodos mais próximo (tolera o jitter);
+//depois de uma perda a contagem recomeça do quadro desenhado (a fase acompanha o atraso)
+public class VsyncPacer {
+    public static final int SKIP = -1; //retorno de onVsync: vsync pulado de propósito
+
+    private final long vsyncPeriodNs; //intervalo entre vsyncs da tela
+    private final int vsyncsPerFrame; //1 = taxa nativa, 2 = metade (ex.: 30 fps em tela de 60 Hz)
+    private long lastFrameTimeNs = -1;
+    private long missedVsyncs; //total de vsyncs perdidos
+
+    //refreshRate: taxa da tela (Display.getRefreshRate); targetFrameRate: taxa desejada ou FrameScheduler.NATIVE_FRAME_RATE
+    public VsyncPacer(float refreshRate, int targetFrameRate){
+        if(refreshRate <= 0)
+            refreshRate = 60f;
+        vsyncPeriodNs = (long)(1000000000L / refreshRate);
+        vsyncsPerFrame = targetFrameRate == FrameScheduler.NATIVE_FRAME_RATE ?
+                1 : Math.max(1, Math.round(refreshRate / targetFrameRate));
+    }
+
+    //recomeça a contagem (o próximo vsync é desenhado)
+    public void reset(){
+        lastFrameTimeNs = -1;
+    }
+
+    //um vsync no instante frameTimeNanos: retorna SKIP ou os vsyncs perdidos desde o último quadro desenhado
+    public int onVsync(long frameTimeNanos){
+        if(lastFrameTimeNs < 0){
+            lastFrameTimeNs = frameTimeNanos;
+            return 0;
+        }
+        //quantos vsyncs passaram desde o último quadro desenhado
+        int vsyncs = (int)Math.max(1, Math.round((double)(frameTimeNanos - lastFrameTimeNs) / vsyncPeriodNs));
+        if(vsyncs < vsyncsPerFrame)
+            return SKIP; //pula vsyncs para manter a taxa desejada
+        int missed = vsyncs - vsyncsPerFrame;
+        missedVsyncs += missed;
+        lastFrameTimeNs = frameTimeNanos;
+        return missed;
+    }
+
+    public long getMissedVsyncs(){
+        return missedVsyncs;
+    }
+    public long getVsyncPeriodNs(){
+        return vsyncPeriodNs;
+    }
+    public int getVsyncsPerFrame(){
+        return vsyncsPerFrame;
+    }
+}
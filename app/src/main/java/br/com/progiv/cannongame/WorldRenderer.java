@@ -0,0 +1,53 @@
+package br.com.progiv.cannongame;
+
+//desenha os elementos móveis de um instantâneo (balas, barreiras, alvos e partículas) em lote:
+//os comandos vão para o DrawBatcher, que faz uma chamada por cor e tamanho em vez de uma por elemento
+//o fundo, o canhão e o HUD continuam com CannonView (camada estática e texto)
+public class WorldRenderer {
+    private final DrawBatcher batcher;
+    private float particleSize = 1f; //lado de cada partícula, em pixels
+
+    public WorldRenderer(DrawBatcher batcher){
+        this.batcher = batcher;
+    }
+
+    public void setParticleSize(float particleSize){
+        this.particleSize = particleSize;
+    }
+    public float getParticleSize(){
+        return particleSize;
+    }
+
+    //desenha o instantâneo interpolando as posições entre o passo anterior e o atual (alpha de 0 a 1)
+    public void render(WorldSnapshot snapshot, float alpha, DrawTarget target){
+        batcher.begin(target);
+        //balas
+        for(int b = 0; b < snapshot.getBallCount(); b++){
+            int radius = snapshot.getBallRadius(b);
+            batcher.addCircle(snapshot.getBallLeft(b, alpha) + radius, snapshot.getBallTop(b, alpha) + radius,
+                    radius, snapshot.getBallColor(b));
+        }
+        //barreiras e alvos
+        addEntities(snapshot.getBlockers(), alpha);
+        addEntities(snapshot.getTargets(), alpha);
+        batcher.flush();
+        //partículas: o lote já vem agrupado por cor e faixa de transparência
+        ParticleBatch particles = snapshot.getParticles();
+        float[] points = particles.getPoints();
+        for(int g = 0; g < particles.getGroupCount(); g++){
+            int size = particles.getGroupSize(g);
+            if(size > 0)
+                target.drawPoints(points, 2 * particles.getGroupStart(g), 2 * size,
+                        particles.getGroupColor(g), particleSize, false);
+        }
+    }
+
+    //retângulos das entidades nas posições interpoladas
+    private void addEntities(EntityStore entities, float alpha){
+        for(int n = 0; n < entities.size(); n++){
+            float left = entities.getPreviousX(n) + (entities.getX(n) - entities.getPreviousX(n)) * alpha;
+            float top = entities.getPreviousY(n) + (entities.getY(n) - entities.getPreviousY(n)) * alpha;
+            batcher.addRect(left, top, left + entities.getWidth(n), top + entities.getHeight(n), entities.getColor(n));
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package br.com.progiv.cannongame;
+
+//cópia do que é preciso para desenhar um quadro: HUD, canhão, balas, barreiras, alvos e partículas
+//guarda as posições do passo anterior e do atual, para o desenho interpolar entre elas
+//os arrays são pré-alocados e só crescem quando o mundo passa a ter mais entidades
+public class WorldSnapshot {
+    private long timeNanos; //instante da captura (base de System.nanoTime)
+
+    //HUD
+    private double timeLeft;
+    private int shotsFired;
+    private double totalElapsedTime;
+
+    //canhão
+    private int barrelEndX;
+    private int barrelEndY;
+    private int baseRadius;
+
+    //balas na tela
+    private int ballCount;
+    private int[] ballLeft;
+    private int[] ballTop;
+    private int[] ballPreviousLeft;
+    private int[] ballPreviousTop;
+    private int[] ballRadius;
+    private int[] ballColor;
+
+    //barreiras e alvos
+    private final EntityStore blockers = new EntityStore(GameWorld.BLOCKER_SOUND_ID, 1);
+    private final EntityStore targets = new EntityStore(GameWorld.TARGET_SOUND_ID, (int)GameWorld.TARGET_PIECES);
+
+    //partículas dos efeitos, já agrupadas por cor (sem interpolação: duram poucos quadros)
+    private final ParticleBatch particles = new ParticleBatch();
+
+    public WorldSnapshot(int ballCapacity){
+        allocateBalls(ballCapacity);
+    }
+
+    private void allocateBalls(int capacity){
+        ballLeft = new int[capacity];
+        ballTop = new int[capacity];
+        ballPreviousLeft = new int[capacity];
+        ballPreviousTop = new int[capacity];
+        ballRadius = new int[capacity];
+        ballColor = new int[capacity];
+    }
+
+    //copia o estado atual do mundo
+    public void capture(GameWorld world, long timeNanos){
+        this.timeNanos = timeNanos;
+        timeLeft = world.getTimeLeft();
+        shotsFired = world.getShotsFired();
+        totalElapsedTime = world.getTotalElapsedTime();
+
+        Cannon cannon = world.getCannon();
+        barrelEndX = cannon.getBarrelEndX();
+        barrelEndY = cannon.getBarrelEndY();
+        baseRadius = cannon.getBaseRadius();
+
+        ProjectilePool projectiles = cannon.getProjectiles();
+        if(projectiles.getCapacity() > ballLeft.length)
+            allocateBalls(projectiles.getCapacity());
+        ballCount = 0;
+        for(int b = 0; b < projectiles.size(); b++){
+            CannonBall cannonBall = projectiles.get(b);
+            if(!cannonBall.isOnScreen())
+                continue;
+            int n = ballCount++;
+            ballLeft[n] = cannonBall.getShape().left;
+            ballTop[n] = cannonBall.getShape().top;
+            ballPreviousLeft[n] = cannonBall.getPreviousLeft();
+            ballPreviousTop[n] = cannonBall.getPreviousTop();
+            ballRadius[n] = cannonBall.getRadius();
+            ballColor[n] = cannonBall.getColor();
+        }
+
+        blockers.copyFrom(world.getBlockers());
+        targets.copyFrom(world.getTargets());
+        ParticleSystem particleSystem = world.getParticles();
+        if(particleSystem != null)
+            particleSystem.writeBatch(particles);
+        else
+            particles.clear();
+    }
+
+    public long getTimeNanos(){
+        return timeNanos;
+    }
+    public double getTimeLeft(){
+        return timeLeft;
+    }
+    public int getShotsFired(){
+        return shotsFired;
+    }
+    public double getTotalElapsedTime(){
+        return totalElapsedTime;
+    }
+    public int getBarrelEndX(){
+        return barrelEndX;
+    }
+    public int getBarrelEndY(){
+        return barrelEndY;
+    }
+    public int getBaseRadius(){
+        return baseRadius;
+    }
+    public int getBallCount(){
+        return ballCount;
+    }
+    //posição da bala entre o passo anterior (alpha = 0) e o atual (alpha = 1)
+    public float getBallLeft(int n, float alpha){
+        return ballPreviousLeft[n] + (ballLeft[n] - ballPreviousLeft[n]) * alpha;
+    }
+    public float getBallTop(int n, float alpha){
+        return ballPreviousTop[n] + (ballTop[n] - ballPreviousTop[n]) * alpha;
+    }
+    public int getBallRadius(int n){
+        return ballRadius[n];
+    }
+    public int getBallColor(int n){
+        return ballColor[n];
+    }
+    public EntityStore getBlockers(){
+        return blockers;
+    }
+    public EntityStore getTargets(){
+        return targets;
+    }
+    public ParticleBatch getParticles(){
+        return particles;
+    }
+}
@@ -0,0 +1,164 @@
+package br.com.progiv.cannongame;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * A busca do ângulo deve prever o acerto exatamente como o mundo simula e respeitar o prazo.
+ */
+public class AimSolverTest {
+    private static final int WIDTH = 1920;
+    private static final int HEIGHT = 1080;
+    private static final double STEP = 1.0 / 60;
+    private static final long NO_LIMIT = Long.MAX_VALUE / 4;
+
+    private GameWorld world;
+    private int targetHits;
+    private int blockerHits;
+
+    @Before
+    public void setUp() {
+        world = new GameWorld();
+        world.setScreenSize(WIDTH, HEIGHT);
+        world.setListener(new GameWorld.Listener() {
+            @Override
+            public void playSound(int soundId) {
+                if (soundId == GameWorld.TARGET_SOUND_ID)
+                    targetHits++;
+                else if (soundId == GameWorld.BLOCKER_SOUND_ID)
+                    blockerHits++;
+            }
+
+            @Override
+            public void onGameOver(boolean won) {
+            }
+        });
+        world.newGame(new Random(42));
+    }
+
+    private AimSolver serialSolver() {
+        AimSolver solver = new AimSolver(null, AimSolver.DEFAULT_CANDIDATES);
+        solver.setBudgetNanos(NO_LIMIT);
+        return solver;
+    }
+
+    @Test
+    public void predictedHitHappens() {
+        AimSolver solver = serialSolver();
+        for (int shot = 0; shot < 5; shot++) {
+            assertTrue(solver.solve(world, STEP));
+            assertEquals(AimSolver.DEFAULT_CANDIDATES, solver.getEvaluated());
+            assertFalse(solver.isTimedOut());
+            int targetsBefore = world.getTargets().size();
+            world.getCannon().align(solver.getAngle());
+            assertTrue(world.getCannon().fireCannonBall());
+            for (int n = 0; n < solver.getHitSteps(); n++)
+                world.step(STEP);
+            assertEquals(shot + 1, targetHits);
+            assertEquals(0, blockerHits);
+            assertEquals(targetsBefore - 1, world.getTargets().size());
+            assertTrue(world.getProjectiles().isEmpty());
+        }
+    }
+
+    @Test
+    public void parallelSearchMatchesSerial() {
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            AimSolver parallel = new AimSolver(pool, AimSolver.DEFAULT_CANDIDATES);
+            parallel.setBudgetNanos(NO_LIMIT);
+            AimSolver serial = serialSolver();
+            for (int n = 0; n < 20; n++) {
+                assertEquals(serial.solve(world, STEP), parallel.solve(world, STEP));
+                assertEquals(serial.getAngle(), parallel.getAngle(), 0.0);
+                assertEquals(serial.getScore(), parallel.getScore(), 0.0);
+                assertEquals(serial.getHitTarget(), parallel.getHitTarget());
+                assertEquals(AimSolver.DEFAULT_CANDIDATES, parallel.getEvaluated());
+                world.step(STEP);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void stopsAtBudget() {
+        AimSolver solver = new AimSolver(null, AimSolver.DEFAULT_CANDIDATES);
+        solver.setBudgetNanos(0);
+        long start = System.nanoTime();
+        solver.solve(world, STEP);
+        assertTrue(System.nanoTime() - start < 50000000L);
+        assertTrue(solver.isTimedOut());
+        assertTrue(solver.getEvaluated() < AimSolver.DEFAULT_CANDIDATES);
+    }
+
+    @Test
+    public void earlyExitStopsAtFirstHit() {
+        AimSolver solver = serialSolver();
+        solver.setEarlyExit(true);
+        assertTrue(solver.solve(world, STEP));
+        assertTrue(solver.getEvaluated() < AimSolver.DEFAULT_CANDIDATES);
+        assertFalse(solver.isTimedOut());
+        assertTrue(solver.getScore() > 1);
+    }
+
+    @Test
+    public void candidatesCoverRangeInAnyPrefix() {
+        AimSolver solver = serialSolver();
+        //os 4 primeiros candidatos já estão um em cada quarto de (0, pi)
+        boolean[] quarters = new boolean[4];
+        for (int n = 0; n < 4; n++)
+            quarters[(int) (solver.candidateAngle(n) / (Math.PI / 4))] = true;
+        for (boolean quarter : quarters)
+            assertTrue(quarter);
+    }
+
+    @Test
+    public void candidateCountRoundsUpToPowerOfTwo() {
+        //com 100 candidatos a busca caía na ordem linear e um prefixo cobria só o começo de (0, pi)
+        int[] requested = {1, 2, 3, 100, 256, 257};
+        int[] expected = {1, 2, 4, 128, 256, 512};
+        for (int r = 0; r < requested.length; r++) {
+            AimSolver solver = new AimSolver(null, requested[r]);
+            int candidates = solver.getCandidates();
+            assertEquals(expected[r], candidates);
+            //todos os ângulos (slot + 0,5) * pi / candidates aparecem exatamente uma vez
+            boolean[] seen = new boolean[candidates];
+            for (int n = 0; n < candidates; n++) {
+                int slot = (int) Math.floor(solver.candidateAngle(n) / Math.PI * candidates);
+                assertFalse("slot " + slot + " repeated for " + requested[r], seen[slot]);
+                seen[slot] = true;
+            }
+            //os 4 primeiros caem nos quartos 0, 2, 1 e 3 de (0, pi)
+            int[] quarters = {0, 2, 1, 3};
+            if (candidates >= 4)
+                for (int n = 0; n < 4; n++)
+                    assertEquals(quarters[n], (int) (solver.candidateAngle(n) / (Math.PI / 4)));
+        }
+        AimSolver solver = new AimSolver(null, 100);
+        solver.setBudgetNanos(NO_LIMIT);
+        solver.solve(world, STEP);
+        assertEquals(128, solver.getEvaluated());
+    }
+
+    @Test
+    public void autoplayerClearsBoard() {
+        Autoplayer player = new Autoplayer(serialSolver());
+        int steps = 0;
+        while (!world.isGameOver() && steps < 10000) {
+            player.update(world, STEP);
+            world.step(STEP);
+            steps++;
+        }
+        assertTrue(world.isGameOver());
+        assertTrue(world.getTargets().isEmpty());
+        assertEquals((int) GameWorld.TARGET_PIECES, world.getShotsFired());
+        assertEquals(world.getShotsFired(), player.getShots());
+        assertEquals(0, blockerHits);
+    }
+}
@@ -0,0 +1,238 @@
+package br.com.progiv.cannongame;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * O laço do jogo, rodando sem tela por milhares de quadros, não pode alocar memória depois do aquecimento.
+ */
+public class AllocationTest {
+    private static final int WIDTH = 1920;
+    private static final int HEIGHT = 1080;
+    private static final double STEP = 1.0 / 60;
+    private static final long STEP_NS = 16666667;
+    private static final int WARMUP_FRAMES = 5000;
+    //a JVM ainda aloca algumas centenas de bytes de vez em quando ao recompilar código, mesmo depois do aquecimento
+    //(com -Xint nenhuma janela aloca): o teste passa com CLEAN_WINDOWS janelas seguidas sem alocação, o que deixa
+    //passar esse ruído isolado mas não uma alocação que se repete a cada quadro, tiro ou CLEAN_WINDOWS * WINDOW_FRAMES
+    private static final int WINDOW_FRAMES = 2000;
+    private static final int CLEAN_WINDOWS = 3;
+    private static final int MAX_WINDOWS = 20;
+
+    //fases de um quadro, na ordem em que o CannonThread as executa
+    private static final String[] PHASES = {"input", "autoplay", "step", "snapshot", "pipeline", "hud", "render", "audio", "profiler"};
+    private static final int INPUT = 0;
+    private static final int AUTOPLAY = 1;
+    private static final int STEP_PHASE = 2;
+    private static final int SNAPSHOT = 3;
+    private static final int PIPELINE = 4;
+    private static final int HUD = 5;
+    private static final int RENDER = 6;
+    private static final int AUDIO = 7;
+    private static final int PROFILER = 8;
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final long threadId = Thread.currentThread().getId();
+    private long baseline; //bytes que a própria medição registra
+    private final long[] phaseBytes = new long[PHASES.length];
+    private boolean measuring;
+    private long phaseStart;
+
+    //partes do laço
+    private GameWorld world;
+    private EntityStore board; //alvos do início, repostos antes que todos sejam atingidos
+    private InputQueue inputQueue;
+    private Autoplayer autoplayer;
+    private final WorldSnapshot snapshot = new WorldSnapshot(GameWorld.PROJECTILE_POOL_CAPACITY);
+    private final SnapshotBuffer snapshots = new SnapshotBuffer(GameWorld.PROJECTILE_POOL_CAPACITY);
+    private final HudText timeRemaining = new HudText("Tempo restante: ", " segundos", 1, ',');
+    private final HudText shotsFired = new HudText("Tiros: ", "", 0, ',');
+    private final HudText elapsedTime = new HudText("Tempo decorrido: ", " segundos", 1, ',');
+    private final FrameProfiler profiler = new FrameProfiler(STEP_NS);
+    private final QualityGovernor governor = new QualityGovernor(STEP_NS, QualityGovernor.DEFAULT_WINDOW_FRAMES);
+    private final WorldRenderer renderer = new WorldRenderer(new DrawBatcher());
+    private final RecordingDrawTarget drawTarget = new RecordingDrawTarget();
+    private AudioDispatcher audio;
+    private final Random input = new Random(1);
+    private long frameTime;
+
+    private long allocatedBytes() {
+        return threads.getThreadAllocatedBytes(threadId);
+    }
+
+    private void begin() {
+        phaseStart = allocatedBytes();
+    }
+
+    private void end(int phase) {
+        long allocated = allocatedBytes() - phaseStart - baseline;
+        if (measuring && allocated > 0)
+            phaseBytes[phase] += allocated;
+        phaseStart = allocatedBytes();
+    }
+
+    private void setUpLoop(int targetPieces, boolean continuousCollision, boolean fixedPoint, boolean autoplay) {
+        assertTrue("allocation counting not supported by this JVM", threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        //quanto a leitura do contador aloca (costuma ser zero)
+        baseline = Long.MAX_VALUE;
+        for (int n = 0; n < 1000; n++) {
+            long start = allocatedBytes();
+            baseline = Math.min(baseline, allocatedBytes() - start);
+        }
+
+        world = new GameWorld();
+        world.setScreenSize(WIDTH, HEIGHT);
+        //sem fim de jogo: newGame aloca o canhão e não faz parte do laço
+        GameConfig config = new GameConfig();
+        config.setInitialTime(1e9);
+        world.setConfig(config);
+        world.setContinuousCollision(continuousCollision);
+        world.setFixedPointPhysics(fixedPoint);
+        world.setRapidFire(true);
+        world.setProfiler(profiler);
+        world.setParticles(new ParticleSystem(GameWorld.PARTICLE_CAPACITY));
+        inputQueue = new InputQueue(InputQueue.DEFAULT_CAPACITY);
+        world.setInputQueue(inputQueue);
+        world.newGame(new Random(42), targetPieces);
+        board = new EntityStore(GameWorld.TARGET_SOUND_ID, targetPieces);
+        board.copyFrom(world.getTargets());
+        if (autoplay) {
+            AimSolver solver = new AimSolver(null, 64);
+            solver.setBudgetNanos(Long.MAX_VALUE / 4);
+            autoplayer = new Autoplayer(solver);
+        }
+        audio = new AudioDispatcher(new AudioDispatcher.Player() {
+            private int streamId;
+
+            @Override
+            public int play(int soundId, int priority) {
+                return ++streamId;
+            }
+
+            @Override
+            public void stop(int streamId) {
+            }
+        }, 3, AudioDispatcher.DEFAULT_VOICES, AudioDispatcher.DEFAULT_QUEUE_CAPACITY);
+        world.setListener(new GameWorld.Listener() {
+            @Override
+            public void playSound(int soundId) {
+                audio.post(soundId);
+            }
+
+            @Override
+            public void onGameOver(boolean won) {
+            }
+        });
+    }
+
+    //um quadro do CannonThread, desenhando na gravação em vez do Canvas
+    private void frame() {
+        //sem vitória: repõe os alvos fora da medição
+        if (world.getTargets().size() <= 1)
+            world.getTargets().copyFrom(board);
+        begin();
+        if (input.nextInt(30) == 0)
+            inputQueue.offer(InputQueue.PRESS, WIDTH / 2 + input.nextInt(WIDTH / 2), input.nextInt(HEIGHT));
+        if (input.nextInt(4) == 0)
+            inputQueue.offer(InputQueue.MOVE, WIDTH / 2 + input.nextInt(WIDTH / 2), input.nextInt(HEIGHT));
+        if (input.nextInt(40) == 0)
+            inputQueue.offer(InputQueue.RELEASE, 0, 0);
+        end(INPUT);
+        if (autoplayer != null)
+            autoplayer.update(world, STEP);
+        end(AUTOPLAY);
+        audio.beginFrame();
+        world.step(STEP);
+        end(STEP_PHASE);
+        frameTime += STEP_NS;
+        snapshot.capture(world, frameTime);
+        end(SNAPSHOT);
+        snapshots.publish(world, frameTime);
+        WorldSnapshot published = snapshots.acquire();
+        if (published != null)
+            published.getBallCount();
+        snapshots.release();
+        end(PIPELINE);
+        timeRemaining.setValue(snapshot.getTimeLeft());
+        shotsFired.setValue(snapshot.getShotsFired());
+        elapsedTime.setValue(snapshot.getTotalElapsedTime());
+        end(HUD);
+        drawTarget.reset();
+        renderer.render(snapshot, 1f, drawTarget);
+        end(RENDER);
+        audio.drain();
+        end(AUDIO);
+        profiler.endFrame(STEP_NS / 2);
+        governor.recordFrame(STEP_NS / 2 + input.nextInt((int) STEP_NS));
+        end(PROFILER);
+    }
+
+    private void runAndCheck(String scenario) {
+        for (int n = 0; n < WARMUP_FRAMES; n++)
+            frame();
+        measuring = true;
+        StringBuilder report = new StringBuilder();
+        StringBuilder lastAllocation = new StringBuilder();
+        int clean = 0;
+        for (int window = 0; window < MAX_WINDOWS; window++) {
+            if (runWindow(report) > 0) {
+                clean = 0;
+                lastAllocation.setLength(0);
+                lastAllocation.append(report);
+            } else if (++clean == CLEAN_WINDOWS) {
+                return;
+            }
+        }
+        fail(scenario + " never ran " + CLEAN_WINDOWS + " consecutive " + WINDOW_FRAMES
+                + "-frame windows without allocating, last allocation:" + lastAllocation);
+    }
+
+    //roda uma janela de quadros e retorna quantos bytes ela alocou, com o detalhe por fase em report
+    private long runWindow(StringBuilder report) {
+        Arrays.fill(phaseBytes, 0);
+        for (int n = 0; n < WINDOW_FRAMES; n++)
+            frame();
+        assertFalse(world.isGameOver());
+        assertTrue(world.getShotsFired() > 0);
+        long total = 0;
+        report.setLength(0);
+        for (int phase = 0; phase < PHASES.length; phase++) {
+            total += phaseBytes[phase];
+            if (phaseBytes[phase] > 0)
+                report.append(String.format(" %s %d B (%.1f B/frame)", PHASES[phase], phaseBytes[phase],
+                        (double) phaseBytes[phase] / WINDOW_FRAMES));
+        }
+        return total;
+    }
+
+    @Test
+    public void defaultBoard() {
+        setUpLoop((int) GameWorld.TARGET_PIECES, false, false, false);
+        runAndCheck("default board");
+    }
+
+    @Test
+    public void largeBoardWithBroadphase() {
+        setUpLoop(900, false, false, false);
+        runAndCheck("900 targets");
+    }
+
+    @Test
+    public void continuousCollision() {
+        setUpLoop(900, true, false, false);
+        runAndCheck("continuous collision");
+    }
+
+    @Test
+    public void fixedPointWithAutoplayer() {
+        setUpLoop((int) GameWorld.TARGET_PIECES, false, true, true);
+        runAndCheck("fixed point + autoplayer");
+    }
+}
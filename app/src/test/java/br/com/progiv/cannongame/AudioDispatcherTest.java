@@ -0,0 +1,136 @@
+package br.com.progiv.cannongame;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * O despachante de áudio deve juntar repetições do mesmo quadro e roubar só vozes de prioridade menor ou igual.
+ */
+public class AudioDispatcherTest {
+
+    private static final int CANNON = 0;
+    private static final int BLOCKER = 1;
+    private static final int TARGET = 2;
+    private static final long LONG_SOUND = 60000000000L; //nunca termina durante o teste
+
+    //registra as chamadas ao SoundPool
+    private static class RecordingPlayer implements AudioDispatcher.Player {
+        int nextStream = 1;
+        int plays;
+        int stops;
+        int lastStopped;
+        int lastPlayed = -1;
+
+        @Override
+        public int play(int soundId, int priority) {
+            plays++;
+            lastPlayed = soundId;
+            return nextStream++;
+        }
+
+        @Override
+        public void stop(int streamId) {
+            stops++;
+            lastStopped = streamId;
+        }
+    }
+
+    private static AudioDispatcher newDispatcher(RecordingPlayer player, int voices) {
+        AudioDispatcher dispatcher = new AudioDispatcher(player, 3, voices, 8);
+        dispatcher.setSound(CANNON, 1, LONG_SOUND);
+        dispatcher.setSound(BLOCKER, 2, LONG_SOUND);
+        dispatcher.setSound(TARGET, 3, LONG_SOUND);
+        return dispatcher;
+    }
+
+    @Test
+    public void burstsInOneFramePlayOnce() {
+        RecordingPlayer player = new RecordingPlayer();
+        AudioDispatcher dispatcher = newDispatcher(player, 4);
+        dispatcher.beginFrame();
+        assertTrue(dispatcher.post(TARGET));
+        assertFalse(dispatcher.post(TARGET));
+        assertFalse(dispatcher.post(TARGET));
+        assertTrue(dispatcher.post(CANNON));
+        assertEquals(2, dispatcher.drain());
+        assertEquals(2, player.plays);
+        assertEquals(2, dispatcher.getDeduplicated());
+
+        dispatcher.beginFrame();
+        assertTrue(dispatcher.post(TARGET));
+        dispatcher.drain();
+        assertEquals(3, player.plays);
+        assertEquals(3, dispatcher.getLatency().getCount());
+    }
+
+    @Test
+    public void higherPriorityStealsLowestVoice() {
+        RecordingPlayer player = new RecordingPlayer();
+        AudioDispatcher dispatcher = newDispatcher(player, 2);
+        dispatcher.beginFrame();
+        dispatcher.post(BLOCKER); //stream 1
+        dispatcher.beginFrame();
+        dispatcher.post(CANNON); //stream 2
+        dispatcher.drain();
+        assertEquals(0, player.stops);
+
+        //as duas vozes estão ocupadas: o alvo rouba a do disparo (menor prioridade)
+        dispatcher.beginFrame();
+        dispatcher.post(TARGET);
+        dispatcher.drain();
+        assertEquals(1, player.stops);
+        assertEquals(2, player.lastStopped);
+        assertEquals(1, dispatcher.getStolen());
+
+        //um disparo não pode interromper barreira nem alvo
+        dispatcher.beginFrame();
+        dispatcher.post(CANNON);
+        dispatcher.drain();
+        assertEquals(TARGET, player.lastPlayed);
+        assertEquals(1, dispatcher.getRejected());
+    }
+
+    @Test
+    public void finishedVoicesAreReused() {
+        RecordingPlayer player = new RecordingPlayer();
+        AudioDispatcher dispatcher = new AudioDispatcher(player, 3, 1, 8);
+        dispatcher.setSound(CANNON, 1, 0);
+        for (int i = 0; i < 5; i++) {
+            dispatcher.beginFrame();
+            dispatcher.post(CANNON);
+            dispatcher.drain();
+        }
+        assertEquals(5, player.plays);
+        assertEquals(0, player.stops);
+        assertEquals(0, dispatcher.getRejected());
+    }
+
+    @Test
+    public void fullQueueDropsWithoutBlocking() {
+        RecordingPlayer player = new RecordingPlayer();
+        AudioDispatcher dispatcher = newDispatcher(player, 4);
+        for (int i = 0; i < 8; i++) {
+            dispatcher.beginFrame();
+            assertTrue(dispatcher.post(CANNON));
+        }
+        dispatcher.beginFrame();
+        assertFalse(dispatcher.post(CANNON));
+        assertEquals(1, dispatcher.getDropped());
+    }
+
+    @Test
+    public void audioThreadPlaysQueuedSounds() throws InterruptedException {
+        RecordingPlayer player = new RecordingPlayer();
+        AudioDispatcher dispatcher = newDispatcher(player, 4);
+        dispatcher.start();
+        dispatcher.beginFrame();
+        dispatcher.post(TARGET);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (dispatcher.getPlayed() == 0 && System.currentTimeMillis() < deadline)
+            Thread.sleep(1);
+        dispatcher.shutdown();
+        assertEquals(1, dispatcher.getPlayed());
+        assertEquals(1, player.plays);
+    }
+}
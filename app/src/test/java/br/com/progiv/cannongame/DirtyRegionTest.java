@@ -0,0 +1,114 @@
+package br.com.progiv.cannongame;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * O redesenho parcial deve cobrir o que se moveu, deixar de fora o HUD parado e medir quanto da tela redesenha.
+ */
+public class DirtyRegionTest {
+    private static final int WIDTH = 1920;
+    private static final int HEIGHT = 1080;
+    private static final double STEP = 1.0 / 60;
+    //HUD como no CannonView: texto de 60 px (1/18 da altura) a partir de (50, 100), três linhas
+    private static final int HUD_X = 50;
+    private static final float HUD_BOTTOM = 100 + 3 * 60 * 1.2f;
+    private static final float HUD_TEXT_WIDTH = 700;
+    private static final float PARTICLE_SIZE = HEIGHT / 160f;
+
+    @Test
+    public void coversCurrentAndPreviousPositions() {
+        DirtyRegion region = new DirtyRegion();
+        region.begin(WIDTH, HEIGHT);
+        region.addMoving(100, 100, 110, 110);
+        assertFalse(region.end(true));
+        region.begin(WIDTH, HEIGHT);
+        region.addMoving(120, 100, 130, 110);
+        assertTrue(region.end(false));
+        int margin = DirtyRegion.MARGIN;
+        assertEquals(100 - margin, region.getLeft());
+        assertEquals(100 - margin, region.getTop());
+        assertEquals(130 + margin, region.getRight());
+        assertEquals(110 + margin, region.getBottom());
+        //sem nada se movendo, o rastro do quadro anterior ainda é apagado uma vez
+        region.begin(WIDTH, HEIGHT);
+        assertTrue(region.end(false));
+        assertEquals(120 - margin, region.getLeft());
+        region.begin(WIDTH, HEIGHT);
+        assertTrue(region.end(false));
+        assertEquals(region.getLeft(), region.getRight());
+    }
+
+    @Test
+    public void clipsToScreenAndFallsBackToFullRedraw() {
+        DirtyRegion region = new DirtyRegion();
+        region.begin(WIDTH, HEIGHT);
+        region.end(true);
+        region.begin(WIDTH, HEIGHT);
+        region.addChanged(-50, -50, 100, 100);
+        assertTrue(region.end(false));
+        assertEquals(0, region.getLeft());
+        assertEquals(0, region.getTop());
+        //mais da metade da tela: sai mais barato redesenhar tudo
+        region.begin(WIDTH, HEIGHT);
+        region.addMoving(0, 0, WIDTH * 0.8f, HEIGHT * 0.8f);
+        assertFalse(region.end(false));
+        assertEquals(3, region.getFrames());
+        assertEquals(2, region.getFullFrames());
+    }
+
+    //fração média da tela redesenhada em uma partida com disparos sorteados
+    private static double meanDirtyFraction(boolean hudBand, boolean firing) {
+        GameWorld world = new GameWorld();
+        world.setScreenSize(WIDTH, HEIGHT);
+        world.setParticles(new ParticleSystem(GameWorld.PARTICLE_CAPACITY));
+        GameConfig config = new GameConfig();
+        config.setInitialTime(1e9);
+        world.setConfig(config);
+        world.newGame(new Random(42));
+        EntityStore board = new EntityStore(GameWorld.TARGET_SOUND_ID, (int) GameWorld.TARGET_PIECES);
+        board.copyFrom(world.getTargets());
+        WorldSnapshot snapshot = new WorldSnapshot(GameWorld.PROJECTILE_POOL_CAPACITY);
+        HudText timeRemaining = new HudText("Tempo restante: ", " segundos", 1, ',');
+        HudText shotsFired = new HudText("Tiros: ", "", 0, ',');
+        HudText elapsedTime = new HudText("Tempo decorrido: ", " segundos", 1, ',');
+        DirtyRegion region = new DirtyRegion();
+        Random input = new Random(1);
+        for (int frame = 0; frame < 3600; frame++) {
+            if (world.getTargets().size() <= 1)
+                world.getTargets().copyFrom(board);
+            if (firing && input.nextInt(60) == 0)
+                world.alignAndFireCannonBall(WIDTH / 2 + input.nextInt(WIDTH / 2), input.nextInt(HEIGHT));
+            world.step(STEP);
+            snapshot.capture(world, 0);
+            region.begin(WIDTH, HEIGHT);
+            boolean changed = timeRemaining.setValue(snapshot.getTimeLeft());
+            changed |= shotsFired.setValue(snapshot.getShotsFired());
+            changed |= elapsedTime.setValue(snapshot.getTotalElapsedTime());
+            if (hudBand)
+                region.addMoving(0, 0, WIDTH, HUD_BOTTOM); //a faixa inteira, em todo quadro
+            else if (changed)
+                region.addChanged(HUD_X, 0, HUD_X + HUD_TEXT_WIDTH, HUD_BOTTOM);
+            region.addSnapshot(snapshot, 1f, PARTICLE_SIZE);
+            region.end(frame == 0);
+        }
+        return region.getMeanDirtyFraction();
+    }
+
+    @Test
+    public void leavingOutTheStaticHudShrinksTheRedraw() {
+        //com a faixa do HUD em todo quadro o retângulo ia do canto esquerdo aos alvos: quase sempre a tela toda
+        //(medido: 99% com disparos e 100% sem); com o HUD só quando o texto muda, cerca de 71% e 53%
+        double band = meanDirtyFraction(true, true);
+        double text = meanDirtyFraction(false, true);
+        assertTrue("band " + band, band > 0.95);
+        assertTrue("text " + text + " vs band " + band, text < 0.8);
+        double idleBand = meanDirtyFraction(true, false);
+        double idleText = meanDirtyFraction(false, false);
+        assertTrue("idle band " + idleBand, idleBand > 0.95);
+        assertTrue("idle text " + idleText, idleText < 0.6);
+    }
+}
@@ -0,0 +1,112 @@
+package br.com.progiv.cannongame;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * O armazenamento em arrays paralelos deve manter as entidades intactas ao remover, crescer, copiar e mover.
+ */
+public class EntityStoreTest {
+    private static final int HEIGHT = 1080;
+
+    //entidade n com valores diferentes em cada campo
+    private static int add(EntityStore store, int n) {
+        return store.add(10 * n, 20 * n, 5 + n, 50 + n, 100 + n, n, 0xFF000000 | n);
+    }
+
+    private static void assertEntity(EntityStore store, int index, int n) {
+        assertEquals(10f * n, store.getX(index), 0f);
+        assertEquals(20f * n, store.getY(index), 0f);
+        assertEquals(5f + n, store.getWidth(index), 0f);
+        assertEquals(50f + n, store.getHeight(index), 0f);
+        assertEquals(100f + n, store.getVelocityY(index), 0f);
+        assertEquals(n, store.getValue(index));
+        assertEquals(0xFF000000 | n, store.getColor(index));
+        assertEquals(10f * n, store.getPreviousX(index), 0f);
+        assertEquals(20f * n, store.getPreviousY(index), 0f);
+    }
+
+    @Test
+    public void removeSwapMovesLastIntoHole() {
+        EntityStore store = new EntityStore(GameWorld.TARGET_SOUND_ID, 4);
+        for (int n = 0; n < 4; n++)
+            assertEquals(n, add(store, n));
+        store.removeSwap(1);
+        assertEquals(3, store.size());
+        assertEntity(store, 0, 0);
+        assertEntity(store, 1, 3);
+        assertEntity(store, 2, 2);
+        //remover a última só encolhe
+        store.removeSwap(2);
+        assertEquals(2, store.size());
+        assertEntity(store, 0, 0);
+        assertEntity(store, 1, 3);
+        store.removeSwap(0);
+        store.removeSwap(0);
+        assertTrue(store.isEmpty());
+    }
+
+    @Test
+    public void growsKeepingEntities() {
+        EntityStore store = new EntityStore(GameWorld.TARGET_SOUND_ID, 1);
+        for (int n = 0; n < 100; n++)
+            add(store, n);
+        assertEquals(100, store.size());
+        for (int n = 0; n < 100; n++)
+            assertEntity(store, n, n);
+        store.ensureCapacity(1000);
+        assertEquals(100, store.size());
+        assertEntity(store, 99, 99);
+    }
+
+    @Test
+    public void copyFromReplacesContents() {
+        EntityStore source = new EntityStore(GameWorld.TARGET_SOUND_ID, 1);
+        for (int n = 0; n < 20; n++)
+            add(source, n);
+        EntityStore copy = new EntityStore(GameWorld.TARGET_SOUND_ID, 1);
+        for (int n = 0; n < 30; n++)
+            add(copy, 100 + n);
+        copy.copyFrom(source);
+        assertEquals(20, copy.size());
+        for (int n = 0; n < 20; n++) {
+            assertEntity(copy, n, n);
+            assertEquals(source.getFixedY(n), copy.getFixedY(n));
+            assertEquals(source.getFixedVelocityY(n), copy.getFixedVelocityY(n));
+        }
+        //a cópia é independente da origem
+        source.removeSwap(0);
+        assertEntity(copy, 0, 0);
+    }
+
+    @Test
+    public void updateBouncesOffEdges() {
+        EntityStore store = new EntityStore(GameWorld.TARGET_SOUND_ID, 2);
+        store.add(0, 10, 10, 100, -100, 0, 0); //subindo, perto do topo
+        store.add(0, HEIGHT - 110, 10, 100, 100, 0, 0); //descendo, perto do fundo
+        store.savePreviousPositions();
+        store.update(0.5, HEIGHT);
+        //passou da borda neste passo: a velocidade inverte e o próximo passo volta para dentro
+        assertEquals(-40f, store.getY(0), 1e-4f);
+        assertEquals(100f, store.getVelocityY(0), 0f);
+        assertEquals(HEIGHT - 60f, store.getY(1), 1e-4f);
+        assertEquals(-100f, store.getVelocityY(1), 0f);
+        assertEquals(10f, store.getPreviousY(0), 0f);
+        store.update(0.5, HEIGHT);
+        assertEquals(10f, store.getY(0), 1e-4f);
+        assertEquals(100f, store.getVelocityY(0), 0f);
+        assertEquals(HEIGHT - 110f, store.getY(1), 1e-4f);
+    }
+
+    @Test
+    public void findIntersectingReturnsFirstOverlap() {
+        EntityStore store = new EntityStore(GameWorld.TARGET_SOUND_ID, 3);
+        store.add(100, 100, 10, 100, 0, 0, 0);
+        store.add(200, 100, 10, 100, 0, 0, 0);
+        store.add(205, 150, 10, 100, 0, 0, 0);
+        assertEquals(1, store.findIntersecting(new Bounds(195, 140, 215, 160)));
+        assertEquals(-1, store.findIntersecting(new Bounds(110, 100, 200, 200))); //bordas só encostam
+        assertEquals(0, store.findIntersecting(new Bounds(0, 0, 101, 101)));
+    }
+}
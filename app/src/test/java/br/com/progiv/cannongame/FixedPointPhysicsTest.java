@@ -0,0 +1,107 @@
+package br.com.progiv.cannongame;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Na física em ponto fixo o movimento não depende da taxa de passos e não perde frações de pixel.
+ */
+public class FixedPointPhysicsTest {
+    private static final int WIDTH = 1920;
+    private static final int HEIGHT = 1080;
+
+    private static GameWorld createWorld(boolean fixedPoint) {
+        GameWorld world = new GameWorld();
+        world.setScreenSize(WIDTH, HEIGHT);
+        world.setFixedPointPhysics(fixedPoint);
+        world.newGame(new Random(42));
+        return world;
+    }
+
+    //distância horizontal percorrida pela bala em seconds segundos com steps passos por segundo
+    private static int ballDistance(boolean fixedPoint, int stepsPerSecond, double seconds) {
+        GameWorld world = createWorld(fixedPoint);
+        world.getBlockers().clear();
+        world.getTargets().clear();
+        world.getCannon().align(Math.PI / 2 - 0.01);
+        assertTrue(world.getCannon().fireCannonBall());
+        CannonBall ball = world.getProjectiles().get(0);
+        int start = ball.getShape().left;
+        for (int n = 0; n < (int) Math.round(seconds * stepsPerSecond); n++)
+            ball.update(1.0 / stepsPerSecond);
+        return ball.getShape().left - start;
+    }
+
+    @Test
+    public void conversions() {
+        assertEquals(1 << FixedPoint.VELOCITY_SHIFT, FixedPoint.velocity(1));
+        assertEquals(-1, FixedPoint.toPixels(FixedPoint.position(-0.5)));
+        assertEquals(2.5f, FixedPoint.toFloat(FixedPoint.position(2.5)), 0f);
+        //1 px/s durante 1/60 s, somado 60 vezes, dá 1 px
+        long position = 0;
+        long interval = FixedPoint.interval(1.0 / 60);
+        for (int n = 0; n < 60; n++)
+            position += FixedPoint.displacement(FixedPoint.velocity(1), interval);
+        assertEquals(1.0, FixedPoint.toFloat(position), 1e-6);
+    }
+
+    @Test
+    public void displacementDoesNotOverflowAtTheLimits() {
+        //4096 px/s por 8 s era exatamente o ponto de estouro; a bala passa de 4096 px/s em telas largas
+        assertEquals(5000.0 * 0.5, FixedPoint.toFloat(
+                FixedPoint.displacement(FixedPoint.velocity(5000), FixedPoint.interval(0.5))), 1e-3);
+        long fast = FixedPoint.displacement(FixedPoint.velocity(-1e6), FixedPoint.interval(100));
+        assertEquals(-FixedPoint.MAX_SPEED * FixedPoint.MAX_INTERVAL, FixedPoint.toFloat(fast), 1e-2);
+        long limit = FixedPoint.displacement(FixedPoint.velocity(FixedPoint.MAX_SPEED),
+                FixedPoint.interval(FixedPoint.MAX_INTERVAL));
+        assertEquals(FixedPoint.MAX_SPEED * FixedPoint.MAX_INTERVAL, FixedPoint.toFloat(limit), 1e-2);
+    }
+
+    @Test
+    public void ballSpeedDoesNotDependOnStepRate() {
+        int slow = ballDistance(true, 30, 0.5);
+        int fast = ballDistance(true, 480, 0.5);
+        assertTrue("30 Hz " + slow + " px, 480 Hz " + fast + " px", Math.abs(slow - fast) <= 1);
+        //a velocidade inteira perde a fração de pixel a cada passo: a 480 Hz a bala anda menos
+        assertTrue(ballDistance(false, 480, 0.5) < fast);
+    }
+
+    @Test
+    public void slowTargetsKeepMovingAtHighStepRates() {
+        GameWorld world = createWorld(true);
+        EntityStore targets = world.getTargets();
+        targets.clear();
+        targets.add(1000, 100, 40, 100, 20, 1, 0);
+        for (int n = 0; n < 1000; n++)
+            world.step(1.0 / 1000);
+        assertEquals(120f, targets.getY(0), 1e-4f);
+    }
+
+    @Test
+    public void autoplayerAndReplayWorkWithFixedPoint() throws Exception {
+        GameWorld world = new GameWorld();
+        world.setScreenSize(WIDTH, HEIGHT);
+        world.setFixedPointPhysics(true);
+        SessionRecorder recorder = new SessionRecorder();
+        world.setRecorder(recorder);
+        world.newGame(7L);
+        assertTrue(world.isFixedPointPhysics());
+        AimSolver solver = new AimSolver(null, AimSolver.DEFAULT_CANDIDATES);
+        solver.setBudgetNanos(Long.MAX_VALUE / 4);
+        Autoplayer player = new Autoplayer(solver);
+        for (int n = 0; n < 10000 && !world.isGameOver(); n++) {
+            player.update(world, 1.0 / 60);
+            world.step(1.0 / 60);
+        }
+        //a busca simula a mesma conta inteira do mundo: um disparo por alvo
+        assertTrue(world.getTargets().isEmpty());
+        assertEquals((int) GameWorld.TARGET_PIECES, world.getShotsFired());
+
+        SessionReplayer.Result result = SessionReplayer.replay(recorder.toByteArray());
+        assertTrue(result.matchesRecording());
+        assertEquals(Double.doubleToLongBits(world.getTimeLeft()), Double.doubleToLongBits(result.getTimeLeft()));
+    }
+}
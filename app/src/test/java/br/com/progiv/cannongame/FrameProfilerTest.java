@@ -0,0 +1,79 @@
+package br.com.progiv.cannongame;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Os percentis do histograma devem ficar perto dos exatos e as fases de cada quadro devem ser registradas.
+ */
+public class FrameProfilerTest {
+
+    @Test
+    public void bucketsCoverTheirValues() {
+        long[] values = {0, 1, 15, 16, 17, 31, 32, 1000, 16666666, 1L << 40, Long.MAX_VALUE};
+        for (long value : values) {
+            int bucket = TimingHistogram.bucketOf(value);
+            assertTrue(value <= TimingHistogram.highestValueIn(bucket));
+            if (bucket > 0)
+                assertTrue(value > TimingHistogram.highestValueIn(bucket - 1));
+        }
+    }
+
+    @Test
+    public void percentilesAreWithinBucketPrecision() {
+        TimingHistogram histogram = new TimingHistogram();
+        Random random = new Random(7);
+        long[] samples = new long[10000];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = 1000000 + (long) (random.nextDouble() * random.nextDouble() * 30000000);
+            histogram.record(samples[i]);
+        }
+        Arrays.sort(samples);
+        double[] percentiles = {50, 95, 99};
+        for (double percentile : percentiles) {
+            long exact = samples[(int) Math.ceil(percentile / 100 * samples.length) - 1];
+            long reported = histogram.getPercentile(percentile);
+            assertTrue(reported >= exact);
+            assertTrue(reported <= exact * 1.07);
+        }
+        assertEquals(samples[samples.length - 1], histogram.getMax());
+        assertEquals(samples[samples.length - 1], histogram.getPercentile(100));
+        assertEquals(samples.length, histogram.getCount());
+    }
+
+    @Test
+    public void countsJankAgainstBudget() {
+        FrameProfiler profiler = new FrameProfiler(16000000);
+        profiler.endFrame(10000000);
+        profiler.endFrame(20000000);
+        profiler.endFrame(40000000);
+        assertEquals(3, profiler.getFrameCount());
+        assertEquals(2, profiler.getJankFrames());
+        assertEquals(1, profiler.getSevereJankFrames());
+
+        profiler.requestReset();
+        profiler.endFrame(1000000);
+        assertEquals(1, profiler.getFrameCount());
+        assertEquals(0, profiler.getJankFrames());
+    }
+
+    @Test
+    public void worldStepsRecordUpdateAndCollision() {
+        GameWorld world = new GameWorld();
+        world.setScreenSize(1920, 1080);
+        world.newGame(new Random(1));
+        FrameProfiler profiler = new FrameProfiler(16666666);
+        world.setProfiler(profiler);
+        for (int frame = 0; frame < 30; frame++) {
+            world.step(1.0 / 60);
+            profiler.endFrame(1);
+        }
+        assertEquals(30, profiler.getHistogram(FrameProfiler.UPDATE).getCount());
+        assertEquals(30, profiler.getHistogram(FrameProfiler.COLLISION).getCount());
+        assertTrue(profiler.getHistogram(FrameProfiler.UPDATE).getMax() > 0);
+    }
+}
@@ -0,0 +1,143 @@
+package br.com.progiv.cannongame;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Testes do mundo do jogo rodando direto na JVM, sem emulador.
+ */
+public class GameWorldTest {
+    private static final int WIDTH = 1920;
+    private static final int HEIGHT = 1080;
+    private static final double STEP = 1.0 / 60;
+
+    private GameWorld world;
+    private int sounds;
+    private int gameOvers;
+    private boolean won;
+
+    @Before
+    public void setUp() {
+        world = new GameWorld();
+        world.setScreenSize(WIDTH, HEIGHT);
+        world.setListener(new GameWorld.Listener() {
+            @Override
+            public void playSound(int soundId) {
+                sounds++;
+            }
+
+            @Override
+            public void onGameOver(boolean w) {
+                gameOvers++;
+                won = w;
+            }
+        });
+        world.newGame(new Random(42));
+    }
+
+    @Test
+    public void newGame_createsBoard() {
+        assertEquals((int) GameWorld.TARGET_PIECES, world.getTargets().size());
+        assertEquals(GameWorld.INITIAL_TIME, world.getTimeLeft(), 0.0);
+        assertEquals(0, world.getShotsFired());
+        assertFalse(world.isGameOver());
+    }
+
+    @Test
+    public void config_appliesOnNextGame() {
+        GameConfig config = new GameConfig();
+        config.setHitReward(7);
+        config.setMissPenalty(5);
+        config.setInitialTime(12);
+        config.setTargetMinSpeedPercent(0);
+        config.setTargetMaxSpeedPercent(0);
+        world.setConfig(config);
+        //o jogo atual continua com as constantes padrão
+        assertEquals(GameWorld.HIT_REWARD, world.getTargets().getValue(0));
+
+        world.newGame(new Random(42));
+        assertEquals(12.0, world.getTimeLeft(), 0.0);
+        assertEquals(5, world.getBlockers().getValue(0));
+        for (int n = 0; n < world.getTargets().size(); n++) {
+            assertEquals(7, world.getTargets().getValue(n));
+            assertEquals(0f, world.getTargets().getVelocityY(n), 0f);
+        }
+    }
+
+    @Test
+    public void timeRunsOut_losesGame() {
+        for (int n = 0; n < 2000; n++)
+            world.step(STEP);
+        assertTrue(world.isGameOver());
+        assertEquals(1, gameOvers);
+        assertFalse(won);
+        assertEquals(0.0, world.getTimeLeft(), 0.0);
+    }
+
+    @Test
+    public void firing_countsShotAndPlaysSound() {
+        world.alignAndFireCannonBall(WIDTH, HEIGHT / 2);
+        assertEquals(1, world.getShotsFired());
+        assertEquals(1, sounds);
+        assertEquals(1, world.getProjectiles().size());
+        //não dispara outra bala enquanto a primeira está na tela
+        world.alignAndFireCannonBall(WIDTH, HEIGHT / 2);
+        assertEquals(1, world.getShotsFired());
+    }
+
+    @Test
+    public void ballHitsTarget_orBlocker_withinOneSecond() {
+        world.alignAndFireCannonBall(WIDTH, HEIGHT / 2);
+        for (int n = 0; n < 60; n++)
+            world.step(STEP);
+        //a bala acerta a barreira (penalidade) ou um alvo (recompensa)
+        boolean hitTarget = world.getTargets().size() == GameWorld.TARGET_PIECES - 1;
+        boolean hitBlocker = world.getTimeLeft() < GameWorld.INITIAL_TIME - 1 - GameWorld.MISS_PENALTY + 0.01;
+        assertTrue(hitTarget || hitBlocker);
+        assertTrue(sounds >= 2);
+    }
+
+    @Test
+    public void rapidFire_reusesPooledBalls() {
+        ProjectilePool projectiles = world.getProjectiles();
+        CannonBall[] pooled = new CannonBall[projectiles.getCapacity()];
+        for (int n = 0; n < pooled.length; n++)
+            pooled[n] = projectiles.acquire();
+        projectiles.clear();
+
+        world.setRapidFire(true);
+        world.setTriggerPulled(true);
+        world.alignAndFireCannonBall(WIDTH, 0);
+        int maxActive = 0;
+        for (int n = 0; n < 120; n++) {
+            world.step(STEP);
+            maxActive = Math.max(maxActive, projectiles.size());
+            //as balas ativas são sempre objetos do conjunto pré-alocado
+            for (int b = 0; b < projectiles.size(); b++)
+                assertTrue(java.util.Arrays.asList(pooled).contains(projectiles.get(b)));
+        }
+        //cerca de 20 disparos por segundo durante 2 segundos
+        assertTrue(world.getShotsFired() >= 35);
+        assertTrue(maxActive > 1);
+        assertTrue(maxActive <= projectiles.getCapacity());
+    }
+
+    @Test
+    public void stepsManyFramesHeadless() {
+        //milhares de passos por milissegundo; o limite é folgado (máquinas de CI lentas, JIT ainda frio)
+        //e só pega regressões grosseiras: a medida fina fica com os benchmarks JMH
+        int frames = 100000;
+        long start = System.nanoTime();
+        for (int n = 0; n < frames; n++) {
+            if (world.isGameOver())
+                world.newGame(new Random(n));
+            world.step(STEP);
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1000000;
+        assertTrue(frames + " frames took " + elapsedMs + " ms", elapsedMs < 1000);
+    }
+}
@@ -0,0 +1,42 @@
+package br.com.progiv.cannongame;
+
+import org.junit.Test;
+
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+/**
+ * O texto do HUD deve ser igual ao de String.format, sem criar Strings.
+ */
+public class HudTextTest {
+
+    @Test
+    public void formatsLikeStringFormat() {
+        HudText text = new HudText("Tempo restante: ", " segundos", 1, '.');
+        double[] values = {0, 0.04, 0.05, 0.96, 1, 9.95, 12.34, 19.999, 20, 123.45, 100000.25};
+        for (double value : values) {
+            text.setValue(value);
+            assertEquals(String.format(Locale.US, "Tempo restante: %.1f segundos", value),
+                    new String(text.getChars(), 0, text.length()));
+        }
+    }
+
+    @Test
+    public void integerValues() {
+        HudText text = new HudText("Tiros: ", "", 0, ',');
+        text.setValue(0L);
+        assertEquals("Tiros: 0", new String(text.getChars(), 0, text.length()));
+        text.setValue(1234L);
+        assertEquals("Tiros: 1234", new String(text.getChars(), 0, text.length()));
+    }
+
+    @Test
+    public void onlyReformatsWhenShownValueChanges() {
+        HudText text = new HudText("", "", 1, ',');
+        assertTrue(text.setValue(10.0));
+        assertFalse(text.setValue(10.04));
+        assertTrue(text.setValue(9.94));
+        assertEquals("9,9", new String(text.getChars(), 0, text.length()));
+    }
+}
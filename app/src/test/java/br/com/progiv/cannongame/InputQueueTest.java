@@ -0,0 +1,106 @@
+package br.com.progiv.cannongame;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * A fila de toques deve entregar os eventos em ordem, juntar MOVEs seguidos e funcionar entre duas threads.
+ */
+public class InputQueueTest {
+
+    private final int[] types = new int[16];
+    private final int[] xs = new int[16];
+    private int received;
+
+    private final InputQueue.Handler recorder = new InputQueue.Handler() {
+        @Override
+        public void onInput(int type, int x, int y) {
+            types[received] = type;
+            xs[received] = x;
+            received++;
+        }
+    };
+
+    @Test
+    public void coalescesConsecutiveMoves() {
+        InputQueue queue = new InputQueue(16);
+        queue.offer(InputQueue.PRESS, 1, 0);
+        queue.offer(InputQueue.MOVE, 2, 0);
+        queue.offer(InputQueue.MOVE, 3, 0);
+        queue.offer(InputQueue.MOVE, 4, 0);
+        queue.offer(InputQueue.RELEASE, 5, 0);
+        queue.offer(InputQueue.MOVE, 6, 0);
+        assertEquals(6, queue.drain(recorder));
+        assertEquals(4, received);
+        assertArrayEquals(new int[]{InputQueue.PRESS, InputQueue.MOVE, InputQueue.RELEASE, InputQueue.MOVE},
+                Arrays.copyOf(types, received));
+        assertArrayEquals(new int[]{1, 4, 5, 6}, Arrays.copyOf(xs, received));
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void droppedReleaseStillReleasesTrigger() {
+        InputQueue queue = new InputQueue(4);
+        for (int i = 0; i < queue.getCapacity(); i++)
+            assertTrue(queue.offer(InputQueue.PRESS, i, 0));
+        assertFalse(queue.offer(InputQueue.RELEASE, 9, 0));
+        assertEquals(1, queue.getDroppedEvents());
+        queue.drain(recorder);
+        assertEquals(InputQueue.RELEASE, types[received - 1]);
+        //o espaço liberado volta a ser usado
+        assertTrue(queue.offer(InputQueue.PRESS, 0, 0));
+    }
+
+    @Test
+    public void worldAppliesQueuedTouches() {
+        GameWorld world = new GameWorld();
+        world.setScreenSize(1920, 1080);
+        world.newGame(new Random(3));
+        InputQueue queue = new InputQueue(16);
+        world.setInputQueue(queue);
+        queue.offer(InputQueue.PRESS, 1920, 540);
+        assertEquals(0, world.getShotsFired());
+        world.step(1.0 / 60);
+        assertEquals(1, world.getShotsFired());
+        queue.offer(InputQueue.RELEASE, 1920, 540);
+        world.step(1.0 / 60);
+        assertEquals(1, world.getShotsFired());
+    }
+
+    @Test
+    public void producerAndConsumerThreads() throws InterruptedException {
+        final InputQueue queue = new InputQueue(64);
+        final int events = 100000;
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < events; i++)
+                    while (!queue.offer(InputQueue.PRESS, i, -i))
+                        Thread.yield();
+            }
+        });
+        final int[] next = {0};
+        final boolean[] ordered = {true};
+        InputQueue.Handler checker = new InputQueue.Handler() {
+            @Override
+            public void onInput(int type, int x, int y) {
+                if (x != next[0] || y != -x)
+                    ordered[0] = false;
+                next[0]++;
+            }
+        };
+        producer.setDaemon(true);
+        producer.start();
+        long deadline = System.currentTimeMillis() + 10000;
+        while (next[0] < events && System.currentTimeMillis() < deadline)
+            if (queue.drain(checker) == 0)
+                Thread.yield();
+        producer.join(1000);
+        assertTrue(ordered[0]);
+        assertEquals(events, next[0]);
+    }
+}
@@ -0,0 +1,202 @@
+package br.com.progiv.cannongame;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Os níveis no formato binário devem carregar do arquivo mapeado sem perder dados e pacotes corrompidos devem ser recusados.
+ */
+public class LevelPackTest {
+
+    //escreve o formato binário direto (o compilador da forma de texto fica no módulo benchmark)
+    private static final class PackWriter {
+        private final List<byte[]> levels = new ArrayList<>();
+        private String name;
+        private float initialTime;
+        private int blockerCount;
+        private int targetCount;
+        private ByteArrayOutputStream blockers;
+        private ByteArrayOutputStream targets;
+
+        PackWriter level(String name, double initialTime) {
+            this.name = name;
+            this.initialTime = (float) initialTime;
+            blockerCount = 0;
+            targetCount = 0;
+            blockers = new ByteArrayOutputStream();
+            targets = new ByteArrayOutputStream();
+            return this;
+        }
+
+        PackWriter blocker(float x, float y, float w, float h, float vy, int value, int color) throws IOException {
+            entity(blockers, x, y, w, h, vy, value, color);
+            ++blockerCount;
+            return this;
+        }
+
+        PackWriter target(float x, float y, float w, float h, float vy, int value, int color) throws IOException {
+            entity(targets, x, y, w, h, vy, value, color);
+            ++targetCount;
+            return this;
+        }
+
+        PackWriter end() throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            byte[] nameBytes = name.getBytes("UTF-8");
+            out.writeShort(nameBytes.length);
+            out.write(nameBytes);
+            out.writeFloat(initialTime);
+            out.writeInt(blockerCount);
+            out.writeInt(targetCount);
+            blockers.writeTo(out);
+            targets.writeTo(out);
+            levels.add(bytes.toByteArray());
+            return this;
+        }
+
+        byte[] toBytes() throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(LevelPack.MAGIC);
+            out.writeShort(LevelPack.VERSION);
+            out.writeShort(0);
+            out.writeInt(levels.size());
+            int offset = LevelPack.HEADER_SIZE + levels.size() * LevelPack.INDEX_ENTRY_SIZE;
+            for (byte[] level : levels) {
+                out.writeInt(offset);
+                out.writeInt(level.length);
+                offset += level.length;
+            }
+            for (byte[] level : levels)
+                out.write(level);
+            return bytes.toByteArray();
+        }
+
+        private static void entity(ByteArrayOutputStream bytes, float x, float y, float w, float h, float vy,
+                                   int value, int color) throws IOException {
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeFloat(x);
+            out.writeFloat(y);
+            out.writeFloat(w);
+            out.writeFloat(h);
+            out.writeFloat(vy);
+            out.writeShort(value);
+            out.writeInt(color);
+        }
+    }
+
+    private static byte[] twoLevels() throws IOException {
+        return new PackWriter()
+                .level("Primeiro", 15)
+                .blocker(0.5f, 0.25f, 0.025f, 0.25f, 1, GameWorld.MISS_PENALTY, Cannon.COLOR)
+                .blocker(0.3f, 0.5f, 0.05f, 0.1f, -0.5f, 4, 0xFF00FF00)
+                .target(0.6f, 0.4f, 0.025f, 0.15f, -0.9f, GameWorld.HIT_REWARD, GameWorld.DEFAULT_DARK_COLOR)
+                .target(0.7f, 0.4f, 0.025f, 0.15f, 0.8f, GameWorld.HIT_REWARD, 0xFF123456)
+                .end()
+                .level("Segundo", GameWorld.INITIAL_TIME)
+                .target(0.9f, 0.1f, 0.01f, 0.01f, 0, 7, GameWorld.DEFAULT_DARK_COLOR)
+                .end()
+                .toBytes();
+    }
+
+    @Test
+    public void packedLevelsLoadIntoTheWorld() throws IOException {
+        LevelPack pack = new LevelPack(ByteBuffer.wrap(twoLevels()));
+        assertEquals(2, pack.getLevelCount());
+        assertEquals("Primeiro", pack.getLevelName(0));
+        assertEquals("Segundo", pack.getLevelName(1));
+
+        GameWorld world = new GameWorld();
+        world.setScreenSize(1000, 800);
+        world.newGame(pack, 0);
+        assertEquals(15, world.getTimeLeft(), 0.0);
+        EntityStore blockers = world.getBlockers();
+        assertEquals(2, blockers.size());
+        assertEquals(500, blockers.getX(0), 0f);
+        assertEquals(200, blockers.getY(0), 0f);
+        assertEquals(800, blockers.getVelocityY(0), 0f);
+        assertEquals(GameWorld.MISS_PENALTY, blockers.getValue(0));
+        assertEquals(4, blockers.getValue(1));
+        assertEquals(0xFF00FF00, blockers.getColor(1));
+        EntityStore targets = world.getTargets();
+        assertEquals(2, targets.size());
+        assertEquals(GameWorld.DEFAULT_DARK_COLOR, targets.getColor(0));
+        assertEquals(0xFF123456, targets.getColor(1));
+        assertEquals(-720, targets.getVelocityY(0), 0.01f);
+
+        world.newGame(pack, 1);
+        assertEquals(GameWorld.INITIAL_TIME, world.getTimeLeft(), 1e-5);
+        assertEquals(0, world.getBlockers().size());
+        assertEquals(1, world.getTargets().size());
+        assertEquals(7, world.getTargets().getValue(0));
+    }
+
+    @Test
+    public void rejectsCorruptPacks() throws IOException {
+        byte[] bytes = twoLevels();
+        try {
+            //corta o último alvo do segundo nível
+            new LevelPack(ByteBuffer.wrap(bytes, 0, bytes.length - 4).slice());
+            fail("truncated pack accepted");
+        } catch (IOException e) {
+            //esperado
+        }
+    }
+
+    @Test
+    public void rejectsCountsThatOverflow() throws IOException {
+        byte[] bytes = new PackWriter().level("A", 10).end().toBytes();
+        //contagens do nível: depois do cabeçalho, do índice, do nome e do tempo inicial
+        int counts = LevelPack.HEADER_SIZE + LevelPack.INDEX_ENTRY_SIZE + 2 + 1 + 4;
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        //somadas em int dariam um número negativo e passariam na checagem de tamanho
+        buffer.putInt(counts, Integer.MAX_VALUE);
+        buffer.putInt(counts + 4, 2);
+        try {
+            new LevelPack(buffer);
+            fail("overflowing entity counts accepted");
+        } catch (IOException e) {
+            //esperado
+        }
+    }
+
+    @Test
+    public void largeLevelLoadsFromMappedFile() throws IOException {
+        PackWriter writer = new PackWriter().level("Grande", GameWorld.INITIAL_TIME);
+        writer.blocker(0.5f, 0.5f, 0.01f, 0.2f, 1, GameWorld.MISS_PENALTY, Cannon.COLOR);
+        for (int n = 0; n < 10000; n++)
+            writer.target((n % 100) / 100f, (n / 100) / 100f, 0.005f, 0.005f, 0.5f,
+                    GameWorld.HIT_REWARD, GameWorld.DEFAULT_DARK_COLOR);
+        File file = File.createTempFile("levels", ".pack");
+        file.deleteOnExit();
+        FileOutputStream output = new FileOutputStream(file);
+        output.write(writer.end().toBytes());
+        output.close();
+
+        LevelPack pack = LevelPack.open(file);
+        GameWorld world = new GameWorld();
+        world.setScreenSize(1920, 1080);
+        world.newGame(pack, 0);
+        assertEquals(10000, world.getTargets().size());
+        assertEquals(1, world.getBlockers().size());
+        assertEquals(99 * 1920 / 100, world.getTargets().getX(9999), 1f);
+
+        //com os stores já do tamanho certo, carregar de novo não cria nada
+        long start = System.nanoTime();
+        world.newGame(pack, 0);
+        long elapsed = System.nanoTime() - start;
+        assertTrue("took " + elapsed / 1000000 + " ms", elapsed < 1000000000L);
+        world.step(1.0 / 60);
+    }
+}
@@ -0,0 +1,201 @@
+package br.com.progiv.cannongame;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * O buffer circular de partículas deve respeitar o limite, expirar as antigas e entregar o lote agrupado por cor.
+ */
+public class ParticleSystemTest {
+    private static final int RED = 0xFFFF0000;
+    private static final int BLUE = 0xFF0000FF;
+    private static final double STEP = 1.0 / 60;
+
+    @Test
+    public void oldestParticlesAreReplacedAtCapacity() {
+        ParticleSystem particles = new ParticleSystem(100);
+        particles.emit(0, 0, 60, RED, 0, 0, 100, 10);
+        particles.emit(0, 0, 60, BLUE, 0, 0, 100, 10);
+        assertEquals(100, particles.size());
+        assertEquals(100, particles.getLiveCount());
+        assertEquals(120, particles.getEmitted());
+        assertEquals(20, particles.getOverwritten());
+        //sobraram 40 vermelhas, as mais novas
+        ParticleBatch batch = new ParticleBatch();
+        particles.writeBatch(batch);
+        assertEquals(100, batch.size());
+        assertEquals(40, groupTotal(batch, RED));
+        assertEquals(60, groupTotal(batch, BLUE));
+    }
+
+    @Test
+    public void expiredParticlesLeaveTheBuffer() {
+        ParticleSystem particles = new ParticleSystem(1000);
+        particles.emit(0, 0, 50, RED, 0, 0, 100, 0.5f);
+        for (int n = 0; n < 20; n++)
+            particles.update(STEP);
+        particles.emit(0, 0, 50, BLUE, 0, 0, 100, 0.5f);
+        //0,5 s com variação de 25%: depois de 0,63 s todas as vermelhas expiraram
+        for (int n = 0; n < 18; n++)
+            particles.update(STEP);
+        assertEquals(50, particles.getLiveCount());
+        assertEquals(50, particles.size());
+        ParticleBatch batch = new ParticleBatch();
+        particles.writeBatch(batch);
+        assertEquals(0, groupTotal(batch, RED));
+        assertEquals(50, groupTotal(batch, BLUE));
+        for (int n = 0; n < 60; n++)
+            particles.update(STEP);
+        assertEquals(0, particles.size());
+    }
+
+    @Test
+    public void particlesMoveInTheirCone() {
+        ParticleSystem particles = new ParticleSystem(500);
+        //para baixo, com leque de 90 graus
+        particles.emit(100, 100, 500, RED, (float) (Math.PI / 2), (float) (Math.PI / 2), 600, 10);
+        particles.update(0.5);
+        ParticleBatch batch = new ParticleBatch();
+        particles.writeBatch(batch);
+        float[] points = batch.getPoints();
+        for (int p = 0; p < batch.size(); p++) {
+            float dx = points[2 * p] - 100;
+            float dy = points[2 * p + 1] - 100;
+            //velocidade entre 300 e 600 px/s por 0,5 s, a até 45 graus da vertical
+            double distance = Math.hypot(dx, dy);
+            assertTrue(distance >= 150 - 1e-3 && distance <= 300 + 1e-3);
+            assertTrue(dy >= Math.abs(dx) - 1e-3);
+        }
+        assertTrue(batch.getTop() >= 100);
+        assertTrue(batch.getBottom() <= 400);
+    }
+
+    @Test
+    public void gravityPullsDown() {
+        ParticleSystem particles = new ParticleSystem(10);
+        particles.setGravity(1000);
+        particles.emit(0, 0, 10, RED, 0, 0, 0, 10);
+        particles.update(1);
+        ParticleBatch batch = new ParticleBatch();
+        particles.writeBatch(batch);
+        for (int p = 0; p < batch.size(); p++)
+            assertEquals(1000f, batch.getPoints()[2 * p + 1], 1e-3f);
+    }
+
+    @Test
+    public void batchGroupsByColorAndFade() {
+        ParticleSystem particles = new ParticleSystem(1000);
+        particles.emit(0, 0, 100, RED, 0, 0, 10, 1);
+        particles.emit(0, 0, 100, BLUE, 0, 0, 10, 1);
+        for (int n = 0; n < 40; n++)
+            particles.update(STEP);
+        particles.emit(0, 0, 100, RED, 0, 0, 10, 1);
+        ParticleBatch batch = new ParticleBatch();
+        particles.writeBatch(batch);
+        assertEquals(2 * ParticleBatch.FADE_LEVELS, batch.getGroupCount());
+        assertEquals(300, batch.size());
+        int start = 0;
+        for (int g = 0; g < batch.getGroupCount(); g++) {
+            //os grupos são trechos seguidos do array
+            assertEquals(start, batch.getGroupStart(g));
+            start += batch.getGroupSize(g);
+        }
+        //as recém-emitidas estão opacas; as de 2/3 da vida, mais transparentes
+        assertEquals(RED, batch.getGroupColor(0));
+        assertEquals(100, batch.getGroupSize(0));
+        int fadedRed = 0;
+        for (int fade = 1; fade < ParticleBatch.FADE_LEVELS; fade++) {
+            fadedRed += batch.getGroupSize(fade);
+            assertTrue((batch.getGroupColor(fade) >>> 24) < 0xFF);
+            assertEquals(RED & 0xFFFFFF, batch.getGroupColor(fade) & 0xFFFFFF);
+        }
+        assertEquals(100, fadedRed);
+        assertEquals(100, groupTotal(batch, BLUE));
+    }
+
+    @Test
+    public void paletteGrowsAndCountsOverflow() {
+        ParticleSystem particles = new ParticleSystem(2 * ParticleSystem.MAX_COLORS);
+        //mais cores que a paleta inicial: cada uma continua com a própria cor
+        for (int c = 0; c < 40; c++)
+            particles.emit(0, 0, 1, 0xFF000000 | c * 0x010101, 0, 0, 10, 1);
+        ParticleBatch batch = new ParticleBatch();
+        particles.writeBatch(batch);
+        assertEquals(40, particles.getColorCount());
+        assertEquals(40 * ParticleBatch.FADE_LEVELS, batch.getGroupCount());
+        for (int c = 0; c < 40; c++)
+            assertEquals(1, groupTotal(batch, 0xFF000000 | c * 0x010101));
+        assertEquals(0, particles.getColorOverflows());
+        //paleta cheia: a cor nova usa a mais próxima e a troca é contada
+        for (int c = 40; c < ParticleSystem.MAX_COLORS; c++)
+            particles.emit(0, 0, 1, 0xFF000000 | c << 16, 0, 0, 10, 1);
+        assertEquals(ParticleSystem.MAX_COLORS, particles.getColorCount());
+        particles.emit(0, 0, 1, 0xFF0A0A0B, 0, 0, 10, 1);
+        assertEquals(1, particles.getColorOverflows());
+        particles.writeBatch(batch);
+        assertEquals(2, groupTotal(batch, 0xFF0A0A0A));
+        assertEquals(ParticleSystem.MAX_COLORS + 1, batch.size());
+    }
+
+    @Test
+    public void emissionScaleReducesParticles() {
+        ParticleSystem particles = new ParticleSystem(1000);
+        particles.setEmissionScale(QualityGovernor.REDUCED_EFFECTS_SCALE);
+        particles.emit(0, 0, 48, RED, 0, 0, 10, 1);
+        assertEquals(12, particles.size());
+        particles.setEmissionScale(0);
+        particles.emit(0, 0, 48, RED, 0, 0, 10, 1);
+        assertEquals(12, particles.size());
+    }
+
+    @Test
+    public void worldEmitsOnFireBounceAndHit() {
+        GameWorld world = new GameWorld();
+        world.setScreenSize(1920, 1080);
+        ParticleSystem particles = new ParticleSystem(GameWorld.PARTICLE_CAPACITY);
+        world.setParticles(particles);
+        world.newGame(new Random(42));
+        //disparo contra a barreira
+        world.getTargets().clear();
+        world.getTargets().add(1900, 0, 10, 10, 0, 1, GameWorld.DEFAULT_DARK_COLOR);
+        EntityStore blockers = world.getBlockers();
+        blockers.clear();
+        blockers.add(960, 0, 40, 1080, 0, 1, Cannon.COLOR);
+        world.getCannon().align(Math.PI / 2);
+        assertTrue(world.getCannon().fireCannonBall());
+        assertEquals(GameWorld.MUZZLE_PARTICLES, particles.getEmitted());
+        for (int n = 0; n < 120 && !world.getProjectiles().isEmpty(); n++)
+            world.step(STEP);
+        assertEquals(GameWorld.MUZZLE_PARTICLES + GameWorld.BLOCKER_HIT_PARTICLES, particles.getEmitted());
+        //disparo no alvo, sem barreira
+        blockers.clear();
+        world.getTargets().clear();
+        world.getTargets().add(1200, 500, 40, 100, 0, 1, GameWorld.DEFAULT_DARK_COLOR);
+        world.getTargets().add(1900, 0, 10, 10, 0, 1, GameWorld.DEFAULT_LIGHT_COLOR);
+        assertTrue(world.getCannon().fireCannonBall());
+        for (int n = 0; n < 120 && !world.getProjectiles().isEmpty(); n++)
+            world.step(STEP);
+        assertEquals(1, world.getTargets().size());
+        assertEquals(2 * GameWorld.MUZZLE_PARTICLES + GameWorld.BLOCKER_HIT_PARTICLES + GameWorld.TARGET_HIT_PARTICLES,
+                particles.getEmitted());
+        //o lote do instantâneo tem os estilhaços na cor do alvo
+        WorldSnapshot snapshot = new WorldSnapshot(GameWorld.PROJECTILE_POOL_CAPACITY);
+        snapshot.capture(world, 0);
+        assertTrue(groupTotal(snapshot.getParticles(), GameWorld.DEFAULT_DARK_COLOR) > 0);
+        //novo jogo limpa os efeitos
+        world.newGame(new Random(1));
+        assertEquals(0, particles.size());
+    }
+
+    //partículas de uma cor somando todas as faixas de transparência
+    private static int groupTotal(ParticleBatch batch, int color) {
+        int total = 0;
+        for (int g = 0; g < batch.getGroupCount(); g++)
+            if ((batch.getGroupColor(g) & 0xFFFFFF) == (color & 0xFFFFFF))
+                total += batch.getGroupSize(g);
+        return total;
+    }
+}
@@ -0,0 +1,120 @@
+package br.com.progiv.cannongame;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * O controle de qualidade deve descer até caber no orçamento, voltar com folga e não ficar oscilando entre dois níveis.
+ */
+public class QualityGovernorTest {
+    private static final long BUDGET = 16666667;
+    private static final int WINDOW = 60;
+    private static final long MS = 1000000;
+
+    //aparelho simulado: custo do quadro em cada nível de qualidade
+    private static int run(QualityGovernor governor, long[] costs, int windows) {
+        int changes = 0;
+        for (int n = 0; n < windows * WINDOW; n++)
+            if (governor.recordFrame(costs[governor.getLevel()]))
+                changes++;
+        return changes;
+    }
+
+    @Test
+    public void stepsDownUntilFrameFits() {
+        QualityGovernor governor = new QualityGovernor(BUDGET, WINDOW);
+        long[] costs = {30 * MS, 25 * MS, 20 * MS, 15 * MS, 8 * MS};
+        run(governor, costs, 3);
+        //uma janela por nível
+        assertEquals(QualityGovernor.REDUCED_EFFECTS, governor.getLevel());
+        assertEquals(3, governor.getDowngrades());
+        //15 ms cabe, mas sem folga para subir: fica parado
+        assertEquals(0, run(governor, costs, 50));
+        assertEquals(QualityGovernor.REDUCED_EFFECTS, governor.getLevel());
+        assertFalse(governor.isAntiAlias());
+        assertEquals(QualityGovernor.REDUCED_CATCH_UP_STEPS, governor.getMaxCatchUpSteps(CannonView.MAX_CATCH_UP_STEPS));
+        assertEquals(QualityGovernor.REDUCED_EFFECTS_SCALE, governor.getEffectsScale(), 0f);
+        assertEquals(1f, governor.getResolutionScale(), 0f);
+    }
+
+    @Test
+    public void stopsAtLowestLevel() {
+        QualityGovernor governor = new QualityGovernor(BUDGET, WINDOW);
+        long[] costs = {40 * MS, 40 * MS, 40 * MS, 40 * MS, 40 * MS};
+        run(governor, costs, 20);
+        assertEquals(QualityGovernor.HALF_RESOLUTION, governor.getLevel());
+        assertEquals(QualityGovernor.LEVEL_COUNT - 1, governor.getDowngrades());
+        assertEquals(0.5f, governor.getResolutionScale(), 0f);
+    }
+
+    @Test
+    public void ignoresIsolatedSpikes() {
+        QualityGovernor governor = new QualityGovernor(BUDGET, WINDOW);
+        for (int n = 0; n < 100 * WINDOW; n++)
+            assertFalse(governor.recordFrame(n % 20 == 0 ? 50 * MS : 5 * MS));
+        assertEquals(QualityGovernor.FULL, governor.getLevel());
+    }
+
+    @Test
+    public void climbsBackWithHysteresis() {
+        QualityGovernor governor = new QualityGovernor(BUDGET, WINDOW);
+        long[] heavy = {40 * MS, 40 * MS, 40 * MS, 40 * MS, 40 * MS};
+        run(governor, heavy, 10);
+        assertEquals(QualityGovernor.HALF_RESOLUTION, governor.getLevel());
+        //a carga passou: sobe um nível a cada getUpgradeWindows janelas folgadas
+        long[] light = {5 * MS, 5 * MS, 5 * MS, 5 * MS, 5 * MS};
+        run(governor, light, governor.getUpgradeWindows() - 1);
+        assertEquals(QualityGovernor.HALF_RESOLUTION, governor.getLevel());
+        run(governor, light, 1);
+        assertEquals(QualityGovernor.REDUCED_EFFECTS, governor.getLevel());
+        run(governor, light, 100);
+        assertEquals(QualityGovernor.FULL, governor.getLevel());
+        assertTrue(governor.isAntiAlias());
+        assertEquals(QualityGovernor.LEVEL_COUNT - 1, governor.getUpgrades());
+    }
+
+    @Test
+    public void backsOffFromUpgradesThatDoNotHold() {
+        QualityGovernor governor = new QualityGovernor(BUDGET, WINDOW);
+        //só o primeiro nível estoura, e o segundo tem folga: cada subida estoura de novo
+        long[] costs = {20 * MS, 5 * MS, 5 * MS, 5 * MS, 5 * MS};
+        int changes = run(governor, costs, 1000);
+        assertEquals(QualityGovernor.NO_ANTIALIAS, governor.getLevel());
+        //sem o recuo seriam 2 mudanças a cada 4 janelas (500); com ele a espera dobra até o máximo
+        assertTrue("changes " + changes, changes < 60);
+        assertTrue(governor.getUpgradeWindows() > 3);
+        //uma subida que se sustenta volta a espera ao normal
+        costs[0] = 5 * MS;
+        run(governor, costs, governor.getUpgradeWindows() + 2);
+        assertEquals(QualityGovernor.FULL, governor.getLevel());
+        assertEquals(3, governor.getUpgradeWindows());
+    }
+
+    @Test
+    public void disablingRestoresFullQuality() {
+        QualityGovernor governor = new QualityGovernor(BUDGET, WINDOW);
+        long[] costs = {40 * MS, 40 * MS, 40 * MS, 40 * MS, 40 * MS};
+        run(governor, costs, 2);
+        assertEquals(QualityGovernor.FEWER_SUBSTEPS, governor.getLevel());
+        governor.setEnabled(false);
+        assertEquals(QualityGovernor.FULL, governor.getLevel());
+        assertEquals(0, run(governor, costs, 5));
+        assertEquals(QualityGovernor.FULL, governor.getLevel());
+        governor.setEnabled(true);
+        run(governor, costs, 1);
+        assertEquals(QualityGovernor.NO_ANTIALIAS, governor.getLevel());
+    }
+
+    @Test
+    public void followsFrameBudget() {
+        QualityGovernor governor = new QualityGovernor(BUDGET, WINDOW);
+        long[] costs = {20 * MS, 20 * MS, 20 * MS, 20 * MS, 20 * MS};
+        //a 30 fps 20 ms cabem
+        governor.setFrameBudget(2 * BUDGET);
+        assertEquals(0, run(governor, costs, 10));
+        governor.setFrameBudget(BUDGET);
+        run(governor, costs, 1);
+        assertEquals(QualityGovernor.NO_ANTIALIAS, governor.getLevel());
+    }
+}
@@ -0,0 +1,48 @@
+package br.com.progiv.cannongame;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * O aquecimento deve escolher o backend com a menor mediana, ignorando os quadros iniciais.
+ */
+public class RenderBackendSelectorTest {
+
+    private static final int[] CANDIDATES = {RenderBackend.SOFTWARE, RenderBackend.HARDWARE};
+
+    @Test
+    public void picksLowestMedian() {
+        RenderBackendSelector selector = new RenderBackendSelector(CANDIDATES, 5, 2);
+        assertEquals(RenderBackend.SOFTWARE, selector.getCurrentCandidate());
+        //quadros descartados muito lentos não devem contar
+        long[] software = {90000, 90000, 4000, 4100, 3900, 50000, 4000};
+        for (long nanos : software)
+            selector.recordFrame(nanos);
+        assertEquals(RenderBackend.HARDWARE, selector.getCurrentCandidate());
+        long[] hardware = {1000, 1000, 5000, 5000, 5000, 5000, 5000};
+        for (long nanos : hardware)
+            selector.recordFrame(nanos);
+        assertFalse(selector.isMeasuring());
+        assertEquals(4000, selector.getMedian(0));
+        assertEquals(RenderBackend.SOFTWARE, selector.getSelected());
+    }
+
+    @Test
+    public void failedCandidateIsNeverSelected() {
+        RenderBackendSelector selector = new RenderBackendSelector(CANDIDATES, 3, 0);
+        for (int i = 0; i < 3; i++)
+            selector.recordFrame(10000);
+        selector.markFailed();
+        assertFalse(selector.isMeasuring());
+        assertEquals(RenderBackend.SOFTWARE, selector.getSelected());
+    }
+
+    @Test
+    public void fallsBackToFirstCandidateWhenNothingWasMeasured() {
+        RenderBackendSelector selector = new RenderBackendSelector(CANDIDATES, 3, 0);
+        selector.markFailed();
+        selector.markFailed();
+        assertEquals(RenderBackend.SOFTWARE, selector.getSelected());
+    }
+}
@@ -0,0 +1,144 @@
+package br.com.progiv.cannongame;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Uma partida gravada deve ser repetida sem tela com o mesmo resultado, bit a bit.
+ */
+public class SessionReplayTest {
+    private static final int WIDTH = 1920;
+    private static final int HEIGHT = 1080;
+    private static final double STEP = 1.0 / 60;
+
+    private int hitCount;
+    private final int[] hitSounds = new int[4096];
+    private final int[] hitSteps = new int[4096];
+    private int steps;
+    private double lastTimeLeft;
+    private int lastShotsFired;
+
+    //joga uma partida com toques sorteados até o fim, gravando
+    private byte[] playSession(long seed, boolean continuousCollision, boolean variableSteps) {
+        GameWorld world = new GameWorld();
+        world.setScreenSize(WIDTH, HEIGHT);
+        world.setListener(new GameWorld.Listener() {
+            @Override
+            public void playSound(int soundId) {
+                if (soundId != GameWorld.CANNON_SOUND_ID) {
+                    hitSounds[hitCount] = soundId;
+                    hitSteps[hitCount] = steps;
+                    hitCount++;
+                }
+            }
+
+            @Override
+            public void onGameOver(boolean won) {
+            }
+        });
+        InputQueue queue = new InputQueue(InputQueue.DEFAULT_CAPACITY);
+        world.setInputQueue(queue);
+        world.setContinuousCollision(continuousCollision);
+        SessionRecorder recorder = new SessionRecorder();
+        world.setRecorder(recorder);
+        world.newGame(seed);
+
+        Random input = new Random(seed + 1);
+        while (!world.isGameOver()) {
+            if (input.nextInt(20) == 0)
+                queue.offer(InputQueue.PRESS, input.nextInt(WIDTH), input.nextInt(HEIGHT));
+            if (input.nextInt(10) == 0)
+                queue.offer(InputQueue.MOVE, input.nextInt(WIDTH), input.nextInt(HEIGHT));
+            if (input.nextInt(15) == 0)
+                queue.offer(InputQueue.RELEASE, 0, 0);
+            if (input.nextInt(200) == 0)
+                world.setRapidFire(!world.isRapidFire());
+            //passos irregulares, como no modo de passo variável
+            steps++;
+            world.step(variableSteps && input.nextInt(4) == 0 ? STEP * (1 + input.nextDouble()) : STEP);
+        }
+        assertFalse(recorder.isRecording());
+        assertTrue(world.getShotsFired() > 0);
+        lastTimeLeft = world.getTimeLeft();
+        lastShotsFired = world.getShotsFired();
+        return recorder.toByteArray();
+    }
+
+    @Test
+    public void replayReproducesSession() throws IOException {
+        for (long seed = 1; seed <= 5; seed++) {
+            hitCount = 0;
+            steps = 0;
+            byte[] recording = playSession(seed, seed % 2 == 0, true);
+            SessionReplayer.Result result = SessionReplayer.replay(recording);
+
+            assertTrue(result.hasRecordedEnd());
+            assertTrue(result.matchesRecording());
+            assertTrue(result.isGameOver());
+            assertEquals(Double.doubleToLongBits(lastTimeLeft), Double.doubleToLongBits(result.getTimeLeft()));
+            assertEquals(lastShotsFired, result.getShotsFired());
+            assertEquals(steps, result.getSteps());
+            assertEquals(hitCount, result.getHitCount());
+            for (int n = 0; n < hitCount; n++) {
+                assertEquals(hitSteps[n], result.getHitStep(n));
+                assertEquals(hitSounds[n], result.getHitSound(n));
+            }
+        }
+    }
+
+    @Test
+    public void recordingIsCompact() {
+        byte[] recording = playSession(7, false, false);
+        //com passo fixo, passos seguidos viram uma contagem e cada toque ocupa poucos bytes
+        assertTrue("recording has " + recording.length + " bytes for " + steps + " steps",
+                recording.length < steps * 2);
+    }
+
+    @Test
+    public void replayRunsFasterThanRealTime() throws IOException {
+        //passo fixo: a duração da partida gravada é steps * STEP (acertos somam tempo, passa de INITIAL_TIME)
+        steps = 0;
+        byte[] recording = playSession(3, false, false);
+        double gameSeconds = steps * STEP;
+        SessionReplayer.replay(recording); //aquecimento do JIT
+        //a melhor de algumas repetições: uma pausa do GC ou do escalonador não reprova o teste
+        long best = Long.MAX_VALUE;
+        for (int n = 0; n < 5; n++) {
+            long start = System.nanoTime();
+            SessionReplayer.replay(recording);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        double replaySeconds = best / 1e9;
+        assertTrue("replayed " + gameSeconds + " s of game in " + replaySeconds + " s",
+                replaySeconds < gameSeconds / 1000);
+    }
+
+    @Test
+    public void changedRecordingDoesNotMatch() throws IOException {
+        byte[] recording = playSession(11, false, true);
+        //troca a semente: outro tabuleiro, outro resultado
+        recording[12] ^= 1; //último byte da semente
+        assertFalse(SessionReplayer.replay(recording).matchesRecording());
+    }
+
+    @Test
+    public void truncatedRecordingFails() {
+        byte[] recording = playSession(13, false, true);
+        byte[] truncated = new byte[recording.length - 3];
+        System.arraycopy(recording, 0, truncated, 0, truncated.length);
+        try {
+            SessionReplayer.replay(truncated);
+            fail("truncated recording accepted");
+        } catch (IOException expected) {
+        }
+        try {
+            SessionReplayer.replay(new byte[]{'x', 'y', 'z', 'w', 0});
+            fail("garbage accepted");
+        } catch (IOException expected) {
+        }
+    }
+}
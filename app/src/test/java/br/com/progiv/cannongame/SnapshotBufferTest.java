@@ -0,0 +1,107 @@
+package br.com.progiv.cannongame;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * A troca de instantâneos deve sempre entregar um instantâneo inteiro e o mais recente possível.
+ */
+public class SnapshotBufferTest {
+
+    private static GameWorld newWorld() {
+        GameWorld world = new GameWorld();
+        world.setScreenSize(1920, 1080);
+        world.newGame(new Random(5));
+        return world;
+    }
+
+    @Test
+    public void captureCopiesWorld() {
+        GameWorld world = newWorld();
+        world.alignAndFireCannonBall(1920, 300);
+        world.step(1.0 / 60);
+        WorldSnapshot snapshot = new WorldSnapshot(1);
+        snapshot.capture(world, 123);
+
+        assertEquals(123, snapshot.getTimeNanos());
+        assertEquals(world.getShotsFired(), snapshot.getShotsFired());
+        assertEquals(world.getTimeLeft(), snapshot.getTimeLeft(), 0.0);
+        assertEquals(world.getCannon().getBarrelEndX(), snapshot.getBarrelEndX());
+        assertEquals(1, snapshot.getBallCount());
+        CannonBall ball = world.getProjectiles().get(0);
+        assertEquals(ball.getShape().left, snapshot.getBallLeft(0, 1f), 0f);
+        assertEquals(ball.getPreviousLeft(), snapshot.getBallLeft(0, 0f), 0f);
+        EntityStore targets = world.getTargets();
+        assertEquals(targets.size(), snapshot.getTargets().size());
+        for (int n = 0; n < targets.size(); n++) {
+            assertEquals(targets.getY(n), snapshot.getTargets().getY(n), 0f);
+            assertEquals(targets.getColor(n), snapshot.getTargets().getColor(n));
+        }
+    }
+
+    @Test
+    public void readerAlwaysGetsLatestAndWriterSkipsBusyBuffer() {
+        GameWorld world = newWorld();
+        SnapshotBuffer buffer = new SnapshotBuffer(GameWorld.PROJECTILE_POOL_CAPACITY);
+        assertNull(buffer.acquire());
+
+        assertTrue(buffer.publish(world, 1));
+        WorldSnapshot first = buffer.acquire();
+        assertEquals(1, first.getTimeNanos());
+        //o leitor segura o instantâneo 1; o escritor usa o outro buffer
+        assertTrue(buffer.publish(world, 2));
+        //o próximo buffer de trás é o que o leitor está usando: a escrita é pulada
+        assertFalse(buffer.publish(world, 3));
+        assertEquals(1, buffer.getSkippedWrites());
+        assertEquals(1, first.getTimeNanos());
+        buffer.release();
+
+        WorldSnapshot latest = buffer.acquire();
+        assertEquals(2, latest.getTimeNanos());
+        buffer.release();
+        assertTrue(buffer.publish(world, 4));
+        assertEquals(4, buffer.acquire().getTimeNanos());
+        buffer.release();
+    }
+
+    @Test
+    public void concurrentWriterNeverTearsASnapshot() throws InterruptedException {
+        final GameWorld world = newWorld();
+        final SnapshotBuffer buffer = new SnapshotBuffer(GameWorld.PROJECTILE_POOL_CAPACITY);
+        final int steps = 20000;
+        Thread simulation = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                world.setRapidFire(true);
+                world.setTriggerPulled(true);
+                for (int step = 1; step <= steps && !world.isGameOver(); step++) {
+                    world.step(1.0 / 600);
+                    world.alignAndFireCannonBall(1920, step % 1080);
+                    //o número do passo vai como instante: o leitor confere com o tempo decorrido copiado
+                    buffer.publish(world, step);
+                }
+            }
+        });
+        simulation.setDaemon(true);
+        simulation.start();
+        long lastSeen = 0;
+        boolean consistent = true;
+        while (simulation.isAlive() || lastSeen == 0) {
+            WorldSnapshot snapshot = buffer.acquire();
+            if (snapshot != null) {
+                long step = snapshot.getTimeNanos();
+                if (step < lastSeen || Math.round(snapshot.getTotalElapsedTime() * 600) != step)
+                    consistent = false;
+                lastSeen = step;
+                buffer.release();
+            }
+            Thread.yield();
+        }
+        simulation.join(1000);
+        assertTrue(consistent);
+        assertTrue(lastSeen > 0);
+    }
+}
@@ -0,0 +1,64 @@
+package br.com.progiv.cannongame;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * A grade de colisão deve encontrar o mesmo alvo que o teste contra todos os alvos.
+ */
+public class SpatialGridTest {
+    private static final int WIDTH = 1920;
+    private static final int HEIGHT = 1080;
+
+    @Test
+    public void findIntersecting_matchesBruteForce() {
+        Random random = new Random(7);
+        EntityStore store = randomStore(random, 500);
+        SpatialGrid grid = new SpatialGrid();
+        grid.resize(WIDTH, HEIGHT);
+        grid.build(store);
+
+        for (int n = 0; n < 2000; n++) {
+            Bounds shape = randomBall(random);
+            assertEquals(store.findIntersecting(shape), grid.findIntersecting(store, shape));
+        }
+    }
+
+    @Test
+    public void onRemoveSwap_keepsGridConsistent() {
+        Random random = new Random(11);
+        EntityStore store = randomStore(random, 300);
+        SpatialGrid grid = new SpatialGrid();
+        grid.resize(WIDTH, HEIGHT);
+        grid.build(store);
+
+        while (!store.isEmpty()) {
+            int removed = random.nextInt(store.size());
+            grid.onRemoveSwap(store, removed);
+            store.removeSwap(removed);
+            for (int n = 0; n < 20; n++) {
+                Bounds shape = randomBall(random);
+                assertEquals(store.findIntersecting(shape), grid.findIntersecting(store, shape));
+            }
+        }
+    }
+
+    private static EntityStore randomStore(Random random, int count) {
+        EntityStore store = new EntityStore(GameWorld.TARGET_SOUND_ID, count);
+        for (int n = 0; n < count; n++) {
+            //alguns alvos saem parcialmente da tela, como acontece durante o jogo
+            store.add(random.nextFloat() * WIDTH - 20, random.nextFloat() * HEIGHT - 50,
+                    48, 160, 0, GameWorld.HIT_REWARD, 0);
+        }
+        return store;
+    }
+
+    private static Bounds randomBall(Random random) {
+        int x = random.nextInt(WIDTH);
+        int y = random.nextInt(HEIGHT);
+        return new Bounds(x, y, x + 80, y + 80);
+    }
+}
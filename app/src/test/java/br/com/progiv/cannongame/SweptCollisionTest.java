@@ -0,0 +1,140 @@
+package br.com.progiv.cannongame;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Testes da colisão contínua (swept AABB).
+ */
+public class SweptCollisionTest {
+
+    @Test
+    public void fastBall_doesNotTunnelThroughThinTarget() {
+        //bala de 80px a 2880px/s e um passo de 0,1s: anda 288px e pularia o alvo de 48px
+        double t = SweptCollision.timeOfImpact(
+                0, 500, 80, 80, 2880, 0,
+                200, 400, 48, 288, 0,
+                0.1);
+        assertEquals(120.0 / 2880, t, 1e-9);
+    }
+
+    @Test
+    public void ballPassingBehindTarget_misses() {
+        double t = SweptCollision.timeOfImpact(
+                0, 0, 80, 80, 2880, 0,
+                200, 400, 48, 288, 0,
+                0.1);
+        assertEquals(SweptCollision.NO_HIT, t, 0.0);
+    }
+
+    @Test
+    public void contactAfterStep_misses() {
+        double t = SweptCollision.timeOfImpact(
+                0, 500, 80, 80, 100, 0,
+                200, 400, 48, 288, 0,
+                0.1);
+        assertEquals(SweptCollision.NO_HIT, t, 0.0);
+    }
+
+    @Test
+    public void movingTarget_isHitWhereItWillBe() {
+        //o alvo começa acima da bala e desce até cruzar o caminho dela
+        double t = SweptCollision.timeOfImpact(
+                0, 500, 80, 80, 1000, 0,
+                200, 0, 48, 288, 2000,
+                0.5);
+        //na horizontal o contato começa em 0,12s; na vertical em 0,106s
+        assertEquals(0.12, t, 1e-9);
+    }
+
+    @Test
+    public void alreadyOverlapping_hitsImmediately() {
+        double t = SweptCollision.timeOfImpact(
+                190, 500, 80, 80, 1000, 0,
+                200, 400, 48, 288, 0,
+                0.1);
+        assertEquals(0.0, t, 0.0);
+    }
+
+    @Test
+    public void touchingEdges_isNotACollision() {
+        //mesma regra de Bounds.intersects: encostar não é sobrepor
+        double t = SweptCollision.timeOfImpact(
+                0, 320, 80, 80, 1000, 0,
+                200, 400, 48, 288, 0,
+                0.5);
+        assertEquals(SweptCollision.NO_HIT, t, 0.0);
+    }
+
+    //disparos horizontais contra um alvo fino parado, em posições sorteadas, com passos de 0,1s; retorna os acertos
+    private static int thinTargetHits(boolean continuous) {
+        GameWorld world = new GameWorld();
+        world.setScreenSize(1920, 1080);
+        world.setContinuousCollision(continuous);
+        final int[] hits = new int[1];
+        world.setListener(new GameWorld.Listener() {
+            @Override
+            public void playSound(int soundId) {
+                if (soundId == GameWorld.TARGET_SOUND_ID)
+                    hits[0]++;
+            }
+
+            @Override
+            public void onGameOver(boolean won) {
+            }
+        });
+        GameConfig config = new GameConfig();
+        config.setInitialTime(1e9); //o relógio não pode encerrar o jogo no meio dos disparos
+        world.setConfig(config);
+        world.newGame(new Random(1));
+        world.getBlockers().clear();
+        Random random = new Random(5);
+        for (int shot = 0; shot < 200; shot++) {
+            //alvo de 10px cobrindo toda a altura, mais um fora do caminho para o jogo não acabar
+            EntityStore targets = world.getTargets();
+            targets.clear();
+            targets.add(1000 + random.nextInt(300), 0, 10, 1080, 0, 0, 0);
+            targets.add(1910, 0, 10, 10, 0, 0, 0);
+            world.getCannon().align(Math.PI / 2);
+            assertTrue(world.getCannon().fireCannonBall());
+            for (int n = 0; n < 20 && !world.getProjectiles().isEmpty(); n++)
+                world.step(0.1);
+            assertTrue(world.getProjectiles().isEmpty());
+            assertFalse(world.isGameOver());
+        }
+        return hits[0];
+    }
+
+    @Test
+    public void continuousWorld_doesNotTunnelAtLargeSteps() {
+        //a bala anda 288px por passo e só fica sobre o alvo em 90px do caminho: o teste discreto quase sempre pula
+        int discrete = thinTargetHits(false);
+        int continuous = thinTargetHits(true);
+        assertEquals(200, continuous);
+        assertTrue("discrete hits " + discrete, discrete < 100);
+    }
+
+    @Test
+    public void continuousWorld_playsFullGames() {
+        GameWorld world = new GameWorld();
+        world.setScreenSize(1920, 1080);
+        world.setContinuousCollision(true);
+        Random random = new Random(3);
+        for (int game = 0; game < 20; game++) {
+            world.newGame(random);
+            int frames = 0;
+            while (!world.isGameOver() && frames < 100000) {
+                if (frames % 20 == 0)
+                    world.alignAndFireCannonBall(1920, random.nextInt(1080));
+                //passos grandes: 10 quadros por segundo
+                world.step(0.1);
+                frames++;
+            }
+            assertTrue(world.isGameOver());
+            assertTrue(world.getProjectiles().size() <= 1);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package br.com.progiv.cannongame;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * A contagem de vsyncs deve manter a taxa pedida em telas de 60, 90 e 120 Hz e contar os vsyncs perdidos.
+ */
+public class VsyncPacerTest {
+
+    //entrega count vsyncs regulares da tela e retorna quantos viraram quadros
+    private static int frames(VsyncPacer pacer, float refreshRate, int count) {
+        long period = (long) (1000000000L / refreshRate);
+        int drawn = 0;
+        for (int n = 0; n < count; n++)
+            if (pacer.onVsync(1000000000L + n * period) != VsyncPacer.SKIP)
+                drawn++;
+        return drawn;
+    }
+
+    @Test
+    public void nativeRateDrawsEveryVsync() {
+        VsyncPacer pacer = new VsyncPacer(120f, FrameScheduler.NATIVE_FRAME_RATE);
+        assertEquals(1, pacer.getVsyncsPerFrame());
+        assertEquals(120, frames(pacer, 120f, 120));
+        assertEquals(0, pacer.getMissedVsyncs());
+    }
+
+    @Test
+    public void thirtyFpsOnCommonScreens() {
+        assertEquals(30, frames(new VsyncPacer(60f, 30), 60f, 60));
+        assertEquals(30, frames(new VsyncPacer(90f, 30), 90f, 90));
+        assertEquals(30, frames(new VsyncPacer(120f, 30), 120f, 120));
+        assertEquals(60, frames(new VsyncPacer(120f, 60), 120f, 120));
+    }
+
+    @Test
+    public void nonDivisorRateRoundsToNearestPeriod() {
+        //60 fps em 90 Hz: 1,5 vsync por quadro arredonda para 2 (45 fps), nunca acima do pedido
+        VsyncPacer pacer = new VsyncPacer(90f, 60);
+        assertEquals(2, pacer.getVsyncsPerFrame());
+        assertEquals(45, frames(pacer, 90f, 90));
+        //taxa pedida acima da tela: um quadro por vsync
+        assertEquals(1, new VsyncPacer(60f, 120).getVsyncsPerFrame());
+        //taxa desconhecida: assume 60 Hz
+        assertEquals(16666667, new VsyncPacer(0f, FrameScheduler.NATIVE_FRAME_RATE).getVsyncPeriodNs());
+    }
+
+    @Test
+    public void jitterDoesNotSkipOrMiss() {
+        VsyncPacer pacer = new VsyncPacer(60f, 30);
+        long period = pacer.getVsyncPeriodNs();
+        long start = 1000000000L;
+        assertEquals(0, pacer.onVsync(start));
+        //vsyncs chegando até 10% do período adiantados ou atrasados (o quadro desenhado vira a nova referência)
+        assertEquals(VsyncPacer.SKIP, pacer.onVsync(start + period + period / 10));
+        assertEquals(0, pacer.onVsync(start + 2 * period - period / 10));
+        assertEquals(VsyncPacer.SKIP, pacer.onVsync(start + 3 * period));
+        assertEquals(0, pacer.onVsync(start + 4 * period + period / 10));
+        assertEquals(0, pacer.getMissedVsyncs());
+    }
+
+    @Test
+    public void missedVsyncsAreCountedAndPhaseFollowsTheLateFrame() {
+        VsyncPacer pacer = new VsyncPacer(60f, 30);
+        long period = pacer.getVsyncPeriodNs();
+        long start = 1000000000L;
+        assertEquals(0, pacer.onVsync(start));
+        //o quadro do vsync 2 atrasou: o próximo callback chega no vsync 3
+        assertEquals(1, pacer.onVsync(start + 3 * period));
+        assertEquals(1, pacer.getMissedVsyncs());
+        //a contagem recomeça do vsync 3: o 4 é pulado e o 5 é desenhado
+        assertEquals(VsyncPacer.SKIP, pacer.onVsync(start + 4 * period));
+        assertEquals(0, pacer.onVsync(start + 5 * period));
+        //uma pausa longa (ex.: 10 vsyncs sem callback)
+        assertEquals(8, pacer.onVsync(start + 15 * period));
+        assertEquals(9, pacer.getMissedVsyncs());
+        //reset: o próximo vsync é desenhado sem contar perda
+        pacer.reset();
+        assertEquals(0, pacer.onVsync(start + 100 * period));
+        assertEquals(9, pacer.getMissedVsyncs());
+    }
+}
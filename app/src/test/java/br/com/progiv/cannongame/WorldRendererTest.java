@@ -0,0 +1,146 @@
+package br.com.progiv.cannongame;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * O desenho em lote deve cobrir os mesmos retângulos e círculos com uma chamada por cor e tamanho.
+ */
+public class WorldRendererTest {
+    private static final int WIDTH = 1920;
+    private static final int HEIGHT = 1080;
+
+    private GameWorld world;
+    private final WorldSnapshot snapshot = new WorldSnapshot(GameWorld.PROJECTILE_POOL_CAPACITY);
+    private final RecordingDrawTarget target = new RecordingDrawTarget();
+
+    @Before
+    public void setUp() {
+        world = new GameWorld();
+        world.setScreenSize(WIDTH, HEIGHT);
+    }
+
+    private void render(WorldRenderer renderer) {
+        snapshot.capture(world, 0);
+        target.reset();
+        renderer.render(snapshot, 1f, target);
+    }
+
+    //três balas no ar
+    private void fireBalls() {
+        for (int n = 0; n < 3; n++) {
+            world.getCannon().align(Math.PI / 2 - 0.1 * n);
+            assertTrue(world.getCannon().fireCannonBall());
+        }
+    }
+
+    @Test
+    public void defaultBoardNeedsOneCallPerColor() {
+        world.newGame(new Random(42));
+        fireBalls();
+        render(new WorldRenderer(new DrawBatcher()));
+        //balas, barreira, alvos escuros e alvos claros
+        assertEquals(4, target.getCallCount());
+        assertEquals(3 + 1 + (int) GameWorld.TARGET_PIECES, target.getPrimitiveCount());
+        assertEquals(RecordingDrawTarget.ROUND_POINTS, target.getType(0));
+        assertEquals(3, target.getPrimitiveCount(0));
+        assertEquals(Cannon.COLOR, target.getColor(1));
+        assertEquals(GameWorld.DEFAULT_DARK_COLOR, target.getColor(2));
+        assertEquals(5, target.getPrimitiveCount(2));
+        assertEquals(GameWorld.DEFAULT_LIGHT_COLOR, target.getColor(3));
+        assertEquals(4, target.getPrimitiveCount(3));
+
+        //sem lote: uma chamada por elemento
+        render(new WorldRenderer(new DrawBatcher(DrawBatcher.DEFAULT_GROUPS, 1)));
+        assertEquals(3 + 1 + (int) GameWorld.TARGET_PIECES, target.getCallCount());
+    }
+
+    @Test
+    public void callCountDoesNotGrowWithBoard() {
+        world.newGame(new Random(42), 900);
+        fireBalls();
+        render(new WorldRenderer(new DrawBatcher()));
+        assertEquals(4, target.getCallCount());
+        assertEquals(3 + 1 + 900, target.getPrimitiveCount());
+    }
+
+    @Test
+    public void linesCoverTheRectangles() {
+        world.newGame(new Random(42));
+        render(new WorldRenderer(new DrawBatcher()));
+        EntityStore targets = snapshot.getTargets();
+        float[] data = target.getData();
+        int found = 0;
+        for (int call = 0; call < target.getCallCount(); call++) {
+            assertEquals(RecordingDrawTarget.LINES, target.getType(call));
+            float width = target.getSize(call);
+            for (int p = 0; p < target.getPrimitiveCount(call); p++) {
+                int i = target.getDataStart(call) + 4 * p;
+                //segmento vertical no meio do retângulo, com a largura dele
+                assertEquals(data[i], data[i + 2], 0f);
+                for (int n = 0; n < targets.size(); n++) {
+                    if (targets.getX(n) == data[i] - width / 2 && targets.getY(n) == data[i + 1]) {
+                        assertEquals(targets.getWidth(n), width, 0f);
+                        assertEquals(targets.getY(n) + targets.getHeight(n), data[i + 3], 0f);
+                        assertEquals(targets.getColor(n), target.getColor(call));
+                        found++;
+                    }
+                }
+            }
+        }
+        assertEquals(targets.size(), found);
+    }
+
+    @Test
+    public void wideRectanglesBecomeHorizontalLines() {
+        DrawBatcher batcher = new DrawBatcher();
+        batcher.begin(target);
+        batcher.addRect(10, 20, 110, 30, 1);
+        batcher.flush();
+        assertEquals(1, target.getCallCount());
+        assertEquals(10f, target.getSize(0), 0f);
+        float[] data = target.getData();
+        assertArrayEquals(new float[]{10, 25, 110, 25},
+                new float[]{data[0], data[1], data[2], data[3]}, 0f);
+    }
+
+    @Test
+    public void fullBatcherFlushesEarlyWithoutLosingCommands() {
+        //2 grupos de até 4 primitivas
+        DrawBatcher batcher = new DrawBatcher(2, 4);
+        batcher.begin(target);
+        for (int n = 0; n < 10; n++)
+            batcher.addRect(n, 0, n + 1, 10, 1);
+        //terceira cor: os dois grupos abertos são desenhados antes
+        batcher.addCircle(0, 0, 1, 2);
+        batcher.addCircle(0, 0, 1, 3);
+        batcher.addCircle(0, 0, 1, 4);
+        batcher.flush();
+        assertEquals(13, target.getPrimitiveCount());
+        //10 retângulos em grupos de 4 e 3 círculos de cores diferentes
+        assertEquals(3 + 3, target.getCallCount());
+        assertEquals(13, batcher.getPrimitives());
+        assertEquals(6, batcher.getFlushedGroups());
+    }
+
+    @Test
+    public void particlesUseOneCallPerGroup() {
+        world.setParticles(new ParticleSystem(GameWorld.PARTICLE_CAPACITY));
+        world.newGame(new Random(42));
+        world.getParticles().emit(100, 100, 50, GameWorld.DEFAULT_DARK_COLOR, 0, 1, 10, 1);
+        world.getParticles().emit(100, 100, 50, GameWorld.MUZZLE_COLOR, 0, 1, 10, 1);
+        WorldRenderer renderer = new WorldRenderer(new DrawBatcher());
+        renderer.setParticleSize(4);
+        render(renderer);
+        //barreira, alvos escuros, alvos claros e duas cores de partículas
+        assertEquals(5, target.getCallCount());
+        assertEquals(RecordingDrawTarget.POINTS, target.getType(3));
+        assertEquals(4f, target.getSize(3), 0f);
+        assertEquals(50, target.getPrimitiveCount(3));
+        assertEquals(50, target.getPrimitiveCount(4));
+    }
+}
@@ -0,0 +1,20 @@
+package br.com.progiv.cannongame;
+
+import java.util.Random;
+
+//monta mundos com as mesmas dimensões e semente para todos os benchmarks
+final class BenchmarkWorlds {
+    static final int WIDTH = 1920;
+    static final int HEIGHT = 1080;
+    static final double STEP = 1.0 / 60;
+    static final long SEED = 42;
+
+    private BenchmarkWorlds(){ }
+
+    static GameWorld create(int targetPieces){
+        GameWorld world = new GameWorld();
+        world.setScreenSize(WIDTH, HEIGHT);
+        world.newGame(new Random(SEED), targetPieces);
+        return world;
+    }
+}
@@ -0,0 +1,64 @@
+package br.com.progiv.cannongame;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+//custo de um quadro de colisão (mover os alvos e testar todas as balas)
+//comparando o teste contra todos os alvos com a grade uniforme
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BroadphaseBenchmark {
+    @Param({"100", "500", "2000"})
+    public int targetPieces;
+
+    @Param({"1", "32", "256"})
+    public int balls;
+
+    private EntityStore targets;
+    private SpatialGrid grid;
+    private Bounds[] ballShapes;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        GameWorld world = BenchmarkWorlds.create(targetPieces);
+        targets = world.getTargets();
+        grid = new SpatialGrid();
+        grid.resize(BenchmarkWorlds.WIDTH, BenchmarkWorlds.HEIGHT);
+        //balas espalhadas pela tela inteira
+        Random random = new Random(BenchmarkWorlds.SEED);
+        int diameter = 2 * (int)(BenchmarkWorlds.HEIGHT * GameWorld.CANNONBALL_RADIUS_PERCENT);
+        ballShapes = new Bounds[balls];
+        for(int n = 0; n < balls; n++){
+            int x = random.nextInt(BenchmarkWorlds.WIDTH - diameter);
+            int y = random.nextInt(BenchmarkWorlds.HEIGHT - diameter);
+            ballShapes[n] = new Bounds(x, y, x + diameter, y + diameter);
+        }
+    }
+
+    @Benchmark
+    public void bruteForce(Blackhole blackhole){
+        targets.update(BenchmarkWorlds.STEP, BenchmarkWorlds.HEIGHT);
+        for(int n = 0; n < ballShapes.length; n++)
+            blackhole.consume(targets.findIntersecting(ballShapes[n]));
+    }
+
+    @Benchmark
+    public void uniformGrid(Blackhole blackhole){
+        targets.update(BenchmarkWorlds.STEP, BenchmarkWorlds.HEIGHT);
+        grid.build(targets);
+        for(int n = 0; n < ballShapes.length; n++)
+            blackhole.consume(grid.findIntersecting(targets, ballShapes[n]));
+    }
+}
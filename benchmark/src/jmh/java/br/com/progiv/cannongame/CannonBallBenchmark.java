@@ -0,0 +1,45 @@
+package br.com.progiv.cannongame;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+//custo de CannonBall.update (movimento vertical, horizontal e teste de saída da tela)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CannonBallBenchmark {
+    @Param({"1", "10", "100", "1000"})
+    public int balls;
+
+    private CannonBall[] cannonBalls;
+
+    @Setup(Level.Iteration)
+    public void setUp(){
+        GameWorld world = BenchmarkWorlds.create((int)GameWorld.TARGET_PIECES);
+        int radius = (int)(BenchmarkWorlds.HEIGHT * GameWorld.CANNONBALL_RADIUS_PERCENT);
+        cannonBalls = new CannonBall[balls];
+        for(int n = 0; n < balls; n++){
+            //velocidades variadas para que as balas se espalhem pela tela
+            double angle = Math.PI / 4 + (Math.PI / 2) * n / balls;
+            int speed = (int)(GameWorld.CANNONBALL_SPEED_PERCENT * BenchmarkWorlds.WIDTH);
+            cannonBalls[n] = new CannonBall(world, Cannon.COLOR, GameWorld.CANNON_SOUND_ID,
+                    0, BenchmarkWorlds.HEIGHT / 2 - radius, radius,
+                    (int)(speed * Math.sin(angle)), (float)(speed * -Math.cos(angle)));
+        }
+    }
+
+    @Benchmark
+    public void updateBalls(){
+        for(int n = 0; n < cannonBalls.length; n++)
+            cannonBalls[n].update(BenchmarkWorlds.STEP);
+    }
+}
@@ -0,0 +1,43 @@
+package br.com.progiv.cannongame;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+//custo de mirar (Cannon.align) e de disparar (Cannon.fireCannonBall)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CannonBenchmark {
+    private Cannon cannon;
+    private double angle;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        cannon = BenchmarkWorlds.create((int)GameWorld.TARGET_PIECES).getCannon();
+    }
+
+    @Benchmark
+    public int align(){
+        //varre ângulos para que align não seja constante
+        angle += 0.001;
+        if(angle > Math.PI)
+            angle = 0;
+        cannon.align(angle);
+        return cannon.getBarrelEndY();
+    }
+
+    @Benchmark
+    public boolean fireCannonBall(){
+        //devolve as balas ao conjunto para medir só o disparo
+        cannon.getProjectiles().clear();
+        return cannon.fireCannonBall();
+    }
+}
@@ -0,0 +1,36 @@
+package br.com.progiv.cannongame;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+//custo de GameWorld.testForCollision com a bala em voo longe dos alvos (percorre todos os alvos)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CollisionBenchmark {
+    @Param({"9", "90", "900", "9000"})
+    public int targetPieces;
+
+    private GameWorld world;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        world = BenchmarkWorlds.create(targetPieces);
+        //bala recém disparada, ainda junto ao canhão
+        world.alignAndFireCannonBall(BenchmarkWorlds.WIDTH, BenchmarkWorlds.HEIGHT / 2);
+    }
+
+    @Benchmark
+    public void testForCollision(){
+        world.testForCollision();
+    }
+}
@@ -0,0 +1,41 @@
+package br.com.progiv.cannongame;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+//custo de atualizar todos os alvos de um quadro (EntityStore.update, e updateFixed na física em ponto fixo)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EntityStoreBenchmark {
+    @Param({"9", "90", "900", "9000"})
+    public int targetPieces;
+
+    private EntityStore targets;
+    private final long fixedStep = FixedPoint.interval(BenchmarkWorlds.STEP);
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        GameWorld world = BenchmarkWorlds.create(targetPieces);
+        targets = world.getTargets();
+    }
+
+    @Benchmark
+    public void updateTargets(){
+        targets.update(BenchmarkWorlds.STEP, BenchmarkWorlds.HEIGHT);
+    }
+
+    @Benchmark
+    public void updateTargetsFixed(){
+        targets.updateFixed(fixedStep, BenchmarkWorlds.HEIGHT);
+    }
+}
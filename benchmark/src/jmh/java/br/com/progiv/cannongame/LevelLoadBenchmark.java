@@ -0,0 +1,63 @@
+package br.com.progiv.cannongame;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+//custo de carregar um nível de um pacote mapeado em memória (GameWorld.newGame(LevelPack, int))
+//com o gc profiler, gc.alloc.rate.norm mostra que, com os stores já alocados, só o Cannon do novo jogo é criado
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LevelLoadBenchmark {
+    @Param({"100", "10000"})
+    public int entities;
+
+    private File file;
+    private LevelPack pack;
+    private GameWorld world;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        StringBuilder text = new StringBuilder("level benchmark\n");
+        for(int n = 0; n < entities; n++)
+            text.append(n % 10 == 0 ? "blocker" : "target")
+                    .append(" x=").append((n % 100) / 100f).append(" y=").append((n / 100 % 100) / 100f)
+                    .append(" w=0.005 h=0.01 vy=").append(n % 2 == 0 ? 0.5f : -0.5f).append('\n');
+        text.append("end\n");
+        file = File.createTempFile("levels", ".pack");
+        FileOutputStream output = new FileOutputStream(file);
+        try{
+            output.write(LevelCompiler.compile(new StringReader(text.toString())));
+        }finally {
+            output.close();
+        }
+        pack = LevelPack.open(file);
+        world = BenchmarkWorlds.create((int)GameWorld.TARGET_PIECES);
+        world.newGame(pack, 0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown(){
+        file.delete();
+    }
+
+    @Benchmark
+    public int load(){
+        world.newGame(pack, 0);
+        return world.getTargets().size();
+    }
+}
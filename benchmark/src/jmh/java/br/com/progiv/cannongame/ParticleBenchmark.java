@@ -0,0 +1,55 @@
+package br.com.progiv.cannongame;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+//custo de um quadro de efeitos com o buffer de partículas cheio: mover todas e montar o lote de desenho
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ParticleBenchmark {
+    @Param({"512", "4096", "16384"})
+    public int capacity;
+
+    private ParticleSystem particles;
+    private final ParticleBatch batch = new ParticleBatch();
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        particles = new ParticleSystem(capacity);
+        particles.setGravity(BenchmarkWorlds.HEIGHT);
+        //vida longa para o buffer continuar cheio durante a medição
+        int[] colors = {GameWorld.DEFAULT_DARK_COLOR, GameWorld.DEFAULT_LIGHT_COLOR, Cannon.COLOR, GameWorld.MUZZLE_COLOR};
+        for(int n = 0; n < capacity / GameWorld.TARGET_HIT_PARTICLES + 1; n++)
+            particles.emit(BenchmarkWorlds.WIDTH / 2, BenchmarkWorlds.HEIGHT / 2, GameWorld.TARGET_HIT_PARTICLES,
+                    colors[n % colors.length], 0, (float)(2 * Math.PI), BenchmarkWorlds.HEIGHT / 2, 1e9f);
+    }
+
+    @Benchmark
+    public void update(){
+        particles.update(BenchmarkWorlds.STEP);
+    }
+
+    @Benchmark
+    public ParticleBatch writeBatch(){
+        particles.writeBatch(batch);
+        return batch;
+    }
+
+    //um acerto por quadro: a emissão substitui as partículas mais antigas
+    @Benchmark
+    public void emitAndUpdate(){
+        particles.emit(BenchmarkWorlds.WIDTH / 2, BenchmarkWorlds.HEIGHT / 2, GameWorld.TARGET_HIT_PARTICLES,
+                GameWorld.DEFAULT_DARK_COLOR, 0, (float)(2 * Math.PI), BenchmarkWorlds.HEIGHT / 2, 1e9f);
+        particles.update(BenchmarkWorlds.STEP);
+    }
+}
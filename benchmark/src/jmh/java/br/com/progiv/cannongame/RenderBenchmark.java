@@ -0,0 +1,49 @@
+package br.com.progiv.cannongame;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+//custo na CPU de montar os comandos de desenho de um quadro (WorldRenderer), em lote e um por elemento
+//o destino só grava as chamadas, então o tempo do Canvas fica de fora
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RenderBenchmark {
+    @Param({"9", "90", "900"})
+    public int targetPieces;
+
+    private final WorldSnapshot snapshot = new WorldSnapshot(GameWorld.PROJECTILE_POOL_CAPACITY);
+    private final RecordingDrawTarget target = new RecordingDrawTarget();
+    private final WorldRenderer batched = new WorldRenderer(new DrawBatcher());
+    private final WorldRenderer unbatched = new WorldRenderer(new DrawBatcher(DrawBatcher.DEFAULT_GROUPS, 1));
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        GameWorld world = BenchmarkWorlds.create(targetPieces);
+        world.getCannon().fireCannonBall();
+        snapshot.capture(world, 0);
+    }
+
+    @Benchmark
+    public int batched(){
+        target.reset();
+        batched.render(snapshot, 0.5f, target);
+        return target.getCallCount();
+    }
+
+    @Benchmark
+    public int unbatched(){
+        target.reset();
+        unbatched.render(snapshot, 0.5f, target);
+        return target.getCallCount();
+    }
+}
@@ -0,0 +1,296 @@
+package br.com.progiv.cannongame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+//simula milhões de partidas sem tela para balancear as constantes do jogo (GameConfig)
+//cada combinação da varredura joga --games partidas, divididas entre todos os núcleos com fork/join
+//execute com: ./gradlew :benchmark:balance --args="--games 1000000 --missPenalty 1,2,3 --hitReward 2,3,4"
+public class BalanceHarness {
+    //como o jogador simulado mira
+    static final int RANDOM_AIM = 0; //um ponto qualquer na metade direita da tela
+    static final int LEAD_AIM = 1; //um alvo sorteado, compensando o movimento dele até a bala chegar
+    static final int SOLVER_AIM = 2; //Autoplayer: busca o ângulo que acerta simulando a trajetória (sem erro de mira)
+
+    static final int WIDTH = 1920;
+    static final int HEIGHT = 1080;
+    static final int GAMES_PER_TASK = 256; //abaixo disso a tarefa não se divide mais
+    static final int MAX_STEPS = 1000000; //limite de passos por partida
+
+    //parâmetros do jogador simulado e da simulação, iguais para todas as combinações
+    static final class Settings {
+        long games = 100000;
+        long seed = 1;
+        int strategy = LEAD_AIM;
+        double jitter = 0.05; //erro da mira (desvio padrão), em fração da altura da tela
+        double reaction = 0.25; //tempo entre a bala sair da tela e o próximo disparo, em segundos
+        double step = 1.0 / 60;
+        boolean continuousCollision;
+        boolean earlyExit; //SOLVER_AIM: dispara no primeiro ângulo que acerta
+        int candidates = AimSolver.DEFAULT_CANDIDATES; //SOLVER_AIM: ângulos avaliados por busca
+        int threads = Runtime.getRuntime().availableProcessors();
+    }
+
+    //cada thread reaproveita o próprio mundo e o próprio gerador em todas as partidas que joga
+    private static final ThreadLocal<GameWorld> WORLDS = new ThreadLocal<GameWorld>() {
+        @Override
+        protected GameWorld initialValue() {
+            GameWorld world = new GameWorld();
+            world.setScreenSize(WIDTH, HEIGHT);
+            return world;
+        }
+    };
+    //o jogador automático roda em série dentro de cada tarefa (as partidas já ocupam todos os núcleos)
+    //e sem prazo, para o resultado não depender da carga da máquina
+    private static final ThreadLocal<Autoplayer> PLAYERS = new ThreadLocal<>();
+    private static final ThreadLocal<Random> RANDOMS = new ThreadLocal<Random>() {
+        @Override
+        protected Random initialValue() {
+            return new Random();
+        }
+    };
+
+    //joga as partidas [from, to) de uma combinação, dividindo ao meio até GAMES_PER_TASK
+    static final class GamesTask extends RecursiveTask<BalanceStats> {
+        private final Settings settings;
+        private final GameConfig config;
+        private final int configIndex;
+        private final long from;
+        private final long to;
+
+        GamesTask(Settings settings, GameConfig config, int configIndex, long from, long to){
+            this.settings = settings;
+            this.config = config;
+            this.configIndex = configIndex;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected BalanceStats compute() {
+            if(to - from > GAMES_PER_TASK){
+                long middle = (from + to) >>> 1;
+                GamesTask left = new GamesTask(settings, config, configIndex, from, middle);
+                left.fork();
+                BalanceStats stats = new GamesTask(settings, config, configIndex, middle, to).compute();
+                stats.merge(left.join());
+                return stats;
+            }
+            GameWorld world = WORLDS.get();
+            Random random = RANDOMS.get();
+            world.setConfig(config);
+            world.setContinuousCollision(settings.continuousCollision);
+            Autoplayer player = null;
+            if(settings.strategy == SOLVER_AIM){
+                player = PLAYERS.get();
+                if(player == null){
+                    AimSolver solver = new AimSolver(null, settings.candidates);
+                    solver.setBudgetNanos(Long.MAX_VALUE / 4);
+                    solver.setEarlyExit(settings.earlyExit);
+                    player = new Autoplayer(solver);
+                    PLAYERS.set(player);
+                }
+            }
+            BalanceStats stats = new BalanceStats();
+            for(long game = from; game < to; game++){
+                //a semente depende só da partida: o resultado não muda com o número de threads
+                random.setSeed(gameSeed(settings.seed, configIndex, game));
+                if(player != null)
+                    playGame(world, random, player, settings, stats);
+                else
+                    playGame(world, random, settings, stats);
+            }
+            return stats;
+        }
+    }
+
+    //joga uma partida até o fim e acumula o resultado
+    static void playGame(GameWorld world, Random random, Settings settings, BalanceStats stats){
+        world.newGame(random);
+        double readyAt = settings.reaction;
+        int steps = 0;
+        while(!world.isGameOver() && steps < MAX_STEPS){
+            if(world.getProjectiles().isEmpty()){
+                if(world.getTotalElapsedTime() >= readyAt){
+                    aimAndFire(world, random, settings);
+                }
+            }else{
+                readyAt = world.getTotalElapsedTime() + settings.reaction;
+            }
+            world.step(settings.step);
+            ++steps;
+        }
+        if(!world.isGameOver())
+            ++stats.timeouts;
+        stats.addGame(world.getTargets().isEmpty(), world.getTimeLeft(), world.getShotsFired(), steps);
+    }
+
+    //joga uma partida com o Autoplayer
+    static void playGame(GameWorld world, Random random, Autoplayer player, Settings settings, BalanceStats stats){
+        world.newGame(random);
+        int steps = 0;
+        while(!world.isGameOver() && steps < MAX_STEPS){
+            player.update(world, settings.step);
+            world.step(settings.step);
+            ++steps;
+        }
+        if(!world.isGameOver())
+            ++stats.timeouts;
+        stats.addGame(world.getTargets().isEmpty(), world.getTimeLeft(), world.getShotsFired(), steps);
+    }
+
+    private static void aimAndFire(GameWorld world, Random random, Settings settings){
+        int width = world.getScreenWidth();
+        int height = world.getScreenHeight();
+        double x;
+        double y;
+        EntityStore targets = world.getTargets();
+        if(settings.strategy == RANDOM_AIM || targets.isEmpty()){
+            x = width / 2 + random.nextDouble() * width / 2;
+            y = random.nextDouble() * height;
+        }else{
+            int n = random.nextInt(targets.size());
+            x = targets.getX(n) + targets.getWidth(n) / 2;
+            double targetHeight = targets.getHeight(n);
+            //tempo aproximado da bala até o alvo, saindo do canhão no meio da borda esquerda
+            double dy = targets.getY(n) + targetHeight / 2 - height / 2;
+            double time = Math.sqrt(x * x + dy * dy) / (world.getConfig().getCannonballSpeedPercent() * width);
+            y = predictTop(targets.getY(n), targets.getVelocityY(n), time, height - targetHeight) + targetHeight / 2;
+        }
+        y += random.nextGaussian() * settings.jitter * height;
+        world.applyInput(InputQueue.PRESS, (int)x, (int)y);
+        world.applyInput(InputQueue.RELEASE, 0, 0);
+    }
+
+    //posição do topo de uma entidade depois de time segundos, refletindo nas bordas (0 e maxTop)
+    static double predictTop(double top, double velocityY, double time, double maxTop){
+        if(maxTop <= 0)
+            return top;
+        double position = (top + velocityY * time) % (2 * maxTop);
+        if(position < 0)
+            position += 2 * maxTop;
+        return position <= maxTop ? position : 2 * maxTop - position;
+    }
+
+    static long gameSeed(long seed, int configIndex, long game){
+        //mistura de bits do SplittableRandom para sementes vizinhas ficarem independentes
+        long z = seed * 0x9E3779B97F4A7C15L + configIndex * 0xBF58476D1CE4E5B9L + game;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    //joga settings.games partidas com config usando todos os núcleos do pool
+    static BalanceStats run(ForkJoinPool pool, Settings settings, GameConfig config, int configIndex){
+        return pool.invoke(new GamesTask(settings, config, configIndex, 0, settings.games));
+    }
+
+    public static void main(String[] args){
+        Settings settings = new Settings();
+        List<GameConfig> configs = new ArrayList<>();
+        configs.add(new GameConfig());
+        try{
+            for(int n = 0; n < args.length; n++){
+                String option = args[n];
+                if(option.equals("--continuous")){
+                    settings.continuousCollision = true;
+                    continue;
+                }
+                if(option.equals("--earlyExit")){
+                    settings.earlyExit = true;
+                    continue;
+                }
+                if(n + 1 == args.length)
+                    throw new IllegalArgumentException("missing value for " + option);
+                String value = args[++n];
+                if(option.equals("--games"))
+                    settings.games = Long.parseLong(value);
+                else if(option.equals("--seed"))
+                    settings.seed = Long.parseLong(value);
+                else if(option.equals("--strategy"))
+                    settings.strategy = parseStrategy(value);
+                else if(option.equals("--jitter"))
+                    settings.jitter = Double.parseDouble(value);
+                else if(option.equals("--reaction"))
+                    settings.reaction = Double.parseDouble(value);
+                else if(option.equals("--step"))
+                    settings.step = Double.parseDouble(value);
+                else if(option.equals("--candidates"))
+                    settings.candidates = Integer.parseInt(value);
+                else if(option.equals("--threads"))
+                    settings.threads = Integer.parseInt(value);
+                else
+                    configs = sweep(configs, option, value.split(","));
+            }
+        }catch (IllegalArgumentException e){
+            System.err.println(e.getMessage());
+            System.err.println("usage: BalanceHarness [--games N] [--seed S] [--strategy random|lead|solver] [--jitter F]"
+                    + " [--reaction SECONDS] [--step SECONDS] [--continuous] [--threads N]"
+                    + " [--candidates N] [--earlyExit]"
+                    + " [--missPenalty a,b,..] [--hitReward ..] [--initialTime ..] [--targetMinSpeed ..]"
+                    + " [--targetMaxSpeed ..] [--blockerSpeed ..] [--cannonballSpeed ..]");
+            System.exit(2);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(settings.threads);
+        System.out.printf(Locale.US, "%d combinations x %d games, %s aim, %d threads%n", configs.size(), settings.games,
+                STRATEGY_NAMES[settings.strategy], settings.threads);
+        for(int n = 0; n < configs.size(); n++){
+            long start = System.nanoTime();
+            BalanceStats stats = run(pool, settings, configs.get(n), n);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.println(configs.get(n));
+            System.out.printf(Locale.US, "  win rate %.2f%%  timeLeft mean %.2f p10 %.1f p50 %.1f p90 %.1f"
+                            + "  shotsToClear mean %.2f p50 %d p90 %d%n",
+                    100 * stats.getWinRate(), stats.getMeanTimeLeft(), stats.getTimeLeftPercentile(10),
+                    stats.getTimeLeftPercentile(50), stats.getTimeLeftPercentile(90), stats.getMeanShotsToClear(),
+                    stats.getShotsToClearPercentile(50), stats.getShotsToClearPercentile(90));
+            System.out.printf(Locale.US, "  %d games in %.1f s (%.0f games/s, %.0f steps/s)%s%n", stats.games, seconds,
+                    stats.games / seconds, stats.steps / seconds,
+                    stats.timeouts > 0 ? ", " + stats.timeouts + " hit the step limit" : "");
+        }
+        pool.shutdown();
+    }
+
+    private static final String[] STRATEGY_NAMES = {"random", "lead", "solver"};
+
+    private static int parseStrategy(String value){
+        for(int n = 0; n < STRATEGY_NAMES.length; n++){
+            if(STRATEGY_NAMES[n].equals(value))
+                return n;
+        }
+        throw new IllegalArgumentException("unknown strategy " + value);
+    }
+
+    //produto cartesiano: cada combinação atual com cada valor da opção
+    private static List<GameConfig> sweep(List<GameConfig> configs, String option, String[] values){
+        List<GameConfig> result = new ArrayList<>();
+        for(GameConfig base : configs){
+            for(String value : values){
+                GameConfig config = new GameConfig(base);
+                if(option.equals("--missPenalty"))
+                    config.setMissPenalty(Integer.parseInt(value));
+                else if(option.equals("--hitReward"))
+                    config.setHitReward(Integer.parseInt(value));
+                else if(option.equals("--initialTime"))
+                    config.setInitialTime(Double.parseDouble(value));
+                else if(option.equals("--targetMinSpeed"))
+                    config.setTargetMinSpeedPercent(Double.parseDouble(value));
+                else if(option.equals("--targetMaxSpeed"))
+                    config.setTargetMaxSpeedPercent(Double.parseDouble(value));
+                else if(option.equals("--blockerSpeed"))
+                    config.setBlockerSpeedPercent(Double.parseDouble(value));
+                else if(option.equals("--cannonballSpeed"))
+                    config.setCannonballSpeedPercent(Double.parseDouble(value));
+                else
+                    throw new IllegalArgumentException("unknown option " + option);
+                result.add(config);
+            }
+        }
+        return result;
+    }
+}
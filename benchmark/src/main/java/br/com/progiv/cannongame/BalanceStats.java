@@ -0,0 +1,74 @@
+package br.com.progiv.cannongame;
+
+//resultados acumulados de um lote de partidas simuladas
+//cada tarefa do BalanceHarness acumula no seu próprio objeto (sem sincronização) e os lotes são somados no join
+final class BalanceStats {
+    static final double TIME_BIN = 0.5; //largura das faixas do histograma de tempo restante, em segundos
+    static final int TIME_BINS = 256;
+    static final int SHOT_BINS = 256;
+
+    long games;
+    long wins;
+    long timeouts; //partidas interrompidas pelo limite de passos
+    long steps;
+    double timeLeftSum; //só vitórias
+    long shotsToClearSum; //só vitórias
+    final long[] timeLeftHistogram = new long[TIME_BINS + 1]; //a última faixa acumula o que passar do limite
+    final long[] shotsToClearHistogram = new long[SHOT_BINS + 1];
+
+    void addGame(boolean won, double timeLeft, int shotsFired, int gameSteps){
+        ++games;
+        steps += gameSteps;
+        if(!won)
+            return;
+        ++wins;
+        timeLeftSum += timeLeft;
+        shotsToClearSum += shotsFired;
+        ++timeLeftHistogram[Math.min((int)(timeLeft / TIME_BIN), TIME_BINS)];
+        ++shotsToClearHistogram[Math.min(shotsFired, SHOT_BINS)];
+    }
+
+    void merge(BalanceStats other){
+        games += other.games;
+        wins += other.wins;
+        timeouts += other.timeouts;
+        steps += other.steps;
+        timeLeftSum += other.timeLeftSum;
+        shotsToClearSum += other.shotsToClearSum;
+        for(int n = 0; n <= TIME_BINS; n++)
+            timeLeftHistogram[n] += other.timeLeftHistogram[n];
+        for(int n = 0; n <= SHOT_BINS; n++)
+            shotsToClearHistogram[n] += other.shotsToClearHistogram[n];
+    }
+
+    double getWinRate(){
+        return games == 0 ? 0 : (double)wins / games;
+    }
+    double getMeanTimeLeft(){
+        return wins == 0 ? 0 : timeLeftSum / wins;
+    }
+    double getMeanShotsToClear(){
+        return wins == 0 ? 0 : (double)shotsToClearSum / wins;
+    }
+    //percentil do tempo restante nas vitórias (limite superior da faixa)
+    double getTimeLeftPercentile(double percentile){
+        return (percentileBin(timeLeftHistogram, percentile) + 1) * TIME_BIN;
+    }
+    //percentil dos tiros até limpar a tela nas vitórias
+    int getShotsToClearPercentile(double percentile){
+        return percentileBin(shotsToClearHistogram, percentile);
+    }
+
+    private int percentileBin(long[] histogram, double percentile){
+        if(wins == 0)
+            return 0;
+        long rank = (long)Math.ceil(percentile / 100 * wins);
+        long seen = 0;
+        for(int n = 0; n < histogram.length; n++){
+            seen += histogram[n];
+            if(seen >= rank && seen > 0)
+                return n;
+        }
+        return histogram.length - 1;
+    }
+}
@@ -0,0 +1,203 @@
+package br.com.progiv.cannongame;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+//compila a forma de texto dos níveis para o formato binário de LevelPack
+//
+//  # comentário (no início da linha ou depois de um espaço)
+//  level "Clássico"
+//  time 20
+//  blocker x=0.5 y=0.375 w=0.025 h=0.25 vy=1 value=2 color=#FF000000
+//  target x=0.6 y=0.425 w=0.025 h=0.15 vy=-0.9 value=3 color=#FF1976D2
+//  end
+//
+//x e w são frações da largura da tela; y, h e vy (por segundo), da altura; value em segundos
+//ferramenta de desenvolvimento, fora do APK: ./gradlew :benchmark:levels --args="niveis.txt niveis.pack"
+public class LevelCompiler {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    //um nível já compilado (nome, tempo e as entidades serializadas)
+    private static class Level {
+        String name;
+        float initialTime = (float)GameWorld.INITIAL_TIME;
+        int blockerCount;
+        int targetCount;
+        final ByteArrayOutputStream blockers = new ByteArrayOutputStream();
+        final ByteArrayOutputStream targets = new ByteArrayOutputStream();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if(args.length != 2){
+            System.err.println("usage: LevelCompiler <levels.txt> <levels.pack>");
+            System.exit(2);
+        }
+        Reader input = new InputStreamReader(new FileInputStream(new File(args[0])), UTF8);
+        OutputStream output = new FileOutputStream(new File(args[1]));
+        try{
+            compile(input, output);
+        }finally {
+            input.close();
+            output.close();
+        }
+    }
+
+    //compila o texto e retorna o pacote binário
+    public static byte[] compile(Reader input) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        compile(input, output);
+        return output.toByteArray();
+    }
+
+    //compila o texto e escreve o pacote binário; erros de sintaxe lançam IllegalArgumentException com a linha
+    public static void compile(Reader input, OutputStream output) throws IOException {
+        List<Level> levels = parse(new BufferedReader(input));
+        DataOutputStream out = new DataOutputStream(output);
+        out.writeInt(LevelPack.MAGIC);
+        out.writeShort(LevelPack.VERSION);
+        out.writeShort(0);
+        out.writeInt(levels.size());
+        //índice: os níveis vêm em sequência logo depois dele
+        int offset = LevelPack.HEADER_SIZE + levels.size() * LevelPack.INDEX_ENTRY_SIZE;
+        for(Level level : levels){
+            int length = levelSize(level);
+            out.writeInt(offset);
+            out.writeInt(length);
+            offset += length;
+        }
+        for(Level level : levels){
+            byte[] name = level.name.getBytes(UTF8);
+            out.writeShort(name.length);
+            out.write(name);
+            out.writeFloat(level.initialTime);
+            out.writeInt(level.blockerCount);
+            out.writeInt(level.targetCount);
+            level.blockers.writeTo(out);
+            level.targets.writeTo(out);
+        }
+        out.flush();
+    }
+
+    private static int levelSize(Level level){
+        return LevelPack.LEVEL_FIXED_SIZE + level.name.getBytes(UTF8).length
+                + (level.blockerCount + level.targetCount) * LevelPack.ENTITY_SIZE;
+    }
+
+    private static List<Level> parse(BufferedReader reader) throws IOException {
+        List<Level> levels = new ArrayList<>();
+        Level level = null;
+        String line;
+        int lineNumber = 0;
+        while((line = reader.readLine()) != null){
+            ++lineNumber;
+            line = stripComment(line);
+            line = line.trim();
+            if(line.isEmpty())
+                continue;
+            String[] words = line.split("\\s+", 2);
+            String keyword = words[0].toLowerCase(Locale.US);
+            String rest = words.length > 1 ? words[1] : "";
+            try{
+                if(keyword.equals("level")){
+                    if(level != null)
+                        throw new IllegalArgumentException("missing 'end' before 'level'");
+                    level = new Level();
+                    level.name = unquote(rest);
+                    if(level.name.getBytes(UTF8).length > 0xFFFF)
+                        throw new IllegalArgumentException("level name too long");
+                }else if(level == null){
+                    throw new IllegalArgumentException("'" + keyword + "' outside a level");
+                }else if(keyword.equals("time")){
+                    level.initialTime = Float.parseFloat(rest);
+                }else if(keyword.equals("blocker")){
+                    writeEntity(new DataOutputStream(level.blockers), rest, GameWorld.MISS_PENALTY, Cannon.COLOR);
+                    ++level.blockerCount;
+                }else if(keyword.equals("target")){
+                    writeEntity(new DataOutputStream(level.targets), rest, GameWorld.HIT_REWARD,
+                            level.targetCount % 2 == 0 ? GameWorld.DEFAULT_DARK_COLOR : GameWorld.DEFAULT_LIGHT_COLOR);
+                    ++level.targetCount;
+                }else if(keyword.equals("end")){
+                    levels.add(level);
+                    level = null;
+                }else{
+                    throw new IllegalArgumentException("unknown keyword '" + keyword + "'");
+                }
+            }catch (IllegalArgumentException e){
+                //NumberFormatException também cai aqui
+                throw new IllegalArgumentException("line " + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+        if(level != null)
+            throw new IllegalArgumentException("line " + lineNumber + ": missing 'end'");
+        return levels;
+    }
+
+    //lê os atributos chave=valor de uma barreira ou alvo; value e color são opcionais
+    private static void writeEntity(DataOutputStream out, String attributes, int defaultValue, int defaultColor) throws IOException {
+        float x = Float.NaN, y = Float.NaN, width = Float.NaN, height = Float.NaN, velocityY = 0;
+        int value = defaultValue;
+        int color = defaultColor;
+        for(String attribute : attributes.trim().split("\\s+")){
+            int equals = attribute.indexOf('=');
+            if(equals <= 0)
+                throw new IllegalArgumentException("expected key=value, found '" + attribute + "'");
+            String key = attribute.substring(0, equals);
+            String text = attribute.substring(equals + 1);
+            switch(key){
+                case "x": x = Float.parseFloat(text); break;
+                case "y": y = Float.parseFloat(text); break;
+                case "w": width = Float.parseFloat(text); break;
+                case "h": height = Float.parseFloat(text); break;
+                case "vy": velocityY = Float.parseFloat(text); break;
+                case "value": value = Integer.parseInt(text); break;
+                case "color": color = parseColor(text); break;
+                default: throw new IllegalArgumentException("unknown attribute '" + key + "'");
+            }
+        }
+        if(Float.isNaN(x) || Float.isNaN(y) || Float.isNaN(width) || Float.isNaN(height))
+            throw new IllegalArgumentException("x, y, w and h are required");
+        if(value < Short.MIN_VALUE || value > Short.MAX_VALUE)
+            throw new IllegalArgumentException("value out of range");
+        out.writeFloat(x);
+        out.writeFloat(y);
+        out.writeFloat(width);
+        out.writeFloat(height);
+        out.writeFloat(velocityY);
+        out.writeShort(value);
+        out.writeInt(color);
+    }
+
+    //#AARRGGBB ou #RRGGBB (opaca)
+    private static int parseColor(String text){
+        if(!text.startsWith("#") || (text.length() != 7 && text.length() != 9))
+            throw new IllegalArgumentException("color must be #RRGGBB or #AARRGGBB");
+        long color = Long.parseLong(text.substring(1), 16);
+        return text.length() == 7 ? (int)(0xFF000000L | color) : (int)color;
+    }
+
+    //# começa um comentário no início da linha ou depois de um espaço (em color=#... faz parte do valor)
+    private static String stripComment(String line){
+        for(int i = 0; i < line.length(); i++)
+            if(line.charAt(i) == '#' && (i == 0 || Character.isWhitespace(line.charAt(i - 1))))
+                return line.substring(0, i);
+        return line;
+    }
+
+    private static String unquote(String text){
+        if(text.length() >= 2 && text.startsWith("\"") && text.endsWith("\""))
+            return text.substring(1, text.length() - 1);
+        return text;
+    }
+}
@@ -0,0 +1,79 @@
+package br.com.progiv.cannongame;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * A forma de texto dos níveis deve compilar para um pacote que o LevelPack do jogo lê sem perder dados.
+ */
+public class LevelCompilerTest {
+
+    private static final String LEVELS =
+            "# dois níveis\n" +
+            "level \"Primeiro\"\n" +
+            "time 15\n" +
+            "blocker x=0.5 y=0.25 w=0.025 h=0.25 vy=1\n" +
+            "blocker x=0.3 y=0.5 w=0.05 h=0.1 vy=-0.5 value=4 color=#FF00FF00\n" +
+            "target x=0.6 y=0.4 w=0.025 h=0.15 vy=-0.9\n" +
+            "target x=0.7 y=0.4 w=0.025 h=0.15 vy=0.8 color=#123456\n" +
+            "end\n" +
+            "level Segundo\n" +
+            "target x=0.9 y=0.1 w=0.01 h=0.01 value=7\n" +
+            "end\n";
+
+    private static LevelPack compile(String text) throws IOException {
+        return new LevelPack(ByteBuffer.wrap(LevelCompiler.compile(new StringReader(text))));
+    }
+
+    @Test
+    public void compiledLevelsLoadIntoTheWorld() throws IOException {
+        LevelPack pack = compile(LEVELS);
+        assertEquals(2, pack.getLevelCount());
+        assertEquals("Primeiro", pack.getLevelName(0));
+        assertEquals("Segundo", pack.getLevelName(1));
+        assertEquals(15, pack.getInitialTime(0), 0.0);
+        assertEquals(GameWorld.INITIAL_TIME, pack.getInitialTime(1), 0.0);
+
+        GameWorld world = new GameWorld();
+        world.setScreenSize(1000, 800);
+        world.newGame(pack, 0);
+        EntityStore blockers = world.getBlockers();
+        assertEquals(2, blockers.size());
+        assertEquals(500, blockers.getX(0), 0f);
+        assertEquals(800, blockers.getVelocityY(0), 0f);
+        assertEquals(GameWorld.MISS_PENALTY, blockers.getValue(0));
+        assertEquals(4, blockers.getValue(1));
+        assertEquals(0xFF00FF00, blockers.getColor(1));
+        EntityStore targets = world.getTargets();
+        assertEquals(2, targets.size());
+        assertEquals(GameWorld.HIT_REWARD, targets.getValue(0));
+        //cores padrão alternadas; #RRGGBB vira opaca
+        assertEquals(GameWorld.DEFAULT_DARK_COLOR, targets.getColor(0));
+        assertEquals(0xFF123456, targets.getColor(1));
+
+        world.newGame(pack, 1);
+        assertEquals(0, world.getBlockers().size());
+        assertEquals(7, world.getTargets().getValue(0));
+    }
+
+    @Test
+    public void syntaxErrorsReportTheLine() throws IOException {
+        try {
+            compile("level A\ntarget x=0.1 y=0.1 w=0.1\nend\n");
+            fail("syntax error not detected");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("line 2:"));
+        }
+        try {
+            compile("level A\ntarget x=0.1 y=0.1 w=0.1 h=0.1\n");
+            fail("missing end not detected");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("missing 'end'"));
+        }
+    }
+}